@@ -0,0 +1,36 @@
+package com.canteen.ordering.jmh;
+
+import com.canteen.ordering.CanteenOrderingSystemApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application on the H2 (dev) profile, quietly and without a web server, for one benchmark trial.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>(Arrays.asList(
+                "spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "spring.main.web-application-type=none",
+                "spring.jpa.show-sql=false",
+                "spring.sql.init.mode=never",
+                "logging.level.root=WARN",
+                "logging.level.com.canteen.ordering=WARN",
+                "logging.level.org.hibernate.SQL=WARN",
+                "logging.level.org.springframework.web=WARN"));
+        all.addAll(Arrays.asList(properties));
+        return new SpringApplicationBuilder(CanteenOrderingSystemApplication.class)
+                .profiles("dev")
+                .properties(all.toArray(new String[0]))
+                .run();
+    }
+}
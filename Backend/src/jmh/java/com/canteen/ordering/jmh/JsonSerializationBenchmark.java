@@ -0,0 +1,93 @@
+package com.canteen.ordering.jmh;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the menu and order list responses, with an object mapper configured the way
+ * Spring Boot configures the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "200"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<MenuItem> menuItems;
+    private List<Order> singleItemOrders;
+    private List<Order> cartOrders;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        menuItems = new ArrayList<>(size);
+        singleItemOrders = new ArrayList<>(size);
+        cartOrders = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < size; i++) {
+            MenuItem menuItem = new MenuItem("Menu item " + i, new BigDecimal("9.50"), 20);
+            menuItem.setId((long) i);
+            menuItems.add(menuItem);
+
+            Order order = new Order(menuItem);
+            order.setId((long) i);
+            order.setStatus(OrderStatus.PENDING);
+            order.setCreatedAt(now);
+            order.setUpdatedAt(now);
+            singleItemOrders.add(order);
+
+            Order cart = new Order();
+            cart.setId((long) (size + i));
+            cart.setStatus(OrderStatus.PAID);
+            cart.setCreatedAt(now);
+            cart.setUpdatedAt(now);
+            for (int line = 0; line < 3; line++) {
+                cart.addLine(new OrderLine(menuItem, line + 1, menuItem.getPrice()));
+            }
+            cartOrders.add(cart);
+        }
+    }
+
+    @Benchmark
+    public byte[] menuItems() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(menuItems);
+    }
+
+    @Benchmark
+    public byte[] singleItemOrders() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(singleItemOrders);
+    }
+
+    @Benchmark
+    public byte[] cartOrders() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(cartOrders);
+    }
+}
@@ -0,0 +1,85 @@
+package com.canteen.ordering.jmh;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.groupcommit.OrderGroupCommitter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end single-item order creation on H2: cache lookup, stock decrement, order insert and
+ * commit, either one transaction per order or through group commit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderCreationBenchmark {
+
+    private static final int MENU_ITEMS = 10;
+
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private OrderGroupCommitter orderGroupCommitter;
+    private Long[] menuItemIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("app.orders.group-commit.enabled=" + groupCommit);
+        MenuItemRepository menuItemRepository = context.getBean(MenuItemRepository.class);
+        menuItemIds = new Long[MENU_ITEMS];
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            menuItemIds[i] = menuItemRepository.save(new MenuItem("Item " + i, new BigDecimal("5.00"), Integer.MAX_VALUE)).getId();
+        }
+        orderService = context.getBean(OrderService.class);
+        orderGroupCommitter = groupCommit ? context.getBean(OrderGroupCommitter.class) : null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Order createOrder_1Thread(ThreadParams thread) {
+        return createOrder(thread);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Order createOrder_16Threads(ThreadParams thread) {
+        return createOrder(thread);
+    }
+
+    private Order createOrder(ThreadParams thread) {
+        Long menuItemId = menuItemIds[thread.getThreadIndex() % menuItemIds.length];
+        return orderGroupCommitter != null
+                ? orderGroupCommitter.createOrder(menuItemId)
+                : orderService.createOrder(menuItemId);
+    }
+}
@@ -0,0 +1,102 @@
+package com.canteen.ordering.jmh;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.MenuItemService;
+import com.canteen.ordering.service.stock.StockLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a stock decrement followed by a restore, through {@link MenuItemService}, for every
+ * stock engine, with all threads on one hot item or spread over several, at 1, 4 and 16 threads.
+ * Each operation leaves the stock where it found it, so runs can be as long as needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StockBenchmark {
+
+    @Param({"pessimistic", "optimistic", "conditional", "ledger"})
+    public String engine;
+
+    @Param({"1", "16"})
+    public int menuItems;
+
+    private ConfigurableApplicationContext context;
+    private MenuItemService menuItemService;
+    private Long[] menuItemIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean ledger = "ledger".equals(engine);
+        context = BenchmarkContexts.start(
+                "app.stock.mode=" + (ledger ? "ledger" : "jpa"),
+                "app.stock.locking=" + (ledger ? "pessimistic" : engine),
+                // Contended optimistic writers need more than the default handful of attempts
+                "app.stock.optimistic.max-attempts=50",
+                "app.stock.optimistic.backoff-ms=1");
+        MenuItemRepository menuItemRepository = context.getBean(MenuItemRepository.class);
+        menuItemIds = new Long[menuItems];
+        for (int i = 0; i < menuItems; i++) {
+            menuItemIds[i] = menuItemRepository.save(new MenuItem("Item " + i, new BigDecimal("5.00"), 1_000_000)).getId();
+        }
+        menuItemService = context.getBean(MenuItemService.class);
+        if (ledger) {
+            // The ledger recovered on startup, before these items existed
+            context.getBean(StockLedger.class).recover();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean decrementAndRestore_1Thread(ThreadParams thread) {
+        return decrementAndRestore(thread);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean decrementAndRestore_4Threads(ThreadParams thread) {
+        return decrementAndRestore(thread);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean decrementAndRestore_16Threads(ThreadParams thread) {
+        return decrementAndRestore(thread);
+    }
+
+    private boolean decrementAndRestore(ThreadParams thread) {
+        Long menuItemId = menuItemIds[thread.getThreadIndex() % menuItemIds.length];
+        boolean decremented = menuItemService.decrementStock(menuItemId, 1);
+        if (decremented) {
+            menuItemService.restoreStock(menuItemId, 1);
+        }
+        return decremented;
+    }
+}
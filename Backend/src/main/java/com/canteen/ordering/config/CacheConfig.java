@@ -0,0 +1,32 @@
+package com.canteen.ordering.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String MENU_ITEMS = "menuItems";
+    
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.menu-items.maximum-size:1000}") long maximumSize,
+                                     @Value("${app.cache.menu-items.expire-after-write:10m}") Duration expireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(MENU_ITEMS);
+        // recordStats feeds the cache.gets / cache.evictions meters under /actuator/metrics
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats());
+        // Evictions issued inside a transaction wait for the commit, so a reader can't re-cache the old row in between
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
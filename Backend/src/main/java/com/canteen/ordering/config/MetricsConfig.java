@@ -0,0 +1,43 @@
+package com.canteen.ordering.config;
+
+import com.canteen.ordering.service.expiry.OrderExpiryScheduler;
+import com.canteen.ordering.service.intake.OrderIntake;
+import com.canteen.ordering.service.live.LiveEventBroadcaster;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    
+    // Makes @Timed work on Spring beans; the AOP starter comes in with spring-boot-starter-data-jpa
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+    
+    // Gauges read live sizes from in-memory structures, so sampling them never touches the database
+    @Bean
+    public MeterBinder pendingOrderGauges(ObjectProvider<OrderExpiryScheduler> expiryScheduler,
+                                          ObjectProvider<OrderIntake> orderIntake,
+                                          ObjectProvider<LiveEventBroadcaster> liveEventBroadcaster) {
+        return registry -> {
+            expiryScheduler.ifAvailable(scheduler -> Gauge.builder("canteen.orders.pending", scheduler,
+                            OrderExpiryScheduler::getScheduledCount)
+                    .description("Pending orders waiting for payment or auto-cancellation")
+                    .register(registry));
+            orderIntake.ifAvailable(intake -> Gauge.builder("canteen.orders.intake.queued", intake,
+                            OrderIntake::getQueueDepth)
+                    .description("Orders accepted by queued intake and not yet processed")
+                    .register(registry));
+            liveEventBroadcaster.ifAvailable(broadcaster -> Gauge.builder("canteen.events.subscribers", broadcaster,
+                            LiveEventBroadcaster::getSubscriberCount)
+                    .description("Connected live event stream clients")
+                    .register(registry));
+        };
+    }
+}
@@ -0,0 +1,129 @@
+package com.canteen.ordering.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out replica connections to read-only transactions of {@link ReplicaRead} methods and primary
+ * connections to everything else. Read-only alone is not enough: Spring Data repository methods are
+ * read-only transactions too, and many reads have to see the writes just committed on the primary.
+ * <p>
+ * The route is read from {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}, which
+ * is only set once the transaction has begun, so this has to sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} that fetches the connection
+ * at the first statement. When the replica cannot hand out a connection the read goes to the primary
+ * instead, and the replica is left alone for {@code retryAfterMs} before it is tried again.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    private static final ThreadLocal<Boolean> replicaRead = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final long retryAfterNanos;
+    private volatile long replicaRetryAt;
+    private volatile boolean replicaDown;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, long retryAfterMs) {
+        this.primary = primary;
+        this.retryAfterNanos = TimeUnit.MILLISECONDS.toNanos(retryAfterMs);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Allows or disallows replica connections for read-only transactions on the current thread.
+     *
+     * @return the previous setting, to be restored afterwards
+     */
+    public static boolean setReplicaRead(boolean allowed) {
+        boolean previous = isReplicaRead();
+        if (allowed) {
+            replicaRead.set(Boolean.TRUE);
+        } else {
+            replicaRead.remove();
+        }
+        return previous;
+    }
+
+    public static boolean isReplicaRead() {
+        return Boolean.TRUE.equals(replicaRead.get());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return isReplicaRead() && TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaUsable()
+                ? Route.REPLICA : Route.PRIMARY;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            return replicaFailed(e).getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        DataSource target = determineTargetDataSource();
+        try {
+            return target.getConnection(username, password);
+        } catch (SQLException e) {
+            if (target == primary) {
+                throw e;
+            }
+            return replicaFailed(e).getConnection(username, password);
+        }
+    }
+
+    /**
+     * Whether replica reads are currently sent to the primary because the replica failed.
+     */
+    public boolean isReplicaDown() {
+        return replicaDown && System.nanoTime() - replicaRetryAt < 0;
+    }
+
+    private boolean replicaUsable() {
+        if (!replicaDown) {
+            return true;
+        }
+        if (System.nanoTime() - replicaRetryAt < 0) {
+            return false;
+        }
+        // Let the next read try the replica again; another failure puts it back out for the full period
+        replicaDown = false;
+        logger.info("Retrying the read replica");
+        return true;
+    }
+
+    private DataSource replicaFailed(SQLException e) {
+        replicaRetryAt = System.nanoTime() + retryAfterNanos;
+        replicaDown = true;
+        logger.warn("Read replica unavailable, sending reads to the primary for the next {} ms: {}",
+                TimeUnit.NANOSECONDS.toMillis(retryAfterNanos), e.getMessage());
+        return primary;
+    }
+}
@@ -0,0 +1,22 @@
+package com.canteen.ordering.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Lets the read-only transaction of the annotated method run on the read replica, when one is
+ * configured. Everything else, including read-only transactions without this annotation, stays on the
+ * primary.
+ * <p>
+ * Only for reads that can live with data trailing recent writes by the replication lag: listings,
+ * reports and exports. A read that must see what the same client just wrote, or whose result is
+ * paired with state the primary already moved on (the menu ETag), must not carry it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
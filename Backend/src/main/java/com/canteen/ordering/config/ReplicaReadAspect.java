@@ -0,0 +1,25 @@
+package com.canteen.ordering.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Marks the thread for the duration of a {@link ReplicaRead} method so
+ * {@link ReadWriteRoutingDataSource} may hand its read-only transaction a replica connection. The
+ * connection is only fetched at the first statement, so it does not matter whether this runs inside
+ * or outside the transaction interceptor.
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.canteen.ordering.config.ReplicaRead)")
+    public Object allowReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReadWriteRoutingDataSource.setReplicaRead(true);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReadWriteRoutingDataSource.setReplicaRead(previous);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.canteen.ordering.controller;
+
+import com.canteen.ordering.service.live.LiveEventBroadcaster;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/events")
+@Api(tags = "Live Events")
+public class EventController {
+    
+    @Autowired
+    private LiveEventBroadcaster liveEventBroadcaster;
+    
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ApiOperation(value = "Subscribe to live events",
+                  notes = "Server-Sent Events stream of committed changes: 'stock' events carry {menuItemId, stockCount}, "
+                        + "'order' events carry {orderId, status, previousStatus}. With a ticket id, 'ticket' events carry "
+                        + "the outcome of that queued order. Refetch after reconnecting.")
+    public SseEmitter subscribe(
+            @ApiParam(value = "Ticket ID of a queued order whose outcome to receive")
+            @RequestParam(required = false) String ticket) {
+        return liveEventBroadcaster.subscribe(ticket);
+    }
+}
@@ -8,6 +8,8 @@ import io.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,11 +29,17 @@ public class MenuItemController {
     private MenuItemService menuItemService;
     
     @GetMapping
-    @ApiOperation(value = "Get all menu items", notes = "Retrieves all menu items from the system")
-    public ResponseEntity<List<MenuItem>> getAllMenuItems() {
+    @ApiOperation(value = "Get all menu items", notes = "Retrieves all menu items; answers 304 when If-None-Match carries the current ETag")
+    public ResponseEntity<List<MenuItem>> getAllMenuItems(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            // Read the version before the data so the ETag can never claim a newer menu than the body
+            String eTag = menuETag();
+            if (matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
             List<MenuItem> menuItems = menuItemService.getAllMenuItems();
-            return ResponseEntity.ok(menuItems);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(menuItems);
         } catch (Exception e) {
             logger.error("Error fetching menu items", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -39,11 +47,16 @@ public class MenuItemController {
     }
     
     @GetMapping("/available")
-    @ApiOperation(value = "Get available menu items", notes = "Retrieves menu items with stock > 0")
-    public ResponseEntity<List<MenuItem>> getAvailableMenuItems() {
+    @ApiOperation(value = "Get available menu items", notes = "Retrieves menu items with stock > 0; answers 304 when If-None-Match carries the current ETag")
+    public ResponseEntity<List<MenuItem>> getAvailableMenuItems(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
+            String eTag = menuETag();
+            if (matches(ifNoneMatch, eTag)) {
+                return notModified(eTag);
+            }
             List<MenuItem> menuItems = menuItemService.getAvailableMenuItems();
-            return ResponseEntity.ok(menuItems);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(menuItems);
         } catch (Exception e) {
             logger.error("Error fetching available menu items", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -131,5 +144,26 @@ public class MenuItemController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+    
+    private String menuETag() {
+        return "\"menu-" + menuItemService.getMenuVersion() + "\"";
+    }
+    
+    // Strong comparison against each entity tag in the header, as If-None-Match allows a list or "*"
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(CacheControl.noCache()).build();
+    }
 }
-
@@ -1,18 +1,36 @@
 package com.canteen.ordering.controller;
 
+import com.canteen.ordering.dto.CheckoutRequest;
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.OrderStats;
+import com.canteen.ordering.dto.OrderSummary;
 import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.service.OrderExportService;
 import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.OrderStatsService;
+import com.canteen.ordering.service.groupcommit.OrderGroupCommitter;
+import com.canteen.ordering.service.intake.OrderIntake;
+import com.canteen.ordering.service.intake.OrderTicket;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @RestController
@@ -21,16 +39,40 @@ import java.util.Optional;
 public class OrderController {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private OrderExportService orderExportService;
+    
+    @Autowired
+    private OrderStatsService orderStatsService;
+    
+    // Only present when app.orders.intake.mode=queued
+    @Autowired(required = false)
+    private OrderIntake orderIntake;
+    
+    // Only present when app.orders.group-commit.enabled=true
+    @Autowired(required = false)
+    private OrderGroupCommitter orderGroupCommitter;
+    
+    @Value("${app.orders.intake.retry-after-seconds:2}")
+    private int intakeRetryAfterSeconds;
+    
     @GetMapping
-    @ApiOperation(value = "Get all orders", notes = "Retrieves all orders from the system")
-    public ResponseEntity<List<Order>> getAllOrders() {
+    @ApiOperation(value = "Get all orders", notes = "Retrieves orders newest first, one page at a time; follow the X-Next-Cursor header for the next page")
+    public ResponseEntity<List<OrderSummary>> getAllOrders(
+            @ApiParam(value = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size (1-" + OrderService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<Order> orders = orderService.getAllOrders();
-            return ResponseEntity.ok(orders);
+            return toResponse(orderService.getAllOrders(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid cursor for orders: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -38,11 +80,17 @@ public class OrderController {
     }
     
     @GetMapping("/history")
-    @ApiOperation(value = "Get order history", notes = "Retrieves order history for all users")
-    public ResponseEntity<List<Order>> getOrderHistory() {
+    @ApiOperation(value = "Get order history", notes = "Retrieves order history for all users, one page at a time; follow the X-Next-Cursor header for the next page")
+    public ResponseEntity<List<OrderSummary>> getOrderHistory(
+            @ApiParam(value = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size (1-" + OrderService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<Order> orders = orderService.getOrderHistory();
-            return ResponseEntity.ok(orders);
+            return toResponse(orderService.getOrderHistory(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid cursor for order history: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching order history", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -50,11 +98,17 @@ public class OrderController {
     }
     
     @GetMapping("/pending")
-    @ApiOperation(value = "Get pending orders", notes = "Retrieves all pending orders")
-    public ResponseEntity<List<Order>> getPendingOrders() {
+    @ApiOperation(value = "Get pending orders", notes = "Retrieves pending orders, one page at a time; follow the X-Next-Cursor header for the next page")
+    public ResponseEntity<List<OrderSummary>> getPendingOrders(
+            @ApiParam(value = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size (1-" + OrderService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<Order> orders = orderService.getPendingOrders();
-            return ResponseEntity.ok(orders);
+            return toResponse(orderService.getPendingOrders(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid cursor for pending orders: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching pending orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -62,11 +116,17 @@ public class OrderController {
     }
     
     @GetMapping("/paid")
-    @ApiOperation(value = "Get paid orders", notes = "Retrieves all paid orders")
-    public ResponseEntity<List<Order>> getPaidOrders() {
+    @ApiOperation(value = "Get paid orders", notes = "Retrieves paid orders, one page at a time; follow the X-Next-Cursor header for the next page")
+    public ResponseEntity<List<OrderSummary>> getPaidOrders(
+            @ApiParam(value = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size (1-" + OrderService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<Order> orders = orderService.getPaidOrders();
-            return ResponseEntity.ok(orders);
+            return toResponse(orderService.getPaidOrders(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid cursor for paid orders: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching paid orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -74,26 +134,67 @@ public class OrderController {
     }
     
     @GetMapping("/cancelled")
-    @ApiOperation(value = "Get cancelled orders", notes = "Retrieves all cancelled orders")
-    public ResponseEntity<List<Order>> getCancelledOrders() {
+    @ApiOperation(value = "Get cancelled orders", notes = "Retrieves cancelled orders, one page at a time; follow the X-Next-Cursor header for the next page")
+    public ResponseEntity<List<OrderSummary>> getCancelledOrders(
+            @ApiParam(value = "Cursor from the previous page's X-Next-Cursor header")
+            @RequestParam(required = false) String cursor,
+            @ApiParam(value = "Page size (1-" + OrderService.MAX_PAGE_SIZE + ")")
+            @RequestParam(defaultValue = "" + OrderService.DEFAULT_PAGE_SIZE) int limit) {
         try {
-            List<Order> orders = orderService.getCancelledOrders();
-            return ResponseEntity.ok(orders);
+            return toResponse(orderService.getCancelledOrders(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid cursor for cancelled orders: {}", cursor);
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error fetching cancelled orders", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    @GetMapping("/summary")
+    @ApiOperation(value = "Get order summary", notes = "Order counts by status, paid revenue and units per menu item, served from in-memory counters")
+    public ResponseEntity<OrderStats> getOrderSummary() {
+        return ResponseEntity.ok(orderStatsService.getStats());
+    }
+    
+    @GetMapping("/export")
+    @ApiOperation(value = "Export orders", notes = "Streams orders created in [from, to) as NDJSON or CSV, one line per order line")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @ApiParam(value = "Output format: ndjson or csv")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @ApiParam(value = "Inclusive lower bound on creation time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @ApiParam(value = "Exclusive upper bound on creation time (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsupported export format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+        // The body is written on an async thread after this method returns; the export opens its own transaction
+        StreamingResponseBody body = out -> orderExportService.export(from, to, exportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + exportFormat.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/{id}")
-    @ApiOperation(value = "Get order by ID", notes = "Retrieves a specific order by its ID")
-    public ResponseEntity<Order> getOrderById(
+    @ApiOperation(value = "Get order by ID", notes = "Retrieves a specific order by its ID. Orders that have been archived are looked up in the archive and returned in the listing (summary) shape")
+    public ResponseEntity<?> getOrderById(
             @ApiParam(value = "Order ID", required = true)
             @PathVariable Long id) {
         try {
             Optional<Order> order = orderService.getOrderById(id);
             if (order.isPresent()) {
                 return ResponseEntity.ok(order.get());
+            }
+            Optional<OrderSummary> archived = orderService.getArchivedOrderById(id);
+            if (archived.isPresent()) {
+                return ResponseEntity.ok(archived.get());
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -104,12 +205,17 @@ public class OrderController {
     }
     
     @PostMapping
-    @ApiOperation(value = "Create new order", notes = "Creates a new order and decrements stock")
-    public ResponseEntity<Order> createOrder(
+    @ApiOperation(value = "Create new order", notes = "Creates a new order and decrements stock; in queued intake mode answers 202 with a ticket, or 503 when the queue is full")
+    public ResponseEntity<?> createOrder(
             @ApiParam(value = "Menu item ID", required = true)
             @RequestParam Long menuItemId) {
         try {
-            Order order = orderService.createOrder(menuItemId);
+            if (orderIntake != null) {
+                return accepted(orderIntake.submit(menuItemId));
+            }
+            Order order = orderGroupCommitter != null
+                    ? orderGroupCommitter.createOrder(menuItemId)
+                    : orderService.createOrder(menuItemId);
             return ResponseEntity.status(HttpStatus.CREATED).body(order);
         } catch (RuntimeException e) {
             logger.error("Error creating order for menu item id: {}", menuItemId, e);
@@ -120,6 +226,39 @@ public class OrderController {
         }
     }
     
+    @PostMapping("/checkout")
+    @ApiOperation(value = "Check out cart", notes = "Reserves stock for every cart line and creates a single order in one transaction; in queued intake mode answers 202 with a ticket, or 503 when the queue is full")
+    public ResponseEntity<?> checkout(
+            @ApiParam(value = "Cart lines", required = true)
+            @Valid @RequestBody CheckoutRequest checkoutRequest) {
+        try {
+            if (orderIntake != null) {
+                return accepted(orderIntake.submitCheckout(checkoutRequest.getLines()));
+            }
+            Order order = orderService.checkout(checkoutRequest.getLines());
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (RuntimeException e) {
+            logger.error("Error checking out cart", e);
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Error checking out cart", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    @GetMapping("/tickets/{ticketId}")
+    @ApiOperation(value = "Get order ticket", notes = "Outcome of an order accepted in queued intake mode: QUEUED, PROCESSING, COMPLETED (with orderId) or FAILED (with error)")
+    public ResponseEntity<OrderTicket> getTicket(
+            @ApiParam(value = "Ticket ID", required = true)
+            @PathVariable String ticketId) {
+        if (orderIntake == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return orderIntake.getTicket(ticketId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
     @PostMapping("/{id}/cancel")
     @ApiOperation(value = "Cancel order", notes = "Cancels an order and restores stock if not paid")
     public ResponseEntity<Order> cancelOrder(
@@ -153,5 +292,24 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+    
+    private ResponseEntity<OrderTicket> accepted(Optional<OrderTicket> ticket) {
+        if (!ticket.isPresent()) {
+            // Shed load explicitly: the client retries later instead of holding a thread until a timeout
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(intakeRetryAfterSeconds))
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/orders/tickets/" + ticket.get().getId()))
+                .body(ticket.get());
+    }
+    
+    private ResponseEntity<List<OrderSummary>> toResponse(CursorPage<OrderSummary> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
+    }
 }
-
@@ -0,0 +1,71 @@
+package com.canteen.ordering.controller;
+
+import com.canteen.ordering.dto.SalesReportRow;
+import com.canteen.ordering.service.report.SalesReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/reports")
+@Api(tags = "Reports")
+public class ReportController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
+    
+    @Autowired
+    private SalesReportService salesReportService;
+    
+    @GetMapping("/sales")
+    @ApiOperation(value = "Get sales report", notes = "Orders, units, paid revenue and cancellations per menu item and period, read from the hourly sales rollups")
+    public ResponseEntity<List<SalesReportRow>> getSales(
+            @ApiParam(value = "Inclusive lower bound on the hour (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @ApiParam(value = "Exclusive upper bound on the hour (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @ApiParam(value = "Period length: hour, day or month")
+            @RequestParam(defaultValue = "day") String granularity,
+            @ApiParam(value = "Restrict the report to one menu item")
+            @RequestParam(required = false) Long menuItemId) {
+        SalesReportService.Granularity reportGranularity;
+        try {
+            reportGranularity = SalesReportService.Granularity.parse(granularity);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Unsupported report granularity: {}", granularity);
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(salesReportService.getSales(from, to, reportGranularity, menuItemId));
+        } catch (Exception e) {
+            logger.error("Error building sales report", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    @PostMapping("/sales/rebuild")
+    @ApiOperation(value = "Rebuild sales rollups", notes = "Recomputes the hourly sales rollups of closed hours in [from, to) from the orders")
+    public ResponseEntity<Map<String, Integer>> rebuildSales(
+            @ApiParam(value = "Inclusive lower bound (ISO-8601), rounded down to the hour")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @ApiParam(value = "Exclusive upper bound (ISO-8601), at most the start of the current hour")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            return ResponseEntity.ok(Collections.singletonMap("rollups", salesReportService.rebuild(from, to)));
+        } catch (Exception e) {
+            logger.error("Error rebuilding sales rollups", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
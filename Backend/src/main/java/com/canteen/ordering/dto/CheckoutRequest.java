@@ -0,0 +1,66 @@
+package com.canteen.ordering.dto;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckoutRequest {
+    
+    @NotEmpty(message = "At least one cart line is required")
+    @Valid
+    private List<Line> lines = new ArrayList<>();
+    
+    // Constructors
+    public CheckoutRequest() {}
+    
+    public CheckoutRequest(List<Line> lines) {
+        this.lines = lines;
+    }
+    
+    // Getters and Setters
+    public List<Line> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+    
+    public static class Line {
+        
+        @NotNull(message = "Menu item is required")
+        private Long menuItemId;
+        
+        @NotNull(message = "Quantity is required")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+        
+        // Constructors
+        public Line() {}
+        
+        public Line(Long menuItemId, Integer quantity) {
+            this.menuItemId = menuItemId;
+            this.quantity = quantity;
+        }
+        
+        // Getters and Setters
+        public Long getMenuItemId() {
+            return menuItemId;
+        }
+        
+        public void setMenuItemId(Long menuItemId) {
+            this.menuItemId = menuItemId;
+        }
+        
+        public Integer getQuantity() {
+            return quantity;
+        }
+        
+        public void setQuantity(Integer quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.canteen.ordering.dto;
+
+import com.canteen.ordering.entity.MenuItem;
+
+import java.math.BigDecimal;
+
+/**
+ * Cacheable, immutable part of a menu item. Stock is deliberately left out: it changes with every
+ * order and is always read from its authoritative source.
+ */
+public class MenuItemMetadata {
+    
+    private final Long id;
+    private final String name;
+    private final BigDecimal price;
+    
+    public MenuItemMetadata(Long id, String name, BigDecimal price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+    
+    public static MenuItemMetadata of(MenuItem menuItem) {
+        return new MenuItemMetadata(menuItem.getId(), menuItem.getName(), menuItem.getPrice());
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+}
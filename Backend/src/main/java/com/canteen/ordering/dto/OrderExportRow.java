@@ -0,0 +1,66 @@
+package com.canteen.ordering.dto;
+
+import com.canteen.ordering.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One exported order line. Single-item orders export as one row with quantity 1; cart orders
+ * export one row per line, all sharing the order's id, status and timestamps.
+ */
+public class OrderExportRow {
+    
+    private final Long orderId;
+    private final OrderStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Long menuItemId;
+    private final String itemName;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    
+    public OrderExportRow(Long orderId, OrderStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                          Long menuItemId, String itemName, Integer quantity, BigDecimal unitPrice) {
+        this.orderId = orderId;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.menuItemId = menuItemId;
+        this.itemName = itemName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+    
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+    
+    public String getItemName() {
+        return itemName;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+}
@@ -0,0 +1,41 @@
+package com.canteen.ordering.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart line of an {@link OrderSummary}, with its menu item flattened in by the same query.
+ */
+public class OrderLineSummary {
+    
+    private final Long orderId;
+    private final OrderSummary.Item menuItem;
+    private final Integer quantity;
+    private final BigDecimal unitPrice;
+    
+    public OrderLineSummary(Long orderId, Long menuItemId, String menuItemName, BigDecimal menuItemPrice,
+                            Integer quantity, BigDecimal unitPrice) {
+        this.orderId = orderId;
+        this.menuItem = new OrderSummary.Item(menuItemId, menuItemName, menuItemPrice);
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+    
+    @JsonIgnore
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public OrderSummary.Item getMenuItem() {
+        return menuItem;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+}
@@ -0,0 +1,99 @@
+package com.canteen.ordering.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Dashboard summary served by {@code GET /api/orders/summary}: order counts by status, paid revenue,
+ * and units per menu item by order status.
+ */
+public class OrderStats {
+    
+    private final long totalOrders;
+    private final long pendingOrders;
+    private final long paidOrders;
+    private final long cancelledOrders;
+    private final BigDecimal paidRevenue;
+    private final List<MenuItemStats> menuItems;
+    private final LocalDateTime reconciledAt;
+    
+    public OrderStats(long pendingOrders, long paidOrders, long cancelledOrders, BigDecimal paidRevenue,
+                      List<MenuItemStats> menuItems, LocalDateTime reconciledAt) {
+        this.totalOrders = pendingOrders + paidOrders + cancelledOrders;
+        this.pendingOrders = pendingOrders;
+        this.paidOrders = paidOrders;
+        this.cancelledOrders = cancelledOrders;
+        this.paidRevenue = paidRevenue;
+        this.menuItems = menuItems;
+        this.reconciledAt = reconciledAt;
+    }
+    
+    public long getTotalOrders() {
+        return totalOrders;
+    }
+    
+    public long getPendingOrders() {
+        return pendingOrders;
+    }
+    
+    public long getPaidOrders() {
+        return paidOrders;
+    }
+    
+    public long getCancelledOrders() {
+        return cancelledOrders;
+    }
+    
+    public BigDecimal getPaidRevenue() {
+        return paidRevenue;
+    }
+    
+    public List<MenuItemStats> getMenuItems() {
+        return menuItems;
+    }
+    
+    /**
+     * When the counters were last checked against the database.
+     */
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+    
+    public static class MenuItemStats {
+        
+        private final Long menuItemId;
+        private final String name;
+        private final long pendingUnits;
+        private final long paidUnits;
+        private final long cancelledUnits;
+        
+        public MenuItemStats(Long menuItemId, String name, long pendingUnits, long paidUnits, long cancelledUnits) {
+            this.menuItemId = menuItemId;
+            this.name = name;
+            this.pendingUnits = pendingUnits;
+            this.paidUnits = paidUnits;
+            this.cancelledUnits = cancelledUnits;
+        }
+        
+        public Long getMenuItemId() {
+            return menuItemId;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getPendingUnits() {
+            return pendingUnits;
+        }
+        
+        public long getPaidUnits() {
+            return paidUnits;
+        }
+        
+        public long getCancelledUnits() {
+            return cancelledUnits;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.canteen.ordering.dto;
+
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+
+/**
+ * Payload of an {@code order} event on the live event stream.
+ */
+public class OrderStatusUpdate {
+    
+    private final Long orderId;
+    private final OrderStatus status;
+    private final OrderStatus previousStatus;
+    
+    public OrderStatusUpdate(Long orderId, OrderStatus status, OrderStatus previousStatus) {
+        this.orderId = orderId;
+        this.status = status;
+        this.previousStatus = previousStatus;
+    }
+    
+    public static OrderStatusUpdate of(OrderStatusChangedEvent event) {
+        return new OrderStatusUpdate(event.getOrderId(), event.getNewStatus(), event.getPreviousStatus());
+    }
+    
+    public Long getOrderId() {
+        return orderId;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * Null for a newly created order.
+     */
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+}
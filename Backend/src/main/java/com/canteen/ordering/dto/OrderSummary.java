@@ -0,0 +1,85 @@
+package com.canteen.ordering.dto;
+
+import com.canteen.ordering.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read model for order listings: only the fields the UI shows, loaded by a join query instead of
+ * through the lazy {@code Order.menuItem} association. Serializes to the same shape as {@code Order}.
+ */
+public class OrderSummary {
+    
+    private final Long id;
+    private final OrderStatus status;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final Item menuItem;
+    private List<OrderLineSummary> lines = new ArrayList<>();
+    
+    public OrderSummary(Long id, OrderStatus status, LocalDateTime createdAt, LocalDateTime updatedAt,
+                        Long menuItemId, String menuItemName, BigDecimal menuItemPrice) {
+        this.id = id;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        // Cart orders have no menu item of their own; their items are in lines
+        this.menuItem = menuItemId != null ? new Item(menuItemId, menuItemName, menuItemPrice) : null;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public Item getMenuItem() {
+        return menuItem;
+    }
+    
+    public List<OrderLineSummary> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<OrderLineSummary> lines) {
+        this.lines = lines;
+    }
+    
+    public static class Item {
+        
+        private final Long id;
+        private final String name;
+        private final BigDecimal price;
+        
+        public Item(Long id, String name, BigDecimal price) {
+            this.id = id;
+            this.name = name;
+            this.price = price;
+        }
+        
+        public Long getId() {
+            return id;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public BigDecimal getPrice() {
+            return price;
+        }
+    }
+}
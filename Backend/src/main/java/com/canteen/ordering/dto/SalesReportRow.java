@@ -0,0 +1,78 @@
+package com.canteen.ordering.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sales of one menu item in one report period, as served by {@code GET /api/reports/sales}.
+ * Placed, paid and cancelled are each counted in the period the order was placed, paid or cancelled.
+ */
+public class SalesReportRow {
+    
+    private final LocalDateTime periodStart;
+    private final Long menuItemId;
+    private final String name;
+    private final long orders;
+    private final long units;
+    private final long paidOrders;
+    private final long paidUnits;
+    private final BigDecimal paidRevenue;
+    private final long cancelledOrders;
+    private final long cancelledUnits;
+    
+    public SalesReportRow(LocalDateTime periodStart, Long menuItemId, String name, long orders, long units,
+                          long paidOrders, long paidUnits, BigDecimal paidRevenue, long cancelledOrders,
+                          long cancelledUnits) {
+        this.periodStart = periodStart;
+        this.menuItemId = menuItemId;
+        this.name = name;
+        this.orders = orders;
+        this.units = units;
+        this.paidOrders = paidOrders;
+        this.paidUnits = paidUnits;
+        this.paidRevenue = paidRevenue;
+        this.cancelledOrders = cancelledOrders;
+        this.cancelledUnits = cancelledUnits;
+    }
+    
+    public LocalDateTime getPeriodStart() {
+        return periodStart;
+    }
+    
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /** Orders placed holding the item. */
+    public long getOrders() {
+        return orders;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public long getPaidOrders() {
+        return paidOrders;
+    }
+    
+    public long getPaidUnits() {
+        return paidUnits;
+    }
+    
+    public BigDecimal getPaidRevenue() {
+        return paidRevenue;
+    }
+    
+    public long getCancelledOrders() {
+        return cancelledOrders;
+    }
+    
+    public long getCancelledUnits() {
+        return cancelledUnits;
+    }
+}
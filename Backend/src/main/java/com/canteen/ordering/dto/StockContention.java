@@ -0,0 +1,86 @@
+package com.canteen.ordering.dto;
+
+/**
+ * Stock lock contention of one menu item over the profiler's sliding window, as served by
+ * {@code /actuator/stockcontention}. Times are in milliseconds.
+ */
+public class StockContention {
+    
+    private final Long menuItemId;
+    private final String name;
+    private final long acquisitions;
+    private final long failures;
+    private final int waitingNow;
+    private final int maxQueueDepth;
+    private final double totalWaitMs;
+    private final double maxWaitMs;
+    private final double totalHoldMs;
+    private final double maxHoldMs;
+    
+    public StockContention(Long menuItemId, String name, long acquisitions, long failures, int waitingNow,
+                           int maxQueueDepth, double totalWaitMs, double maxWaitMs, double totalHoldMs,
+                           double maxHoldMs) {
+        this.menuItemId = menuItemId;
+        this.name = name;
+        this.acquisitions = acquisitions;
+        this.failures = failures;
+        this.waitingNow = waitingNow;
+        this.maxQueueDepth = maxQueueDepth;
+        this.totalWaitMs = totalWaitMs;
+        this.maxWaitMs = maxWaitMs;
+        this.totalHoldMs = totalHoldMs;
+        this.maxHoldMs = maxHoldMs;
+    }
+    
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /** Lock attempts that completed in the window, successful or not. */
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+    
+    /** Attempts that got the lock but found too little stock, or gave up on it. */
+    public long getFailures() {
+        return failures;
+    }
+    
+    /** Requests queued for this item's lock right now. */
+    public int getWaitingNow() {
+        return waitingNow;
+    }
+    
+    /** Most requests seen queued for the lock at once, the arriving request included. */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+    
+    public double getTotalWaitMs() {
+        return totalWaitMs;
+    }
+    
+    public double getAverageWaitMs() {
+        return acquisitions == 0 ? 0 : totalWaitMs / acquisitions;
+    }
+    
+    public double getMaxWaitMs() {
+        return maxWaitMs;
+    }
+    
+    public double getTotalHoldMs() {
+        return totalHoldMs;
+    }
+    
+    public double getAverageHoldMs() {
+        return acquisitions == 0 ? 0 : totalHoldMs / acquisitions;
+    }
+    
+    public double getMaxHoldMs() {
+        return maxHoldMs;
+    }
+}
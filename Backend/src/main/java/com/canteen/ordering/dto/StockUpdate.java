@@ -0,0 +1,23 @@
+package com.canteen.ordering.dto;
+
+/**
+ * Payload of a {@code stock} event on the live event stream: the committed stock count of one menu item.
+ */
+public class StockUpdate {
+    
+    private final Long menuItemId;
+    private final Integer stockCount;
+    
+    public StockUpdate(Long menuItemId, Integer stockCount) {
+        this.menuItemId = menuItemId;
+        this.stockCount = stockCount;
+    }
+    
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+    
+    public Integer getStockCount() {
+        return stockCount;
+    }
+}
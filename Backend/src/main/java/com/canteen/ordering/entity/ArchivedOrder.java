@@ -0,0 +1,64 @@
+package com.canteen.ordering.entity;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A paid or cancelled order moved out of {@code orders} by the archiver. Rows are copied with
+ * {@code INSERT ... SELECT} and never change afterwards; the id is the order's original id.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_created_at", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_orders_archive_updated_at", columnList = "updated_at")
+})
+public class ArchivedOrder {
+    
+    @Id
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "menu_item_id")
+    private MenuItem menuItem;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private OrderStatus status;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public MenuItem getMenuItem() {
+        return menuItem;
+    }
+    
+    public OrderStatus getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,53 @@
+package com.canteen.ordering.entity;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * A line of an archived cart order, copied from {@code order_lines} together with its order.
+ */
+@Entity
+@Immutable
+@Table(name = "order_lines_archive")
+public class ArchivedOrderLine {
+    
+    @Id
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "order_id", nullable = false)
+    private ArchivedOrder order;
+    
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "menu_item_id", nullable = false)
+    private MenuItem menuItem;
+    
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public ArchivedOrder getOrder() {
+        return order;
+    }
+    
+    public MenuItem getMenuItem() {
+        return menuItem;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+}
@@ -0,0 +1,136 @@
+package com.canteen.ordering.entity;
+
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One {@code Idempotency-Key} in the shared store used when {@code app.idempotency.store=database}.
+ * The key is the primary key, so two nodes claiming it at once collide on the insert.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyRecord implements Persistable<String> {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String idempotencyKey;
+    
+    @Column(name = "fingerprint", nullable = false, length = 64)
+    private String fingerprint;
+    
+    @Column(name = "completed", nullable = false)
+    private boolean completed;
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "content_type")
+    private String contentType;
+    
+    @Column(name = "location")
+    private String location;
+    
+    @Lob
+    @Column(name = "response_body")
+    private byte[] responseBody;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    // A new record must be inserted, never merged into an existing row with the same key
+    @Transient
+    private boolean isNew = true;
+    
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+    
+    // Constructors
+    public IdempotencyRecord() {
+    }
+    
+    public IdempotencyRecord(String idempotencyKey, String fingerprint, LocalDateTime expiresAt) {
+        this.idempotencyKey = idempotencyKey;
+        this.fingerprint = fingerprint;
+        this.createdAt = LocalDateTime.now();
+        this.expiresAt = expiresAt;
+    }
+    
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    // Getters and Setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public boolean isCompleted() {
+        return completed;
+    }
+    
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+    
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+    
+    public void setResponseStatus(Integer responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+    
+    public String getLocation() {
+        return location;
+    }
+    
+    public void setLocation(String location) {
+        this.location = location;
+    }
+    
+    public byte[] getResponseBody() {
+        return responseBody;
+    }
+    
+    public void setResponseBody(byte[] responseBody) {
+        this.responseBody = responseBody;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+    
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
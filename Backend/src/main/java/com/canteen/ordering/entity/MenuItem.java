@@ -1,5 +1,7 @@
 package com.canteen.ordering.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
@@ -8,7 +10,9 @@ import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "menu_items")
+@Table(name = "menu_items", indexes = @Index(name = "idx_menu_items_stock_count", columnList = "stock_count"))
+// Orders hold a lazy proxy of their menu item; skip the proxy internals when it is serialized
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class MenuItem {
     
     @Id
@@ -29,6 +33,11 @@ public class MenuItem {
     @Column(name = "stock_count", nullable = false)
     private Integer stockCount;
     
+    // Bumped on every stock write so the optimistic stock-locking strategy can detect lost updates
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
     // Constructors
     public MenuItem() {}
     
@@ -71,6 +80,14 @@ public class MenuItem {
         this.stockCount = stockCount;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "MenuItem{" +
@@ -1,22 +1,36 @@
 package com.canteen.ordering.entity;
 
 import javax.persistence.*;
-import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Descending created_at matches the newest-first listings, so their pages are read off the index
+// in order; status leads where a listing, the expiry sweep or the archiver filters on it
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_orders_status_created_at", columnList = "status, created_at DESC, id DESC"),
+        @Index(name = "idx_orders_status_updated_at", columnList = "status, updated_at")
+})
 public class Order {
     
+    // Pooled sequence ids are assigned without an insert, so Hibernate can batch order inserts;
+    // on MySQL the sequence is emulated by the orders_seq table
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
-    @NotNull(message = "Menu item is required")
+    // Set for single-item orders; cart orders carry their items in lines instead
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "menu_item_id", nullable = false)
+    @JoinColumn(name = "menu_item_id")
     private MenuItem menuItem;
     
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
+    private List<OrderLine> lines = new ArrayList<>();
+    
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
     private OrderStatus status;
@@ -65,6 +79,19 @@ public class Order {
         this.menuItem = menuItem;
     }
     
+    public List<OrderLine> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<OrderLine> lines) {
+        this.lines = lines;
+    }
+    
+    public void addLine(OrderLine line) {
+        line.setOrder(this);
+        lines.add(line);
+    }
+    
     public OrderStatus getStatus() {
         return status;
     }
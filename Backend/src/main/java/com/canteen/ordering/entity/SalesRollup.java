@@ -0,0 +1,139 @@
+package com.canteen.ordering.entity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sales of one menu item in one hour. Orders placed, paid and cancelled are counted in the hour the
+ * order was placed, paid or cancelled respectively, so a row only ever grows once its hour has passed.
+ * An order holding several items counts once towards each of them.
+ */
+@Entity
+@Table(name = "sales_rollups",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sales_rollups_bucket_item",
+                                             columnNames = {"bucket_start", "menu_item_id"}))
+public class SalesRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Start of the hour, in server local time like the order timestamps
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+    
+    // Plain id rather than a relation: rollups outlive menu items and are never joined back
+    @Column(name = "menu_item_id", nullable = false)
+    private Long menuItemId;
+    
+    @Column(name = "orders", nullable = false)
+    private long orders;
+    
+    @Column(name = "units", nullable = false)
+    private long units;
+    
+    @Column(name = "paid_orders", nullable = false)
+    private long paidOrders;
+    
+    @Column(name = "paid_units", nullable = false)
+    private long paidUnits;
+    
+    @Column(name = "paid_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal paidRevenue = BigDecimal.ZERO;
+    
+    @Column(name = "cancelled_orders", nullable = false)
+    private long cancelledOrders;
+    
+    @Column(name = "cancelled_units", nullable = false)
+    private long cancelledUnits;
+    
+    // Constructors
+    public SalesRollup() {
+    }
+    
+    public SalesRollup(LocalDateTime bucketStart, Long menuItemId) {
+        this.bucketStart = bucketStart;
+        this.menuItemId = menuItemId;
+    }
+    
+    public void add(SalesRollup other) {
+        orders += other.orders;
+        units += other.units;
+        paidOrders += other.paidOrders;
+        paidUnits += other.paidUnits;
+        paidRevenue = paidRevenue.add(other.paidRevenue);
+        cancelledOrders += other.cancelledOrders;
+        cancelledUnits += other.cancelledUnits;
+    }
+    
+    public void addPlaced(long orders, long units) {
+        this.orders += orders;
+        this.units += units;
+    }
+    
+    public void addPaid(long orders, long units, BigDecimal revenue) {
+        paidOrders += orders;
+        paidUnits += units;
+        paidRevenue = paidRevenue.add(revenue);
+    }
+    
+    public void addCancelled(long orders, long units) {
+        cancelledOrders += orders;
+        cancelledUnits += units;
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+    
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+    
+    public long getOrders() {
+        return orders;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public long getPaidOrders() {
+        return paidOrders;
+    }
+    
+    public long getPaidUnits() {
+        return paidUnits;
+    }
+    
+    public BigDecimal getPaidRevenue() {
+        return paidRevenue;
+    }
+    
+    public long getCancelledOrders() {
+        return cancelledOrders;
+    }
+    
+    public long getCancelledUnits() {
+        return cancelledUnits;
+    }
+    
+    @Override
+    public String toString() {
+        return "SalesRollup{" +
+                "bucketStart=" + bucketStart +
+                ", menuItemId=" + menuItemId +
+                ", orders=" + orders +
+                ", units=" + units +
+                ", paidOrders=" + paidOrders +
+                ", paidRevenue=" + paidRevenue +
+                ", cancelledOrders=" + cancelledOrders +
+                '}';
+    }
+}
@@ -0,0 +1,43 @@
+package com.canteen.ordering.event;
+
+/**
+ * Published by {@code MenuItemService} when a menu item is created, renamed, repriced or deleted.
+ * Like {@link OrderStatusChangedEvent}, in-memory listeners should react after commit.
+ */
+public class MenuItemChangedEvent {
+
+    private final Long menuItemId;
+    private final String name;
+
+    public MenuItemChangedEvent(Long menuItemId, String name) {
+        this.menuItemId = menuItemId;
+        this.name = name;
+    }
+
+    public static MenuItemChangedEvent deleted(Long menuItemId) {
+        return new MenuItemChangedEvent(menuItemId, null);
+    }
+
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+
+    /**
+     * Current name, or null if the item was deleted.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isDeleted() {
+        return name == null;
+    }
+
+    @Override
+    public String toString() {
+        return "MenuItemChangedEvent{" +
+                "menuItemId=" + menuItemId +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,110 @@
+package com.canteen.ordering.event;
+
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Published by {@code OrderService} whenever an order is created or changes status.
+ * Listeners that keep derived state in memory should use
+ * {@code @TransactionalEventListener} so they only see committed changes.
+ */
+public class OrderStatusChangedEvent {
+
+    private final Long orderId;
+    private final OrderStatus previousStatus;
+    private final OrderStatus newStatus;
+    private final LocalDateTime createdAt;
+    private final Map<Long, Integer> itemQuantities;
+    private final Map<Long, BigDecimal> itemAmounts;
+
+    public OrderStatusChangedEvent(Long orderId, OrderStatus previousStatus, OrderStatus newStatus,
+                                   LocalDateTime createdAt, Map<Long, Integer> itemQuantities,
+                                   Map<Long, BigDecimal> itemAmounts) {
+        this.orderId = orderId;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+        this.createdAt = createdAt;
+        this.itemQuantities = Collections.unmodifiableMap(itemQuantities);
+        this.itemAmounts = itemAmounts == null ? null : Collections.unmodifiableMap(itemAmounts);
+    }
+
+    /**
+     * @param previousStatus null for a newly created order
+     */
+    public static OrderStatusChangedEvent of(Order order, OrderStatus previousStatus) {
+        Map<Long, Integer> itemQuantities = new TreeMap<>();
+        Map<Long, BigDecimal> itemAmounts = null;
+        if (order.getLines().isEmpty()) {
+            if (order.getMenuItem() != null) {
+                itemQuantities.put(order.getMenuItem().getId(), 1);
+            }
+        } else {
+            itemAmounts = new TreeMap<>();
+            for (OrderLine line : order.getLines()) {
+                Long menuItemId = line.getMenuItem().getId();
+                itemQuantities.merge(menuItemId, line.getQuantity(), Integer::sum);
+                itemAmounts.merge(menuItemId, line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())),
+                        BigDecimal::add);
+            }
+        }
+        return new OrderStatusChangedEvent(order.getId(), previousStatus, order.getStatus(),
+                order.getCreatedAt(), itemQuantities, itemAmounts);
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public OrderStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public OrderStatus getNewStatus() {
+        return newStatus;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Units per menu item id held by the order.
+     */
+    public Map<Long, Integer> getItemQuantities() {
+        return itemQuantities;
+    }
+
+    /**
+     * Amount per menu item id at the unit prices stored on the order's lines. Null when it is not known
+     * without a query: for single-item orders, whose price is the menu item's, and for orders
+     * auto-cancelled in bulk.
+     */
+    public Map<Long, BigDecimal> getItemAmounts() {
+        return itemAmounts;
+    }
+
+    /**
+     * Order total, the sum of {@link #getItemAmounts()}; null when those are not known.
+     */
+    public BigDecimal getAmount() {
+        return itemAmounts == null ? null : itemAmounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatusChangedEvent{" +
+                "orderId=" + orderId +
+                ", previousStatus=" + previousStatus +
+                ", newStatus=" + newStatus +
+                ", createdAt=" + createdAt +
+                ", itemQuantities=" + itemQuantities +
+                '}';
+    }
+}
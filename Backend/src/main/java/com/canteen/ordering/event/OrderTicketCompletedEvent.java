@@ -0,0 +1,28 @@
+package com.canteen.ordering.event;
+
+import com.canteen.ordering.service.intake.OrderTicket;
+
+/**
+ * Published by {@code OrderIntake} once a queued order has been created or rejected.
+ */
+public class OrderTicketCompletedEvent {
+
+    private final OrderTicket ticket;
+
+    public OrderTicketCompletedEvent(OrderTicket ticket) {
+        this.ticket = ticket;
+    }
+
+    public OrderTicket getTicket() {
+        return ticket;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTicketCompletedEvent{" +
+                "ticketId=" + ticket.getId() +
+                ", status=" + ticket.getStatus() +
+                ", orderId=" + ticket.getOrderId() +
+                '}';
+    }
+}
@@ -0,0 +1,26 @@
+package com.canteen.ordering.event;
+
+/**
+ * Published by {@code MenuItemService} whenever a menu item's stock may have changed. It carries
+ * only the id: listeners that need the new count read it once after commit, which also lets them
+ * coalesce a burst of changes to the same item into a single read.
+ */
+public class StockChangedEvent {
+
+    private final Long menuItemId;
+
+    public StockChangedEvent(Long menuItemId) {
+        this.menuItemId = menuItemId;
+    }
+
+    public Long getMenuItemId() {
+        return menuItemId;
+    }
+
+    @Override
+    public String toString() {
+        return "StockChangedEvent{" +
+                "menuItemId=" + menuItemId +
+                '}';
+    }
+}
@@ -0,0 +1,98 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.dto.OrderExportRow;
+import com.canteen.ordering.dto.OrderSummary;
+import com.canteen.ordering.entity.ArchivedOrder;
+import com.canteen.ordering.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    
+    String SUMMARY_SELECT = "SELECT new com.canteen.ordering.dto.OrderSummary(o.id, o.status, o.createdAt, " +
+            "o.updatedAt, mi.id, mi.name, mi.price) FROM ArchivedOrder o LEFT JOIN o.menuItem mi ";
+    
+    // Copies in the database: the rows never travel to the application
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (id, menu_item_id, status, created_at, updated_at, archived_at) " +
+                   "SELECT id, menu_item_id, status, created_at, updated_at, :archivedAt FROM orders WHERE id IN :ids",
+           nativeQuery = true)
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    // Same keyset pagination over (created_at DESC, id DESC) as the orders table
+    
+    @Query(SUMMARY_SELECT + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPage(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE o.id = :id")
+    Optional<OrderSummary> findSummaryById(@Param("id") Long id);
+    
+    // Same flat rows and ordering as OrderRepository.streamExportRows, so the two can be merged
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT new com.canteen.ordering.dto.OrderExportRow(o.id, o.status, o.createdAt, o.updatedAt, " +
+           "COALESCE(lmi.id, mi.id), COALESCE(lmi.name, mi.name), COALESCE(l.quantity, 1), " +
+           "COALESCE(l.unitPrice, mi.price)) " +
+           "FROM ArchivedOrder o LEFT JOIN o.menuItem mi LEFT JOIN ArchivedOrderLine l ON l.order = o " +
+           "LEFT JOIN l.menuItem lmi " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to ORDER BY o.createdAt, o.id, l.id")
+    Stream<OrderExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MAX(o.updatedAt) FROM ArchivedOrder o")
+    LocalDateTime findLatestUpdatedAt();
+    
+    @Query("SELECT o.status AS status, COUNT(o) AS count FROM ArchivedOrder o GROUP BY o.status")
+    List<OrderStatusCount> countGroupedByStatus();
+    
+    @Query("SELECT o.menuItem.id AS menuItemId, o.status AS status, COUNT(o) AS quantity FROM ArchivedOrder o " +
+           "WHERE o.menuItem IS NOT NULL GROUP BY o.menuItem.id, o.status")
+    List<MenuItemStatusQuantity> countSingleItemOrdersByMenuItemAndStatus();
+    
+    @Query("SELECT COALESCE(SUM(mi.price), 0) FROM ArchivedOrder o JOIN o.menuItem mi WHERE o.status = :status")
+    BigDecimal sumSingleItemOrderAmounts(@Param("status") OrderStatus status);
+    
+    // Same hourly sums as OrderRepository, so rollups rebuilt from history include archived orders
+    
+    @Query("SELECT YEAR(o.createdAt) AS bucketYear, MONTH(o.createdAt) AS bucketMonth, DAY(o.createdAt) AS bucketDay, " +
+           "HOUR(o.createdAt) AS bucketHour, mi.id AS menuItemId, COUNT(o) AS orders, COUNT(o) AS units, " +
+           "SUM(mi.price) AS amount FROM ArchivedOrder o JOIN o.menuItem mi " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY YEAR(o.createdAt), MONTH(o.createdAt), DAY(o.createdAt), HOUR(o.createdAt), mi.id")
+    List<HourlySales> sumSingleItemOrdersPlacedByHour(@Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+    
+    @Query("SELECT YEAR(o.updatedAt) AS bucketYear, MONTH(o.updatedAt) AS bucketMonth, DAY(o.updatedAt) AS bucketDay, " +
+           "HOUR(o.updatedAt) AS bucketHour, mi.id AS menuItemId, COUNT(o) AS orders, COUNT(o) AS units, " +
+           "SUM(mi.price) AS amount FROM ArchivedOrder o JOIN o.menuItem mi " +
+           "WHERE o.status = :status AND o.updatedAt >= :from AND o.updatedAt < :to " +
+           "GROUP BY YEAR(o.updatedAt), MONTH(o.updatedAt), DAY(o.updatedAt), HOUR(o.updatedAt), mi.id")
+    List<HourlySales> sumSingleItemOrdersReachingStatusByHour(@Param("status") OrderStatus status,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,25 @@
+package com.canteen.ordering.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Projection of one menu item's orders, units and amount in one hour, used to backfill sales rollups.
+ */
+public interface HourlySales {
+    
+    Integer getBucketYear();
+    
+    Integer getBucketMonth();
+    
+    Integer getBucketDay();
+    
+    Integer getBucketHour();
+    
+    Long getMenuItemId();
+    
+    Long getOrders();
+    
+    Long getUnits();
+    
+    BigDecimal getAmount();
+}
@@ -1,13 +1,16 @@
 package com.canteen.ordering.repository;
 
+import com.canteen.ordering.dto.MenuItemMetadata;
 import com.canteen.ordering.entity.MenuItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +21,35 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     @Query("SELECT m FROM MenuItem m WHERE m.id = :id")
     Optional<MenuItem> findByIdWithLock(@Param("id") Long id);
     
+    // A projection rather than an entity, so the caller's persistence context is left without a
+    // managed MenuItem whose version a later pessimistic lock would check
+    @Query("SELECT new com.canteen.ordering.dto.MenuItemMetadata(m.id, m.name, m.price) FROM MenuItem m WHERE m.id = :id")
+    Optional<MenuItemMetadata> findMetadataById(@Param("id") Long id);
+    
+    @Query("SELECT m.stockCount FROM MenuItem m WHERE m.id = :id")
+    Optional<Integer> findStockCountById(@Param("id") Long id);
+    
+    @Query("SELECT m.id AS id, m.stockCount AS stockCount FROM MenuItem m WHERE m.id IN :ids")
+    List<MenuItemStock> findStockCountsByIds(@Param("ids") Collection<Long> ids);
+    
     List<MenuItem> findByStockCountGreaterThan(Integer stockCount);
     
     List<MenuItem> findByNameContainingIgnoreCase(String name);
+    
+    @Modifying
+    @Query("UPDATE MenuItem m SET m.stockCount = m.stockCount + :delta, m.version = m.version + 1 " +
+           "WHERE m.id = :id")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta);
+    
+    // Matches no row once an absolute write has replaced the stock the delta was taken against
+    @Modifying
+    @Query("UPDATE MenuItem m SET m.stockCount = m.stockCount + :delta, m.version = m.version + 1 " +
+           "WHERE m.id = :id AND m.version = :version")
+    int adjustStockAtVersion(@Param("id") Long id, @Param("delta") int delta, @Param("version") long version);
+    
+    @Modifying
+    @Query("UPDATE MenuItem m SET m.stockCount = m.stockCount - :quantity, m.version = m.version + 1 " +
+           "WHERE m.id = :id AND m.stockCount >= :quantity")
+    int decrementStockIfAvailable(@Param("id") Long id, @Param("quantity") int quantity);
 }
 
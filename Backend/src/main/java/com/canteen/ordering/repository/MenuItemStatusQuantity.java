@@ -0,0 +1,15 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.entity.OrderStatus;
+
+/**
+ * Projection of the units of one menu item held by orders in one status.
+ */
+public interface MenuItemStatusQuantity {
+    
+    Long getMenuItemId();
+    
+    OrderStatus getStatus();
+    
+    Long getQuantity();
+}
@@ -0,0 +1,11 @@
+package com.canteen.ordering.repository;
+
+/**
+ * Projection of a menu item reduced to its stock count.
+ */
+public interface MenuItemStock {
+    
+    Long getId();
+    
+    Integer getStockCount();
+}
@@ -0,0 +1,13 @@
+package com.canteen.ordering.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of the two columns needed to schedule an order's auto-cancellation.
+ */
+public interface OrderDeadline {
+    
+    Long getId();
+    
+    LocalDateTime getCreatedAt();
+}
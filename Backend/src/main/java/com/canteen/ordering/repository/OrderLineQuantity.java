@@ -0,0 +1,13 @@
+package com.canteen.ordering.repository;
+
+/**
+ * Projection of an order line reduced to what stock bookkeeping needs.
+ */
+public interface OrderLineQuantity {
+    
+    Long getOrderId();
+    
+    Long getMenuItemId();
+    
+    Integer getQuantity();
+}
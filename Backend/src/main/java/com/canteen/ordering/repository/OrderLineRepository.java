@@ -0,0 +1,55 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.dto.OrderLineSummary;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
+    
+    @Query("SELECT l.order.id AS orderId, l.menuItem.id AS menuItemId, l.quantity AS quantity " +
+           "FROM OrderLine l WHERE l.order.id IN :orderIds")
+    List<OrderLineQuantity> findQuantitiesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT new com.canteen.ordering.dto.OrderLineSummary(l.order.id, mi.id, mi.name, mi.price, " +
+           "l.quantity, l.unitPrice) FROM OrderLine l JOIN l.menuItem mi " +
+           "WHERE l.order.id IN :orderIds ORDER BY l.id")
+    List<OrderLineSummary> findSummariesByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT l.menuItem.id AS menuItemId, o.status AS status, SUM(l.quantity) AS quantity " +
+           "FROM OrderLine l JOIN l.order o GROUP BY l.menuItem.id, o.status")
+    List<MenuItemStatusQuantity> sumQuantitiesByMenuItemAndStatus();
+    
+    @Query("SELECT COALESCE(SUM(l.unitPrice * l.quantity), 0) FROM OrderLine l WHERE l.order.status = :status")
+    BigDecimal sumLineAmounts(@Param("status") OrderStatus status);
+    
+    @Query("SELECT YEAR(o.createdAt) AS bucketYear, MONTH(o.createdAt) AS bucketMonth, DAY(o.createdAt) AS bucketDay, " +
+           "HOUR(o.createdAt) AS bucketHour, l.menuItem.id AS menuItemId, COUNT(DISTINCT o.id) AS orders, " +
+           "SUM(l.quantity) AS units, SUM(l.unitPrice * l.quantity) AS amount FROM OrderLine l JOIN l.order o " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY YEAR(o.createdAt), MONTH(o.createdAt), DAY(o.createdAt), HOUR(o.createdAt), l.menuItem.id")
+    List<HourlySales> sumLinesPlacedByHour(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT YEAR(o.updatedAt) AS bucketYear, MONTH(o.updatedAt) AS bucketMonth, DAY(o.updatedAt) AS bucketDay, " +
+           "HOUR(o.updatedAt) AS bucketHour, l.menuItem.id AS menuItemId, COUNT(DISTINCT o.id) AS orders, " +
+           "SUM(l.quantity) AS units, SUM(l.unitPrice * l.quantity) AS amount FROM OrderLine l JOIN l.order o " +
+           "WHERE o.status = :status AND o.updatedAt >= :from AND o.updatedAt < :to " +
+           "GROUP BY YEAR(o.updatedAt), MONTH(o.updatedAt), DAY(o.updatedAt), HOUR(o.updatedAt), l.menuItem.id")
+    List<HourlySales> sumLinesReachingStatusByHour(@Param("status") OrderStatus status,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+    
+    @Modifying
+    @Query("DELETE FROM OrderLine l WHERE l.order.id IN :orderIds")
+    int deleteByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
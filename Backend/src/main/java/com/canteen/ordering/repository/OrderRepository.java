@@ -1,18 +1,35 @@
 package com.canteen.ordering.repository;
 
+import com.canteen.ordering.dto.OrderExportRow;
+import com.canteen.ordering.dto.OrderSummary;
 import com.canteen.ordering.entity.Order;
 import com.canteen.ordering.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    String SUMMARY_SELECT = "SELECT new com.canteen.ordering.dto.OrderSummary(o.id, o.status, o.createdAt, " +
+            "o.updatedAt, mi.id, mi.name, mi.price) FROM Order o LEFT JOIN o.menuItem mi ";
+    
     List<Order> findByStatus(OrderStatus status);
     
     List<Order> findByStatusAndCreatedAtBefore(OrderStatus status, LocalDateTime dateTime);
@@ -21,7 +38,107 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findPendingOrdersOlderThan(@Param("status") OrderStatus status, 
                                           @Param("dateTime") LocalDateTime dateTime);
     
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.status = :status AND o.createdAt < :dateTime ORDER BY o.createdAt")
+    List<Order> findExpiredForUpdate(@Param("status") OrderStatus status,
+                                     @Param("dateTime") LocalDateTime dateTime,
+                                     Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.status = :status AND o.createdAt < :dateTime")
+    List<Order> findExpiredByIdsForUpdate(@Param("ids") Collection<Long> ids,
+                                          @Param("status") OrderStatus status,
+                                          @Param("dateTime") LocalDateTime dateTime);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :newStatus, o.updatedAt = :updatedAt " +
+           "WHERE o.id IN :ids AND o.status = :currentStatus")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids,
+                          @Param("currentStatus") OrderStatus currentStatus,
+                          @Param("newStatus") OrderStatus newStatus,
+                          @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Query("SELECT o.id AS id, o.createdAt AS createdAt FROM Order o WHERE o.status = :status")
+    List<OrderDeadline> findDeadlinesByStatus(@Param("status") OrderStatus status);
+    
     @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC")
     List<Order> findAllOrderByCreatedAtDesc();
+    
+    // Flat rows rather than entities: nothing accumulates in the persistence context, and cart
+    // lines arrive in the same result set instead of one lazy load per order. The fetch size makes
+    // the driver pull rows in chunks (MySQL needs useCursorFetch=true for that) instead of all at once.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT new com.canteen.ordering.dto.OrderExportRow(o.id, o.status, o.createdAt, o.updatedAt, " +
+           "COALESCE(lmi.id, mi.id), COALESCE(lmi.name, mi.name), COALESCE(l.quantity, 1), " +
+           "COALESCE(l.unitPrice, mi.price)) " +
+           "FROM Order o LEFT JOIN o.menuItem mi LEFT JOIN o.lines l LEFT JOIN l.menuItem lmi " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to ORDER BY o.createdAt, o.id, l.id")
+    Stream<OrderExportRow> streamExportRows(@Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+    
+    // Keyset pagination over (created_at DESC, id DESC). The redundant "createdAt <= :createdAt"
+    // gives the database a plain range predicate it can seek on instead of an OR it has to scan.
+    // Rows come back as OrderSummary with the menu item joined in, so a page is one statement
+    // rather than one plus a lazy menu item load per order.
+    
+    @Query(SUMMARY_SELECT + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPage(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE o.status = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPageByStatus(@Param("status") OrderStatus status, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE o.status = :status AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageByStatusAfter(@Param("status") OrderStatus status,
+                                             @Param("createdAt") LocalDateTime createdAt,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+    
+    @Query("SELECT o.status AS status, COUNT(o) AS count FROM Order o GROUP BY o.status")
+    List<OrderStatusCount> countGroupedByStatus();
+    
+    @Query("SELECT o.menuItem.id AS menuItemId, o.status AS status, COUNT(o) AS quantity FROM Order o " +
+           "WHERE o.menuItem IS NOT NULL GROUP BY o.menuItem.id, o.status")
+    List<MenuItemStatusQuantity> countSingleItemOrdersByMenuItemAndStatus();
+    
+    @Query("SELECT COALESCE(SUM(mi.price), 0) FROM Order o JOIN o.menuItem mi WHERE o.status = :status")
+    BigDecimal sumSingleItemOrderAmounts(@Param("status") OrderStatus status);
+    
+    @Query("SELECT YEAR(o.createdAt) AS bucketYear, MONTH(o.createdAt) AS bucketMonth, DAY(o.createdAt) AS bucketDay, " +
+           "HOUR(o.createdAt) AS bucketHour, mi.id AS menuItemId, COUNT(o) AS orders, COUNT(o) AS units, " +
+           "SUM(mi.price) AS amount FROM Order o JOIN o.menuItem mi " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY YEAR(o.createdAt), MONTH(o.createdAt), DAY(o.createdAt), HOUR(o.createdAt), mi.id")
+    List<HourlySales> sumSingleItemOrdersPlacedByHour(@Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+    
+    // updatedAt is the time of the last transition, which for a paid or cancelled order is the final one
+    @Query("SELECT YEAR(o.updatedAt) AS bucketYear, MONTH(o.updatedAt) AS bucketMonth, DAY(o.updatedAt) AS bucketDay, " +
+           "HOUR(o.updatedAt) AS bucketHour, mi.id AS menuItemId, COUNT(o) AS orders, COUNT(o) AS units, " +
+           "SUM(mi.price) AS amount FROM Order o JOIN o.menuItem mi " +
+           "WHERE o.status = :status AND o.updatedAt >= :from AND o.updatedAt < :to " +
+           "GROUP BY YEAR(o.updatedAt), MONTH(o.updatedAt), DAY(o.updatedAt), HOUR(o.updatedAt), mi.id")
+    List<HourlySales> sumSingleItemOrdersReachingStatusByHour(@Param("status") OrderStatus status,
+                                                              @Param("from") LocalDateTime from,
+                                                              @Param("to") LocalDateTime to);
+    
+    // Oldest first, so an interrupted archival run resumes where it stopped
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.updatedAt < :cutoff ORDER BY o.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<OrderStatus> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 Pageable pageable);
+    
+    // Lines must be deleted first, with OrderLineRepository.deleteByOrderIds
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
-
@@ -0,0 +1,13 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.entity.OrderStatus;
+
+/**
+ * Projection of the number of orders in one status.
+ */
+public interface OrderStatusCount {
+    
+    OrderStatus getStatus();
+    
+    Long getCount();
+}
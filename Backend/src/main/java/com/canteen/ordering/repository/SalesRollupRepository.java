@@ -0,0 +1,44 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+    
+    // Adds in place, so rollups written by several nodes at once do not overwrite each other
+    @Modifying
+    @Query("UPDATE SalesRollup r SET r.orders = r.orders + :orders, r.units = r.units + :units, " +
+           "r.paidOrders = r.paidOrders + :paidOrders, r.paidUnits = r.paidUnits + :paidUnits, " +
+           "r.paidRevenue = r.paidRevenue + :paidRevenue, " +
+           "r.cancelledOrders = r.cancelledOrders + :cancelledOrders, " +
+           "r.cancelledUnits = r.cancelledUnits + :cancelledUnits " +
+           "WHERE r.bucketStart = :bucketStart AND r.menuItemId = :menuItemId")
+    int addToBucket(@Param("bucketStart") LocalDateTime bucketStart,
+                    @Param("menuItemId") Long menuItemId,
+                    @Param("orders") long orders,
+                    @Param("units") long units,
+                    @Param("paidOrders") long paidOrders,
+                    @Param("paidUnits") long paidUnits,
+                    @Param("paidRevenue") BigDecimal paidRevenue,
+                    @Param("cancelledOrders") long cancelledOrders,
+                    @Param("cancelledUnits") long cancelledUnits);
+    
+    @Query("SELECT r FROM SalesRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to " +
+           "AND (:menuItemId IS NULL OR r.menuItemId = :menuItemId) ORDER BY r.bucketStart, r.menuItemId")
+    List<SalesRollup> findInRange(@Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  @Param("menuItemId") Long menuItemId);
+    
+    @Modifying
+    @Query("DELETE FROM SalesRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteInRange(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
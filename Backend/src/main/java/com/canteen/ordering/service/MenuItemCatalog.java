@@ -0,0 +1,41 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.config.CacheConfig;
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Read-through cache of menu item names and prices, kept in its own bean so calls from
+ * {@link MenuItemService} go through the caching proxy. Entries are replaced when an item is
+ * updated, evicted when it is deleted and otherwise expire after {@code app.cache.menu-items.expire-after-write}.
+ */
+@Component
+public class MenuItemCatalog {
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Cacheable(cacheNames = CacheConfig.MENU_ITEMS, unless = "#result == null")
+    public Optional<MenuItemMetadata> find(Long menuItemId) {
+        return menuItemRepository.findMetadataById(menuItemId);
+    }
+
+    // Refreshed from the row just written rather than evicted, so the next read does not refill the
+    // entry from a read replica that has yet to see the update
+    @CachePut(cacheNames = CacheConfig.MENU_ITEMS, key = "#metadata.id")
+    public Optional<MenuItemMetadata> put(MenuItemMetadata metadata) {
+        return Optional.of(metadata);
+    }
+
+    @CacheEvict(cacheNames = CacheConfig.MENU_ITEMS)
+    public void evict(Long menuItemId) {
+        // Eviction is done by the annotation
+    }
+}
@@ -1,15 +1,32 @@
 package com.canteen.ordering.service;
 
+import com.canteen.ordering.config.ReplicaRead;
+import com.canteen.ordering.dto.MenuItemMetadata;
 import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.event.MenuItemChangedEvent;
+import com.canteen.ordering.event.StockChangedEvent;
 import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.metrics.OrderMetrics;
+import com.canteen.ordering.service.search.MenuSearchIndexer;
+import com.canteen.ordering.service.stock.StockContentionProfiler;
+import com.canteen.ordering.service.stock.StockLedger;
+import com.canteen.ordering.service.stock.StockLockingStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -20,19 +37,108 @@ public class MenuItemService {
     @Autowired
     private MenuItemRepository menuItemRepository;
     
+    @Autowired
+    private StockLockingStrategy stockLockingStrategy;
+    
+    // Only present when app.stock.mode=ledger; otherwise stock goes through stockLockingStrategy
+    @Autowired(required = false)
+    private StockLedger stockLedger;
+    
+    @Autowired
+    private MenuVersion menuVersion;
+    
+    @Autowired
+    private MenuItemCatalog menuItemCatalog;
+    
+    @Autowired
+    private MenuSearchIndexer menuSearchIndexer;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private OrderMetrics orderMetrics;
+    
+    @Autowired
+    private StockContentionProfiler contentionProfiler;
+    
+    @Value("${app.menu.search.max-results:50}")
+    private int searchMaxResults;
+    
+    /**
+     * Current menu version; changes after every committed write that can alter a menu listing.
+     */
+    public long getMenuVersion() {
+        return menuVersion.current();
+    }
+    
+    // Stays on the primary: the ETag comes from the menu version bumped on primary commits, and a
+    // lagging replica would let a stale body be cached under the new tag
+    @Transactional(readOnly = true)
     public List<MenuItem> getAllMenuItems() {
         logger.info("Fetching all menu items");
         return menuItemRepository.findAll();
     }
     
+    /**
+     * Name and price come from the menu item cache; stock is always read fresh, from the ledger
+     * when it is enabled and otherwise with a single-column primary key lookup.
+     */
+    @Transactional(readOnly = true)
     public Optional<MenuItem> getMenuItemById(Long id) {
         logger.info("Fetching menu item with id: {}", id);
-        return menuItemRepository.findById(id);
+        Optional<MenuItemMetadata> metadata = menuItemCatalog.find(id);
+        if (!metadata.isPresent()) {
+            return Optional.empty();
+        }
+        Optional<Integer> stockCount = stockLedger != null
+                ? stockLedger.getAvailable(id)
+                : menuItemRepository.findStockCountById(id);
+        return stockCount.map(stock -> {
+            MenuItem menuItem = new MenuItem(metadata.get().getName(), metadata.get().getPrice(), stock);
+            menuItem.setId(id);
+            return menuItem;
+        });
+    }
+    
+    /**
+     * Cached name and price of a menu item, without its stock.
+     */
+    @Transactional(readOnly = true)
+    public Optional<MenuItemMetadata> getMenuItemMetadata(Long id) {
+        return menuItemCatalog.find(id);
+    }
+    
+    /**
+     * Reference for associating orders with a menu item without loading it; the row is only read
+     * if something later touches a field other than the id.
+     */
+    public MenuItem getMenuItemReference(Long id) {
+        return menuItemRepository.getReferenceById(id);
+    }
+    
+    /**
+     * Loads several menu items with one query, keyed by id. Ids that do not exist are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, MenuItem> getMenuItemsByIds(Collection<Long> ids) {
+        Map<Long, MenuItem> menuItems = new HashMap<>();
+        for (MenuItem menuItem : menuItemRepository.findAllById(ids)) {
+            menuItems.put(menuItem.getId(), menuItem);
+        }
+        return menuItems;
     }
     
     public MenuItem createMenuItem(MenuItem menuItem) {
         logger.info("Creating new menu item: {}", menuItem.getName());
-        return menuItemRepository.save(menuItem);
+        MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        if (stockLedger != null) {
+            stockLedger.resetAfterCommit(savedMenuItem);
+        }
+        eventPublisher.publishEvent(new MenuItemChangedEvent(savedMenuItem.getId(), savedMenuItem.getName()));
+        eventPublisher.publishEvent(new StockChangedEvent(savedMenuItem.getId()));
+        menuVersion.bumpAfterCommit();
+        return savedMenuItem;
     }
     
     public MenuItem updateMenuItem(Long id, MenuItem menuItemDetails) {
@@ -44,7 +150,15 @@ public class MenuItemService {
         menuItem.setPrice(menuItemDetails.getPrice());
         menuItem.setStockCount(menuItemDetails.getStockCount());
         
-        return menuItemRepository.save(menuItem);
+        MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+        if (stockLedger != null) {
+            stockLedger.resetAfterCommit(savedMenuItem);
+        }
+        menuItemCatalog.put(MenuItemMetadata.of(savedMenuItem));
+        eventPublisher.publishEvent(new MenuItemChangedEvent(id, savedMenuItem.getName()));
+        eventPublisher.publishEvent(new StockChangedEvent(id));
+        menuVersion.bumpAfterCommit();
+        return savedMenuItem;
     }
     
     public void deleteMenuItem(Long id) {
@@ -53,54 +167,117 @@ public class MenuItemService {
                 .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + id));
         
         menuItemRepository.delete(menuItem);
+        if (stockLedger != null) {
+            stockLedger.remove(id);
+        }
+        menuItemCatalog.evict(id);
+        eventPublisher.publishEvent(MenuItemChangedEvent.deleted(id));
+        menuVersion.bumpAfterCommit();
     }
     
+    // Primary only, for the same reason as getAllMenuItems
+    @Transactional(readOnly = true)
     public List<MenuItem> getAvailableMenuItems() {
         logger.info("Fetching available menu items (stock > 0)");
         return menuItemRepository.findByStockCountGreaterThan(0);
     }
     
+    /**
+     * Matches names against the in-memory search index, best match first, then loads just the
+     * matching rows by primary key so price and stock in the results are current.
+     */
+    @Transactional(readOnly = true)
+    @ReplicaRead
     public List<MenuItem> searchMenuItems(String name) {
         logger.info("Searching menu items with name containing: {}", name);
-        return menuItemRepository.findByNameContainingIgnoreCase(name);
+        List<Long> ids = menuSearchIndexer.search(name, searchMaxResults);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, MenuItem> byId = new HashMap<>();
+        for (MenuItem menuItem : menuItemRepository.findAllById(ids)) {
+            byId.put(menuItem.getId(), menuItem);
+        }
+        List<MenuItem> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MenuItem menuItem = byId.get(id);
+            // Absent if deleted after the index was read
+            if (menuItem != null) {
+                results.add(menuItem);
+            }
+        }
+        return results;
     }
     
     @Transactional
     public boolean decrementStock(Long menuItemId, int quantity) {
         logger.info("Decrementing stock for menu item id: {} by quantity: {}", menuItemId, quantity);
-        Optional<MenuItem> menuItemOpt = menuItemRepository.findByIdWithLock(menuItemId);
-        
-        if (menuItemOpt.isPresent()) {
-            MenuItem menuItem = menuItemOpt.get();
-            if (menuItem.getStockCount() >= quantity) {
-                menuItem.setStockCount(menuItem.getStockCount() - quantity);
-                menuItemRepository.save(menuItem);
-                logger.info("Successfully decremented stock for menu item: {}", menuItem.getName());
-                return true;
+        long start = System.nanoTime();
+        if (stockLedger != null) {
+            boolean decremented = stockLedger.tryDecrement(menuItemId, quantity);
+            orderMetrics.recordStockDecrement(menuItemId, decremented, System.nanoTime() - start);
+            if (!decremented) {
+                logger.warn("Insufficient stock or unknown menu item id: {} in stock ledger. Requested: {}", 
+                           menuItemId, quantity);
             } else {
-                logger.warn("Insufficient stock for menu item: {}. Available: {}, Requested: {}", 
-                           menuItem.getName(), menuItem.getStockCount(), quantity);
-                return false;
+                eventPublisher.publishEvent(new StockChangedEvent(menuItemId));
             }
-        } else {
-            logger.error("Menu item not found with id: {}", menuItemId);
-            return false;
+            // The database only changes when the ledger flushes, which bumps the menu version itself
+            return decremented;
+        }
+        
+        StockContentionProfiler.Attempt attempt = contentionProfiler.enter(menuItemId);
+        boolean decremented = false;
+        try {
+            decremented = stockLockingStrategy.decrement(menuItemId, quantity);
+        } finally {
+            contentionProfiler.exit(attempt, decremented);
         }
+        orderMetrics.recordStockDecrement(menuItemId, decremented, System.nanoTime() - start);
+        if (decremented) {
+            eventPublisher.publishEvent(new StockChangedEvent(menuItemId));
+            menuVersion.bumpAfterCommit();
+        }
+        return decremented;
     }
     
     @Transactional
     public void restoreStock(Long menuItemId, int quantity) {
         logger.info("Restoring stock for menu item id: {} by quantity: {}", menuItemId, quantity);
-        Optional<MenuItem> menuItemOpt = menuItemRepository.findByIdWithLock(menuItemId);
+        if (stockLedger != null) {
+            if (stockLedger.restore(menuItemId, quantity)) {
+                eventPublisher.publishEvent(new StockChangedEvent(menuItemId));
+            } else {
+                logger.error("Menu item not found with id: {}", menuItemId);
+            }
+            return;
+        }
         
-        if (menuItemOpt.isPresent()) {
-            MenuItem menuItem = menuItemOpt.get();
-            menuItem.setStockCount(menuItem.getStockCount() + quantity);
-            menuItemRepository.save(menuItem);
-            logger.info("Successfully restored stock for menu item: {}", menuItem.getName());
-        } else {
-            logger.error("Menu item not found with id: {}", menuItemId);
+        if (stockLockingStrategy.restore(menuItemId, quantity)) {
+            eventPublisher.publishEvent(new StockChangedEvent(menuItemId));
+            menuVersion.bumpAfterCommit();
+        }
+    }
+    
+    /**
+     * Restores stock for many items at once, one additive UPDATE per item in ascending id order,
+     * instead of a locked read and save per unit. Used when a batch of orders is cancelled together.
+     */
+    @Transactional
+    public void restoreStockInBulk(Map<Long, Integer> quantities) {
+        logger.info("Restoring stock in bulk for {} menu items", quantities.size());
+        new TreeMap<>(quantities).forEach((menuItemId, quantity) -> {
+            boolean restored = stockLedger != null
+                    ? stockLedger.restore(menuItemId, quantity)
+                    : menuItemRepository.adjustStock(menuItemId, quantity) > 0;
+            if (restored) {
+                eventPublisher.publishEvent(new StockChangedEvent(menuItemId));
+            } else {
+                logger.error("Menu item not found with id: {}", menuItemId);
+            }
+        });
+        if (stockLedger == null) {
+            menuVersion.bumpAfterCommit();
         }
     }
 }
-
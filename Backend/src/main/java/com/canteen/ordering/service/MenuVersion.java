@@ -0,0 +1,46 @@
+package com.canteen.ordering.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the menu as stored in the database, used as the menu endpoints' ETag.
+ * <p>
+ * Seeded from the clock so a restarted instance never hands out a version an earlier run already
+ * used for different data. Writers bump it only after their transaction commits: a reader that
+ * takes the version before querying can then at worst pair new data with an old version, which
+ * costs the client one extra download, but never old data with a new version, which would let it
+ * keep a stale menu.
+ */
+@Component
+public class MenuVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Bumps once the surrounding transaction commits, or immediately if there is none.
+     */
+    public void bumpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bump();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                bump();
+            }
+        });
+    }
+}
@@ -0,0 +1,193 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.config.ReplicaRead;
+import com.canteen.ordering.dto.OrderExportRow;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Writes orders straight from a database cursor to the response, one row at a time, so memory use
+ * does not grow with the date range and the client starts receiving data before the query finishes.
+ * <p>
+ * Archived orders are included: {@code orders} and {@code orders_archive} are each read with their own
+ * cursor in creation order and merged as they stream. Both are read in the same transaction, so with
+ * repeatable-read isolation (the MySQL default) an order the archiver moves during the export appears
+ * exactly once.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+    // Matches the repository fetch size: push each chunk out as soon as it has been read
+    private static final int FLUSH_EVERY_ROWS = 500;
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final String CSV_HEADER = "orderId,status,createdAt,updatedAt,menuItemId,itemName,quantity,unitPrice";
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @throws IllegalArgumentException if the format is not supported
+         */
+        public static Format parse(String value) {
+            return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Streams orders created in {@code [from, to)} to {@code out}. Either bound may be null for open-ended.
+     *
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public long export(LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        logger.info("Exporting orders as {} from {} to {}", format, from, to);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long rows = 0;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        // Send headers and the first bytes before the query has produced anything
+        writer.flush();
+
+        LocalDateTime lower = from != null ? from : EARLIEST;
+        LocalDateTime upper = to != null ? to : LATEST;
+        try (Stream<OrderExportRow> archived = archivedOrderRepository.streamExportRows(lower, upper);
+             Stream<OrderExportRow> recent = orderRepository.streamExportRows(lower, upper)) {
+            Iterator<OrderExportRow> iterator = new MergedRows(archived.iterator(), recent.iterator());
+            while (iterator.hasNext()) {
+                OrderExportRow row = iterator.next();
+                if (format == Format.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                }
+                writer.write('\n');
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        logger.info("Exported {} order rows", rows);
+        return rows;
+    }
+
+    /**
+     * Merges two row iterators that are each ordered by creation time and order id. An order lives in
+     * only one table, so all of its lines come from one side and stay together.
+     */
+    static final class MergedRows implements Iterator<OrderExportRow> {
+
+        private static final Comparator<OrderExportRow> ORDER =
+                Comparator.comparing(OrderExportRow::getCreatedAt).thenComparing(OrderExportRow::getOrderId);
+
+        private final Iterator<OrderExportRow> left;
+        private final Iterator<OrderExportRow> right;
+        private OrderExportRow nextLeft;
+        private OrderExportRow nextRight;
+
+        MergedRows(Iterator<OrderExportRow> left, Iterator<OrderExportRow> right) {
+            this.left = left;
+            this.right = right;
+            this.nextLeft = left.hasNext() ? left.next() : null;
+            this.nextRight = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeft != null || nextRight != null;
+        }
+
+        @Override
+        public OrderExportRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            OrderExportRow row;
+            if (nextRight == null || (nextLeft != null && ORDER.compare(nextLeft, nextRight) <= 0)) {
+                row = nextLeft;
+                nextLeft = left.hasNext() ? left.next() : null;
+            } else {
+                row = nextRight;
+                nextRight = right.hasNext() ? right.next() : null;
+            }
+            return row;
+        }
+    }
+
+    private void writeCsv(Writer writer, OrderExportRow row) throws IOException {
+        writer.write(String.valueOf(row.getOrderId()));
+        writer.write(',');
+        writer.write(String.valueOf(row.getStatus()));
+        writer.write(',');
+        writer.write(csvValue(row.getCreatedAt()));
+        writer.write(',');
+        writer.write(csvValue(row.getUpdatedAt()));
+        writer.write(',');
+        writer.write(csvValue(row.getMenuItemId()));
+        writer.write(',');
+        writer.write(csvText(row.getItemName()));
+        writer.write(',');
+        writer.write(csvValue(row.getQuantity()));
+        writer.write(',');
+        writer.write(row.getUnitPrice() != null ? row.getUnitPrice().toPlainString() : "");
+    }
+
+    private static String csvValue(Object value) {
+        return value != null ? value.toString() : "";
+    }
+
+    // RFC 4180: quote fields containing separators, quotes or line breaks, doubling embedded quotes
+    static String csvText(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,54 +1,113 @@
 package com.canteen.ordering.service;
 
+import com.canteen.ordering.config.ReplicaRead;
+import com.canteen.ordering.dto.CheckoutRequest;
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.OrderLineSummary;
+import com.canteen.ordering.dto.OrderSummary;
 import com.canteen.ordering.entity.MenuItem;
 import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
 import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderLineQuantity;
+import com.canteen.ordering.repository.OrderLineRepository;
 import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.service.metrics.OrderMetrics;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class OrderService {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
-    private static final int AUTO_CANCEL_MINUTES = 15;
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
     
     @Autowired
     private OrderRepository orderRepository;
     
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+    
     @Autowired
     private MenuItemService menuItemService;
     
-    public List<Order> getAllOrders() {
-        logger.info("Fetching all orders");
-        return orderRepository.findAllOrderByCreatedAtDesc();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private OrderMetrics orderMetrics;
+    
+    @Value("${app.auto-cancel.minutes:15}")
+    private long autoCancelMinutes;
+    
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public CursorPage<OrderSummary> getAllOrders(String cursor, int limit) {
+        logger.info("Fetching orders page after cursor: {}", cursor);
+        return getOrderPage(null, cursor, limit);
     }
     
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
         logger.info("Fetching order with id: {}", id);
         return orderRepository.findById(id);
     }
     
+    /**
+     * An order the archiver has moved to {@code orders_archive}, in the same shape as the listings.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderSummary> getArchivedOrderById(Long id) {
+        logger.info("Fetching archived order with id: {}", id);
+        Optional<OrderSummary> order = archivedOrderRepository.findSummaryById(id);
+        order.ifPresent(summary -> attachLines(Collections.singletonList(summary), Collections.singleton(id)));
+        return order;
+    }
+    
     @Transactional
+    @Timed(value = OrderMetrics.ORDERS, extraTags = {"operation", "create"}, histogram = true)
     public Order createOrder(Long menuItemId) {
         logger.info("Creating new order for menu item id: {}", menuItemId);
         
-        // Get menu item with lock to prevent race conditions
-        Optional<MenuItem> menuItemOpt = menuItemService.getMenuItemById(menuItemId);
-        if (!menuItemOpt.isPresent()) {
-            throw new RuntimeException("Menu item not found with id: " + menuItemId);
-        }
-        
-        MenuItem menuItem = menuItemOpt.get();
+        // Name and price come from the cache and the order only holds a reference to the row, so the
+        // transaction reads it just for the stock decrement; serializing the response's menuItem still
+        // loads it afterwards, through the open-in-view session
+        MenuItemMetadata menuItem = menuItemService.getMenuItemMetadata(menuItemId)
+                .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + menuItemId));
         
         // Check stock availability and decrement
         if (!menuItemService.decrementStock(menuItemId, 1)) {
@@ -56,8 +115,9 @@ public class OrderService {
         }
         
         // Create order
-        Order order = new Order(menuItem);
+        Order order = new Order(menuItemService.getMenuItemReference(menuItemId));
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(savedOrder, null));
         
         logger.info("Successfully created order with id: {} for menu item: {}", 
                    savedOrder.getId(), menuItem.getName());
@@ -65,7 +125,99 @@ public class OrderService {
         return savedOrder;
     }
     
+    /**
+     * Creates one single-item order per entry of {@code menuItemIds} in a single transaction, so
+     * the orders go to the database as one batched insert. An entry that cannot be ordered (unknown
+     * item, out of stock) is rejected on its own without affecting the rest. Stock is taken in
+     * ascending menu item id order, like {@link #checkout}, so concurrent batches cannot deadlock.
+     *
+     * @return one attempt per entry, in the same order as {@code menuItemIds}
+     */
+    @Transactional
+    @Timed(value = OrderMetrics.ORDERS, extraTags = {"operation", "create-batch"}, histogram = true)
+    public List<OrderAttempt> createOrders(List<Long> menuItemIds) {
+        logger.info("Creating {} orders in one transaction", menuItemIds.size());
+        Integer[] byItem = new Integer[menuItemIds.size()];
+        for (int i = 0; i < byItem.length; i++) {
+            byItem[i] = i;
+        }
+        Arrays.sort(byItem, Comparator.comparing(menuItemIds::get));
+        
+        OrderAttempt[] attempts = new OrderAttempt[menuItemIds.size()];
+        List<Integer> reserved = new ArrayList<>();
+        for (int index : byItem) {
+            Long menuItemId = menuItemIds.get(index);
+            Optional<MenuItemMetadata> menuItem = menuItemService.getMenuItemMetadata(menuItemId);
+            if (!menuItem.isPresent()) {
+                attempts[index] = OrderAttempt.rejected("Menu item not found with id: " + menuItemId);
+            } else if (!menuItemService.decrementStock(menuItemId, 1)) {
+                attempts[index] = OrderAttempt.rejected("Insufficient stock for menu item: " + menuItem.get().getName());
+            } else {
+                reserved.add(index);
+            }
+        }
+        if (reserved.isEmpty()) {
+            return Arrays.asList(attempts);
+        }
+        
+        // Loaded once for the whole batch, after the stock updates, so the orders hold current rows
+        Map<Long, MenuItem> menuItems = menuItemService.getMenuItemsByIds(
+                reserved.stream().map(menuItemIds::get).collect(Collectors.toSet()));
+        List<Order> orders = new ArrayList<>(reserved.size());
+        for (int index : reserved) {
+            orders.add(new Order(menuItems.get(menuItemIds.get(index))));
+        }
+        List<Order> savedOrders = orderRepository.saveAll(orders);
+        for (int i = 0; i < reserved.size(); i++) {
+            Order savedOrder = savedOrders.get(i);
+            eventPublisher.publishEvent(OrderStatusChangedEvent.of(savedOrder, null));
+            attempts[reserved.get(i)] = OrderAttempt.placed(savedOrder);
+        }
+        
+        logger.info("Created {} of {} orders in one transaction", savedOrders.size(), menuItemIds.size());
+        return Arrays.asList(attempts);
+    }
+    
+    /**
+     * Reserves every cart line and writes a single order with one line per menu item, all in one
+     * transaction. Lines for the same item are merged and stock is taken in ascending item id order,
+     * so two carts sharing items always lock rows in the same order and cannot deadlock.
+     */
+    @Transactional
+    @Timed(value = OrderMetrics.ORDERS, extraTags = {"operation", "checkout"}, histogram = true)
+    public Order checkout(List<CheckoutRequest.Line> lines) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutRequest.Line line : lines) {
+            quantities.merge(line.getMenuItemId(), line.getQuantity(), Integer::sum);
+        }
+        logger.info("Checking out cart with {} menu items", quantities.size());
+        
+        Order order = new Order();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Long menuItemId = entry.getKey();
+            int quantity = entry.getValue();
+            
+            MenuItemMetadata menuItem = menuItemService.getMenuItemMetadata(menuItemId)
+                    .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + menuItemId));
+            
+            // Any failure rolls back the stock already taken for earlier lines
+            if (!menuItemService.decrementStock(menuItemId, quantity)) {
+                throw new RuntimeException("Insufficient stock for menu item: " + menuItem.getName());
+            }
+            
+            order.addLine(new OrderLine(menuItemService.getMenuItemReference(menuItemId), quantity, menuItem.getPrice()));
+        }
+        
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(savedOrder, null));
+        
+        logger.info("Successfully checked out cart as order with id: {}", savedOrder.getId());
+        
+        return savedOrder;
+    }
+    
     @Transactional
+    @Timed(value = OrderMetrics.ORDERS, extraTags = {"operation", "cancel"}, histogram = true)
     public Order cancelOrder(Long orderId) {
         logger.info("Cancelling order with id: {}", orderId);
         
@@ -81,12 +233,14 @@ public class OrderService {
         }
         
         // Restore stock if order was pending
-        if (order.getStatus() == OrderStatus.PENDING) {
-            menuItemService.restoreStock(order.getMenuItem().getId(), 1);
+        OrderStatus previousStatus = order.getStatus();
+        if (previousStatus == OrderStatus.PENDING) {
+            restoreReservedStock(order);
         }
         
         order.setStatus(OrderStatus.CANCELLED);
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(savedOrder, previousStatus));
         
         logger.info("Successfully cancelled order with id: {}", orderId);
         
@@ -94,6 +248,7 @@ public class OrderService {
     }
     
     @Transactional
+    @Timed(value = OrderMetrics.ORDERS, extraTags = {"operation", "pay"}, histogram = true)
     public Order payOrder(Long orderId) {
         logger.info("Processing payment for order with id: {}", orderId);
         
@@ -106,62 +261,250 @@ public class OrderService {
         
         order.setStatus(OrderStatus.PAID);
         Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(savedOrder, OrderStatus.PENDING));
         
         logger.info("Successfully processed payment for order with id: {}", orderId);
         
         return savedOrder;
     }
     
-    public List<Order> getOrderHistory() {
-        logger.info("Fetching order history");
-        return orderRepository.findAllOrderByCreatedAtDesc();
+    /**
+     * Order history across {@code orders} and {@code orders_archive}. Both tables are read from the
+     * cursor position with the same keyset query and merged, so archived orders page in seamlessly
+     * after recent ones and the cursor format stays the same.
+     *
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public CursorPage<OrderSummary> getOrderHistory(String cursor, int limit) {
+        logger.info("Fetching order history page after cursor: {}", cursor);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<OrderSummary> recent;
+        List<OrderSummary> archived;
+        if (cursor == null || cursor.isEmpty()) {
+            recent = orderRepository.findFirstPage(pageable);
+            archived = archivedOrderRepository.findFirstPage(pageable);
+        } else {
+            OrderCursor position = OrderCursor.decode(cursor);
+            recent = orderRepository.findPageAfter(position.getCreatedAt(), position.getId(), pageable);
+            archived = archivedOrderRepository.findPageAfter(position.getCreatedAt(), position.getId(), pageable);
+        }
+        if (archived.isEmpty()) {
+            return toPage(recent, pageSize, Collections.emptySet());
+        }
+        
+        List<OrderSummary> orders = new ArrayList<>(recent);
+        orders.addAll(archived);
+        orders.sort(Comparator.comparing(OrderSummary::getCreatedAt).thenComparing(OrderSummary::getId).reversed());
+        Set<Long> archivedIds = archived.stream().map(OrderSummary::getId).collect(Collectors.toSet());
+        return toPage(orders, pageSize, archivedIds);
+    }
+    
+    /**
+     * Cancels the given orders if they are still pending and past the auto-cancel timeout.
+     * Called by {@code OrderExpiryScheduler} with the orders whose deadline just fired, so only
+     * due rows are read. Callers pass bounded chunks; each call is one transaction.
+     */
+    public int expireOrders(Collection<Long> orderIds) {
+        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(autoCancelMinutes);
+        // Paid, cancelled or rescheduled orders drop out of the status/age guard
+        return cancelExpired(orderRepository.findExpiredByIdsForUpdate(orderIds, OrderStatus.PENDING, cutoffTime));
     }
     
-    @Scheduled(fixedRate = 60000) // Run every minute
-    public void autoCancelPendingOrders() {
-        logger.info("Running auto-cancellation check for pending orders");
+    /**
+     * Cancels up to {@code limit} of the oldest pending orders past the auto-cancel timeout.
+     * Used by the safety-net sweep, which calls it repeatedly until a chunk comes back short.
+     */
+    public int cancelExpiredOrders(int limit) {
+        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(autoCancelMinutes);
+        return cancelExpired(orderRepository.findExpiredForUpdate(
+                OrderStatus.PENDING, cutoffTime, PageRequest.of(0, limit)));
+    }
+    
+    /**
+     * Set-based cancellation of already row-locked orders: one UPDATE flips them all to CANCELLED,
+     * and stock goes back with one additive UPDATE per menu item rather than per order.
+     */
+    private int cancelExpired(List<Order> expiredOrders) {
+        if (expiredOrders.isEmpty()) {
+            logger.debug("No pending orders found for auto-cancellation");
+            return 0;
+        }
         
-        LocalDateTime cutoffTime = LocalDateTime.now().minusMinutes(AUTO_CANCEL_MINUTES);
-        List<Order> pendingOrders = orderRepository.findPendingOrdersOlderThan(OrderStatus.PENDING, cutoffTime);
+        Map<Long, Map<Long, Integer>> quantitiesByOrder = reservedQuantities(expiredOrders);
+        List<Long> orderIds = new ArrayList<>(quantitiesByOrder.keySet());
         
-        if (!pendingOrders.isEmpty()) {
-            logger.info("Found {} pending orders older than {} minutes", pendingOrders.size(), AUTO_CANCEL_MINUTES);
-            
-            for (Order order : pendingOrders) {
-                try {
-                    logger.info("Auto-cancelling order with id: {} created at: {}", 
-                               order.getId(), order.getCreatedAt());
-                    
-                    // Restore stock
-                    menuItemService.restoreStock(order.getMenuItem().getId(), 1);
-                    
-                    // Cancel order
-                    order.setStatus(OrderStatus.CANCELLED);
-                    orderRepository.save(order);
-                    
-                    logger.info("Successfully auto-cancelled order with id: {}", order.getId());
-                } catch (Exception e) {
-                    logger.error("Error auto-cancelling order with id: {}", order.getId(), e);
-                }
+        LocalDateTime cancelledAt = LocalDateTime.now();
+        int cancelled = orderRepository.updateStatusByIds(
+                orderIds, OrderStatus.PENDING, OrderStatus.CANCELLED, cancelledAt);
+        
+        Map<Long, Integer> totals = new TreeMap<>();
+        quantitiesByOrder.values().forEach(quantities ->
+                quantities.forEach((menuItemId, quantity) -> totals.merge(menuItemId, quantity, Integer::sum)));
+        menuItemService.restoreStockInBulk(totals);
+        
+        for (Order order : expiredOrders) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), OrderStatus.PENDING,
+                    OrderStatus.CANCELLED, order.getCreatedAt(), quantitiesByOrder.get(order.getId()), null));
+            orderMetrics.recordAutoCancelled(order.getCreatedAt(), cancelledAt);
+        }
+        
+        logger.info("Auto-cancelled {} pending orders older than {} minutes, restored stock for {} menu items",
+                   cancelled, autoCancelMinutes, totals.size());
+        return cancelled;
+    }
+    
+    private Map<Long, Map<Long, Integer>> reservedQuantities(List<Order> orders) {
+        Map<Long, Map<Long, Integer>> quantitiesByOrder = new LinkedHashMap<>();
+        List<Long> cartOrderIds = new ArrayList<>();
+        for (Order order : orders) {
+            Map<Long, Integer> quantities = new TreeMap<>();
+            quantitiesByOrder.put(order.getId(), quantities);
+            if (order.getMenuItem() != null) {
+                quantities.put(order.getMenuItem().getId(), 1);
+            } else {
+                cartOrderIds.add(order.getId());
+            }
+        }
+        // One query for every cart line in the chunk instead of initializing each order's lines
+        if (!cartOrderIds.isEmpty()) {
+            for (OrderLineQuantity line : orderLineRepository.findQuantitiesByOrderIds(cartOrderIds)) {
+                quantitiesByOrder.get(line.getOrderId())
+                        .merge(line.getMenuItemId(), line.getQuantity(), Integer::sum);
             }
+        }
+        return quantitiesByOrder;
+    }
+    
+    // Primary only: the counter refreshes this right after paying or cancelling an order
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummary> getPendingOrders(String cursor, int limit) {
+        logger.info("Fetching pending orders page after cursor: {}", cursor);
+        return getOrderPage(OrderStatus.PENDING, cursor, limit);
+    }
+    
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public CursorPage<OrderSummary> getPaidOrders(String cursor, int limit) {
+        logger.info("Fetching paid orders page after cursor: {}", cursor);
+        return getOrderPage(OrderStatus.PAID, cursor, limit);
+    }
+    
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public CursorPage<OrderSummary> getCancelledOrders(String cursor, int limit) {
+        logger.info("Fetching cancelled orders page after cursor: {}", cursor);
+        return getOrderPage(OrderStatus.CANCELLED, cursor, limit);
+    }
+    
+    private void restoreReservedStock(Order order) {
+        if (order.getLines().isEmpty()) {
+            menuItemService.restoreStock(order.getMenuItem().getId(), 1);
+            return;
+        }
+        // Same ascending id order as checkout, so a cancel never deadlocks with a concurrent checkout
+        order.getLines().stream()
+                .sorted(Comparator.comparing((OrderLine line) -> line.getMenuItem().getId()))
+                .forEach(line -> menuItemService.restoreStock(line.getMenuItem().getId(), line.getQuantity()));
+    }
+    
+    /**
+     * Keyset page over {@code (created_at DESC, id DESC)}: each page seeks straight to the cursor
+     * position, so latency does not depend on how deep the client has paged or how big the table is.
+     *
+     * @param status null for all statuses
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    private CursorPage<OrderSummary> getOrderPage(OrderStatus status, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // One extra row tells us whether another page exists without a count query
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        
+        List<OrderSummary> orders;
+        if (cursor == null || cursor.isEmpty()) {
+            orders = status == null
+                    ? orderRepository.findFirstPage(pageable)
+                    : orderRepository.findFirstPageByStatus(status, pageable);
         } else {
-            logger.debug("No pending orders found for auto-cancellation");
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = status == null
+                    ? orderRepository.findPageAfter(position.getCreatedAt(), position.getId(), pageable)
+                    : orderRepository.findPageByStatusAfter(status, position.getCreatedAt(), position.getId(), pageable);
         }
+        return toPage(orders, pageSize, Collections.emptySet());
     }
     
-    public List<Order> getPendingOrders() {
-        logger.info("Fetching pending orders");
-        return orderRepository.findByStatus(OrderStatus.PENDING);
+    /**
+     * Cuts {@code orders}, fetched with one row more than {@code pageSize}, down to a page.
+     *
+     * @param archivedIds orders in the list that come from {@code orders_archive}
+     */
+    private CursorPage<OrderSummary> toPage(List<OrderSummary> orders, int pageSize, Set<Long> archivedIds) {
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = new ArrayList<>(orders.subList(0, pageSize));
+            OrderSummary last = orders.get(pageSize - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        attachLines(orders, archivedIds);
+        return new CursorPage<>(orders, nextCursor);
     }
     
-    public List<Order> getPaidOrders() {
-        logger.info("Fetching paid orders");
-        return orderRepository.findByStatus(OrderStatus.PAID);
+    // Cart orders get their lines from one extra query per table for the whole page, never one per order
+    private void attachLines(List<OrderSummary> orders, Set<Long> archivedIds) {
+        Map<Long, OrderSummary> cartOrders = new LinkedHashMap<>();
+        Map<Long, OrderSummary> archivedCartOrders = new LinkedHashMap<>();
+        for (OrderSummary order : orders) {
+            if (order.getMenuItem() == null) {
+                (archivedIds.contains(order.getId()) ? archivedCartOrders : cartOrders).put(order.getId(), order);
+            }
+        }
+        if (!cartOrders.isEmpty()) {
+            for (OrderLineSummary line : orderLineRepository.findSummariesByOrderIds(cartOrders.keySet())) {
+                cartOrders.get(line.getOrderId()).getLines().add(line);
+            }
+        }
+        if (!archivedCartOrders.isEmpty()) {
+            for (OrderLineSummary line : archivedOrderLineRepository.findSummariesByOrderIds(archivedCartOrders.keySet())) {
+                archivedCartOrders.get(line.getOrderId()).getLines().add(line);
+            }
+        }
     }
     
-    public List<Order> getCancelledOrders() {
-        logger.info("Fetching cancelled orders");
-        return orderRepository.findByStatus(OrderStatus.CANCELLED);
+    /**
+     * Outcome of one entry of {@link #createOrders}: the saved order, or why it was rejected.
+     */
+    public static final class OrderAttempt {
+        
+        private final Order order;
+        private final String error;
+        
+        private OrderAttempt(Order order, String error) {
+            this.order = order;
+            this.error = error;
+        }
+        
+        public static OrderAttempt placed(Order order) {
+            return new OrderAttempt(order, null);
+        }
+        
+        public static OrderAttempt rejected(String error) {
+            return new OrderAttempt(null, error);
+        }
+        
+        public boolean isPlaced() {
+            return order != null;
+        }
+        
+        public Order getOrder() {
+            return order;
+        }
+        
+        public String getError() {
+            return error;
+        }
     }
 }
-
@@ -0,0 +1,244 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.OrderStats;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.MenuItemStatusQuantity;
+import com.canteen.ordering.repository.OrderLineRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.repository.OrderStatusCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Order counts by status, units per menu item by status and paid revenue, kept as in-memory counters
+ * so the dashboard summary costs no query.
+ * <p>
+ * Counters move with every committed {@code OrderStatusChangedEvent}: the order leaves its previous
+ * status and enters the new one. They are loaded from the database when the application is ready and
+ * checked against it every {@code app.orders.stats.reconcile-interval-ms}. Orders that commit while the
+ * check runs make the two disagree briefly, so a difference is only corrected once the same difference
+ * has been seen on two checks in a row; corrections are applied as deltas, never by replacing counters
+ * that events may be updating at that moment.
+ */
+@Service
+public class OrderStatsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatsService.class);
+    
+    private final Map<Key, LongAdder> counters = new ConcurrentHashMap<>();
+    
+    // Only touched by reconcile, which is synchronized
+    private Map<Key, Long> suspectedDrift = Collections.emptyMap();
+    private volatile LocalDateTime reconciledAt;
+    
+    @Autowired
+    private OrderRepository orderRepository;
+    
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+    
+    @Autowired
+    private MenuItemService menuItemService;
+    
+    public OrderStats getStats() {
+        Map<OrderStatus, Long> orders = new EnumMap<>(OrderStatus.class);
+        Map<Long, Map<OrderStatus, Long>> units = new TreeMap<>();
+        long revenueCents = 0;
+        for (Map.Entry<Key, LongAdder> counter : counters.entrySet()) {
+            Key key = counter.getKey();
+            long value = counter.getValue().sum();
+            if (key.kind == Kind.ORDERS) {
+                orders.put(key.status, value);
+            } else if (key.kind == Kind.UNITS) {
+                units.computeIfAbsent(key.menuItemId, id -> new EnumMap<>(OrderStatus.class)).put(key.status, value);
+            } else {
+                revenueCents = value;
+            }
+        }
+    
+        List<OrderStats.MenuItemStats> menuItems = new ArrayList<>(units.size());
+        units.forEach((menuItemId, byStatus) -> {
+            long pending = byStatus.getOrDefault(OrderStatus.PENDING, 0L);
+            long paid = byStatus.getOrDefault(OrderStatus.PAID, 0L);
+            long cancelled = byStatus.getOrDefault(OrderStatus.CANCELLED, 0L);
+            if (pending != 0 || paid != 0 || cancelled != 0) {
+                String name = menuItemService.getMenuItemMetadata(menuItemId).map(MenuItemMetadata::getName).orElse(null);
+                menuItems.add(new OrderStats.MenuItemStats(menuItemId, name, pending, paid, cancelled));
+            }
+        });
+        return new OrderStats(orders.getOrDefault(OrderStatus.PENDING, 0L), orders.getOrDefault(OrderStatus.PAID, 0L),
+                orders.getOrDefault(OrderStatus.CANCELLED, 0L), BigDecimal.valueOf(revenueCents, 2),
+                menuItems, reconciledAt);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getPreviousStatus() != null) {
+            apply(event, event.getPreviousStatus(), -1);
+        }
+        apply(event, event.getNewStatus(), 1);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile(true);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.orders.stats.reconcile-interval-ms:300000}",
+               initialDelayString = "${app.orders.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        reconcile(false);
+    }
+    
+    synchronized void reconcile(boolean force) {
+        Map<Key, Long> drift = new HashMap<>(readDatabase());
+        for (Map.Entry<Key, LongAdder> counter : counters.entrySet()) {
+            drift.merge(counter.getKey(), -counter.getValue().sum(), Long::sum);
+        }
+        drift.values().removeIf(delta -> delta == 0);
+    
+        if (drift.isEmpty()) {
+            suspectedDrift = Collections.emptyMap();
+            reconciledAt = LocalDateTime.now();
+        } else if (force || drift.equals(suspectedDrift)) {
+            if (!force) {
+                logger.warn("Order stats drifted from the database, correcting {} counters", drift.size());
+            }
+            drift.forEach((key, delta) -> counter(key).add(delta));
+            suspectedDrift = Collections.emptyMap();
+            reconciledAt = LocalDateTime.now();
+        } else {
+            // Possibly orders committing during the check; correct only if it is still there next time
+            logger.debug("Order stats differ from the database in {} counters, rechecking next run", drift.size());
+            suspectedDrift = drift;
+        }
+    }
+    
+    // Archived orders still count: moving an order to the archive is not a change the summary should show
+    private Map<Key, Long> readDatabase() {
+        Map<Key, Long> expected = new HashMap<>();
+        List<OrderStatusCount> counts = new ArrayList<>(orderRepository.countGroupedByStatus());
+        counts.addAll(archivedOrderRepository.countGroupedByStatus());
+        for (OrderStatusCount count : counts) {
+            expected.merge(Key.orders(count.getStatus()), count.getCount(), Long::sum);
+        }
+        List<MenuItemStatusQuantity> quantities = new ArrayList<>(
+                orderRepository.countSingleItemOrdersByMenuItemAndStatus());
+        quantities.addAll(orderLineRepository.sumQuantitiesByMenuItemAndStatus());
+        quantities.addAll(archivedOrderRepository.countSingleItemOrdersByMenuItemAndStatus());
+        quantities.addAll(archivedOrderLineRepository.sumQuantitiesByMenuItemAndStatus());
+        for (MenuItemStatusQuantity quantity : quantities) {
+            expected.merge(Key.units(quantity.getMenuItemId(), quantity.getStatus()), quantity.getQuantity(), Long::sum);
+        }
+        BigDecimal revenue = orderRepository.sumSingleItemOrderAmounts(OrderStatus.PAID)
+                .add(orderLineRepository.sumLineAmounts(OrderStatus.PAID))
+                .add(archivedOrderRepository.sumSingleItemOrderAmounts(OrderStatus.PAID))
+                .add(archivedOrderLineRepository.sumLineAmounts(OrderStatus.PAID));
+        expected.put(Key.REVENUE, toCents(revenue));
+        return expected;
+    }
+    
+    private void apply(OrderStatusChangedEvent event, OrderStatus status, int sign) {
+        counter(Key.orders(status)).add(sign);
+        event.getItemQuantities().forEach((menuItemId, quantity) ->
+                counter(Key.units(menuItemId, status)).add((long) sign * quantity));
+        if (status == OrderStatus.PAID) {
+            counter(Key.REVENUE).add(sign * toCents(amountOf(event)));
+        }
+    }
+    
+    private BigDecimal amountOf(OrderStatusChangedEvent event) {
+        if (event.getAmount() != null) {
+            return event.getAmount();
+        }
+        // Single-item orders are charged the menu item's price, which the metadata cache already holds
+        BigDecimal amount = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> item : event.getItemQuantities().entrySet()) {
+            BigDecimal price = menuItemService.getMenuItemMetadata(item.getKey())
+                    .map(MenuItemMetadata::getPrice).orElse(BigDecimal.ZERO);
+            amount = amount.add(price.multiply(BigDecimal.valueOf(item.getValue())));
+        }
+        return amount;
+    }
+    
+    private LongAdder counter(Key key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+    
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+    
+    private enum Kind {
+        ORDERS, UNITS, REVENUE
+    }
+    
+    private static final class Key {
+        static final Key REVENUE = new Key(Kind.REVENUE, null, OrderStatus.PAID);
+    
+        final Kind kind;
+        final Long menuItemId;
+        final OrderStatus status;
+    
+        private Key(Kind kind, Long menuItemId, OrderStatus status) {
+            this.kind = kind;
+            this.menuItemId = menuItemId;
+            this.status = status;
+        }
+    
+        static Key orders(OrderStatus status) {
+            return new Key(Kind.ORDERS, null, status);
+        }
+    
+        static Key units(Long menuItemId, OrderStatus status) {
+            return new Key(Kind.UNITS, menuItemId, status);
+        }
+    
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return kind == other.kind && Objects.equals(menuItemId, other.menuItemId) && status == other.status;
+        }
+    
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, menuItemId, status);
+        }
+    }
+}
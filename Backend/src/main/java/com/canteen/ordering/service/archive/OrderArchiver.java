@@ -0,0 +1,122 @@
+package com.canteen.ordering.service.archive;
+
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderLineRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Moves paid and cancelled orders whose last change is older than {@code app.orders.archive.min-age-days}
+ * from {@code orders}/{@code order_lines} to {@code orders_archive}/{@code order_lines_archive}, so status
+ * listings and the auto-cancel scan only ever touch recent rows.
+ * <p>
+ * Runs on {@code app.orders.archive.cron} (off-peak by default) in batches of {@code batch-size} orders.
+ * Each batch copies and deletes in one short transaction, so row locks are held briefly and a failure
+ * leaves every order in exactly one table. Batches are separated by {@code pause-ms}, and a run stops
+ * after {@code max-batches} or {@code max-run-minutes}, leaving the rest for the next night.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+    private static final List<OrderStatus> FINAL_STATUSES = Arrays.asList(OrderStatus.PAID, OrderStatus.CANCELLED);
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.orders.archive.min-age-days:90}")
+    private long minAgeDays;
+
+    @Value("${app.orders.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.orders.archive.max-batches:200}")
+    private int maxBatches;
+
+    @Value("${app.orders.archive.max-run-minutes:60}")
+    private long maxRunMinutes;
+
+    @Value("${app.orders.archive.pause-ms:200}")
+    private long pauseMs;
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 0 3 * * *}")
+    public void scheduledArchive() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            logger.error("Error archiving orders, will retry on the next run", e);
+        }
+    }
+
+    /**
+     * @return number of orders archived
+     */
+    public int archive() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime cutoff = startedAt.minusDays(minAgeDays);
+        LocalDateTime deadline = startedAt.plusMinutes(maxRunMinutes);
+        int archived = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int moved = transactionTemplate.execute(status -> archiveBatch(cutoff, startedAt));
+            archived += moved;
+            if (moved < batchSize || LocalDateTime.now().isAfter(deadline) || !pause()) {
+                break;
+            }
+        }
+        logger.info("Archived {} orders last changed before {}", archived, cutoff);
+        return archived;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        List<Long> ids = orderRepository.findArchivableIds(FINAL_STATUSES, cutoff, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        archivedOrderRepository.copyFromOrders(ids, archivedAt);
+        archivedOrderLineRepository.copyFromOrderLines(ids);
+        orderLineRepository.deleteByOrderIds(ids);
+        orderRepository.deleteByIds(ids);
+        return ids.size();
+    }
+
+    // Gives the database room for regular traffic between batches; false if the run should stop
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.canteen.ordering.service.expiry;
+
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.OrderDeadline;
+import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives auto-cancellation from an {@link OrderExpiryWheel} instead of scanning the orders table.
+ * <p>
+ * Pending orders are added to the wheel when their creation commits and removed when they are paid
+ * or cancelled; the wheel is rebuilt from the pending orders on startup. Every tick only the orders
+ * whose deadline just passed are handed to {@link OrderService#expireOrders}, so a pending order is
+ * cancelled within about one tick of its deadline. A slow full sweep remains as a safety net.
+ */
+@Component
+public class OrderExpiryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryScheduler.class);
+    private static final long TICK_MILLIS = 1000;
+    // 4096 one-second slots: a 15 minute deadline never needs more than one revolution
+    private static final int WHEEL_SIZE = 4096;
+
+    private final OrderExpiryWheel wheel = new OrderExpiryWheel(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Value("${app.auto-cancel.minutes:15}")
+    private long autoCancelMinutes;
+
+    @Value("${app.auto-cancel.batch-size:200}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<OrderDeadline> pending = orderRepository.findDeadlinesByStatus(OrderStatus.PENDING);
+        for (OrderDeadline deadline : pending) {
+            schedule(deadline.getId(), deadline.getCreatedAt());
+        }
+        logger.info("Loaded {} pending orders into the expiry wheel", pending.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getNewStatus() == OrderStatus.PENDING) {
+            schedule(event.getOrderId(), event.getCreatedAt());
+        } else {
+            wheel.cancel(event.getOrderId());
+        }
+    }
+
+    // The tick and the sweep cancel the same kind of orders; synchronized so that on the multi-threaded
+    // scheduler they still take turns, as they did on a single scheduler thread
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public synchronized void expireDueOrders() {
+        List<Long> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        logger.info("Expiry wheel fired for {} pending orders", due.size());
+        // One bounded transaction per chunk, so a burst of expiries never holds locks for long
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> chunk = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                orderService.expireOrders(chunk);
+            } catch (Exception e) {
+                // Left for the safety-net sweep rather than retried every tick
+                logger.error("Error expiring {} due orders", chunk.size(), e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auto-cancel.sweep-interval-ms:300000}",
+               initialDelayString = "${app.auto-cancel.sweep-interval-ms:300000}")
+    public synchronized void sweep() {
+        logger.info("Running auto-cancellation sweep for pending orders");
+        try {
+            int cancelled;
+            do {
+                cancelled = orderService.cancelExpiredOrders(batchSize);
+            } while (cancelled == batchSize);
+        } catch (Exception e) {
+            logger.error("Error during auto-cancellation sweep", e);
+        }
+    }
+
+    public int getScheduledCount() {
+        return wheel.size();
+    }
+
+    private void schedule(Long orderId, LocalDateTime createdAt) {
+        long createdAtMillis = createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        wheel.schedule(orderId, createdAtMillis + TimeUnit.MINUTES.toMillis(autoCancelMinutes));
+    }
+}
@@ -0,0 +1,101 @@
+package com.canteen.ordering.service.expiry;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel of order deadlines.
+ * <p>
+ * Deadlines hash into {@code wheelSize} slots of {@code tickMillis} each. Advancing the wheel
+ * only visits the slots for the ticks that elapsed since the last advance, so finding due orders
+ * costs O(due + slot occupancy) no matter how many orders are pending. A deadline further out than
+ * one revolution stays in its slot until a later revolution reaches it.
+ * <p>
+ * All methods are synchronized: schedule/cancel happen once per order and advance once per tick,
+ * so the monitor is never hot, and it keeps a schedule racing an advance from landing in a slot
+ * that was just swept.
+ */
+public class OrderExpiryWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final int mask;
+    private final List<Map<Long, Long>> slots;
+    private final Map<Long, Integer> slotIndexes = new HashMap<>();
+    private long currentTick;
+
+    public OrderExpiryWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.mask = wheelSize - 1;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new HashMap<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules (or reschedules) an order. Deadlines already in the past fire on the next advance.
+     */
+    public synchronized void schedule(long orderId, long deadlineMillis) {
+        cancel(orderId);
+        long tick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        int slotIndex = (int) (tick & mask);
+        slots.get(slotIndex).put(orderId, deadlineMillis);
+        slotIndexes.put(orderId, slotIndex);
+    }
+
+    public synchronized boolean cancel(long orderId) {
+        Integer slotIndex = slotIndexes.remove(orderId);
+        if (slotIndex == null) {
+            return false;
+        }
+        slots.get(slotIndex).remove(orderId);
+        return true;
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and removes and returns every order whose deadline has passed.
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<Long> due = new ArrayList<>();
+        if (nowTick <= currentTick) {
+            return due;
+        }
+
+        // After a long pause every slot may hold due entries; one full revolution covers them all
+        long ticks = Math.min(nowTick - currentTick, wheelSize);
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            Iterator<Map.Entry<Long, Long>> it = slots.get((int) (tick & mask)).entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Long> entry = it.next();
+                if (entry.getValue() <= nowMillis) {
+                    due.add(entry.getKey());
+                    slotIndexes.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        currentTick = nowTick;
+        return due;
+    }
+
+    public synchronized int size() {
+        return slotIndexes.size();
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+}
@@ -0,0 +1,239 @@
+package com.canteen.ordering.service.groupcommit;
+
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Group commit for single-item orders, used when {@code app.orders.group-commit.enabled=true}.
+ * <p>
+ * Callers of {@link #createOrder} block as before, but instead of each running its own transaction
+ * their requests are collected for up to {@code window-ms} (or until {@code max-batch} arrive) and
+ * created together by {@link OrderService#createOrders}: one transaction, one commit and one
+ * batched insert for the whole group. Every caller still gets its own order or its own error. If
+ * the group transaction fails as a whole, each request is retried on its own so one bad request
+ * cannot fail its neighbours. A caller that times out withdraws its request unless a committer has
+ * already taken it, so a request reported as failed does not go on to place an order.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.group-commit.enabled", havingValue = "true")
+public class OrderGroupCommitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderGroupCommitter.class);
+    private static final long POLL_MILLIS = 500;
+
+    // Unbounded, but every entry has a request thread blocked on it, so it never outgrows the thread pool
+    private final BlockingQueue<PendingOrder> queue = new LinkedBlockingQueue<>();
+
+    private ExecutorService committers;
+    private volatile boolean running;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${app.orders.group-commit.window-ms:2}")
+    private long windowMillis;
+
+    @Value("${app.orders.group-commit.max-batch:50}")
+    private int maxBatch;
+
+    @Value("${app.orders.group-commit.committers:2}")
+    private int committerCount;
+
+    @Value("${app.orders.group-commit.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        committers = Executors.newFixedThreadPool(committerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-group-commit-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < committerCount; i++) {
+            committers.execute(this::run);
+        }
+        logger.info("Order group commit started: {} committers, {} ms window, up to {} orders per transaction",
+                committerCount, windowMillis, maxBatch);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        committers.shutdown();
+        if (!committers.awaitTermination(10, TimeUnit.SECONDS)) {
+            committers.shutdownNow();
+        }
+        PendingOrder abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            abandoned.result.completeExceptionally(new RuntimeException("Order service is shutting down"));
+        }
+    }
+
+    /**
+     * Same contract as {@link OrderService#createOrder}: returns the saved order or throws a
+     * {@link RuntimeException} describing why it could not be created.
+     */
+    public Order createOrder(Long menuItemId) {
+        if (!running) {
+            throw new RuntimeException("Order service is shutting down");
+        }
+        PendingOrder pending = new PendingOrder(menuItemId);
+        queue.add(pending);
+        try {
+            try {
+                return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.cancel()) {
+                    throw new RuntimeException("Timed out waiting for order on menu item " + menuItemId
+                            + " to commit; it was not placed");
+                }
+                // A committer has it in a transaction already, so its outcome is close
+                return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            // Only reached when the transaction itself hangs; the order may still commit and then expire unpaid
+            throw new RuntimeException("Timed out waiting for order on menu item " + menuItemId + " to commit");
+        } catch (InterruptedException e) {
+            // Withdrawn if still queued; otherwise, as above, it may still commit
+            pending.cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for order to commit");
+        }
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                for (PendingOrder pending : batch) {
+                    pending.result.completeExceptionally(new RuntimeException("Order was not processed"));
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    // Waits out the window for more requests to join the group, unless it fills up first
+    private void collect(List<PendingOrder> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    void commit(List<PendingOrder> batch) {
+        // Requests whose callers have given up are dropped; the rest can no longer be withdrawn
+        List<PendingOrder> claimed = new ArrayList<>(batch.size());
+        List<Long> menuItemIds = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            if (pending.claim()) {
+                claimed.add(pending);
+                menuItemIds.add(pending.menuItemId);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+        List<OrderService.OrderAttempt> attempts;
+        try {
+            attempts = orderService.createOrders(menuItemIds);
+        } catch (Exception e) {
+            logger.warn("Group commit of {} orders failed, retrying them one by one", claimed.size(), e);
+            // Through createOrders again, so each order comes back with its menu item loaded rather
+            // than as a proxy the caller's thread cannot initialize
+            for (PendingOrder pending : claimed) {
+                try {
+                    complete(pending, orderService.createOrders(Collections.singletonList(pending.menuItemId)).get(0));
+                } catch (Exception individual) {
+                    pending.result.completeExceptionally(individual);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < claimed.size(); i++) {
+            complete(claimed.get(i), attempts.get(i));
+        }
+    }
+
+    private static void complete(PendingOrder pending, OrderService.OrderAttempt attempt) {
+        if (attempt.isPlaced()) {
+            pending.result.complete(attempt.getOrder());
+        } else {
+            pending.result.completeExceptionally(new RuntimeException(attempt.getError()));
+        }
+    }
+
+    static final class PendingOrder {
+
+        enum State {
+            QUEUED, CLAIMED, CANCELLED
+        }
+
+        final Long menuItemId;
+        final CompletableFuture<Order> result = new CompletableFuture<>();
+        private final AtomicReference<State> state = new AtomicReference<>(State.QUEUED);
+
+        PendingOrder(Long menuItemId) {
+            this.menuItemId = menuItemId;
+        }
+
+        // Taken by a committer, after which the caller waits for the outcome
+        boolean claim() {
+            return state.compareAndSet(State.QUEUED, State.CLAIMED);
+        }
+
+        // Withdrawn by a caller that stopped waiting, after which no committer will create it
+        boolean cancel() {
+            return state.compareAndSet(State.QUEUED, State.CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.canteen.ordering.service.intake;
+
+import com.canteen.ordering.dto.CheckoutRequest;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.event.OrderTicketCompletedEvent;
+import com.canteen.ordering.service.MenuItemService;
+import com.canteen.ordering.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Queued order intake used when {@code app.orders.intake.mode=queued}.
+ * <p>
+ * Request threads only validate the order and put it on a bounded queue, so they return
+ * immediately with an {@link OrderTicket} instead of waiting for a database connection. A fixed
+ * number of workers take orders off the queue in micro-batches and run them through
+ * {@link OrderService}; the worker count, not the number of waiting clients, bounds how many
+ * connections intake can hold. When the queue is full {@link #submit} refuses the order
+ * straight away so the client can back off, rather than letting it wait for a connection timeout.
+ * <p>
+ * Tickets live in memory: they are lost on restart and forgotten {@code ticket-ttl-ms} after completion.
+ */
+@Component
+@ConditionalOnProperty(name = "app.orders.intake.mode", havingValue = "queued")
+public class OrderIntake {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntake.class);
+    private static final long POLL_MILLIS = 500;
+
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+
+    private BlockingQueue<PendingOrder> queue;
+    private ExecutorService workers;
+    private volatile boolean accepting;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.orders.intake.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${app.orders.intake.workers:4}")
+    private int workerCount;
+
+    @Value("${app.orders.intake.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.orders.intake.ticket-ttl-ms:600000}")
+    private long ticketTtlMillis;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        accepting = true;
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+        logger.info("Queued order intake started with {} workers and room for {} orders", workerCount, queueCapacity);
+    }
+
+    /**
+     * Stops accepting orders and gives the workers a moment to finish what is already queued.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        accepting = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        PendingOrder abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            complete(abandoned.ticket, null, "Order intake shut down before the order was processed");
+        }
+    }
+
+    /**
+     * Queues a single-item order.
+     *
+     * @return the ticket, or empty if the queue is full
+     * @throws RuntimeException if the menu item does not exist
+     */
+    public Optional<OrderTicket> submit(Long menuItemId) {
+        requireMenuItem(menuItemId);
+        return enqueue(service -> service.createOrder(menuItemId));
+    }
+
+    /**
+     * Queues a cart checkout.
+     *
+     * @return the ticket, or empty if the queue is full
+     * @throws RuntimeException if a menu item does not exist
+     */
+    public Optional<OrderTicket> submitCheckout(List<CheckoutRequest.Line> lines) {
+        for (CheckoutRequest.Line line : lines) {
+            requireMenuItem(line.getMenuItemId());
+        }
+        List<CheckoutRequest.Line> copy = Collections.unmodifiableList(new ArrayList<>(lines));
+        return enqueue(service -> service.checkout(copy));
+    }
+
+    public Optional<OrderTicket> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.get(ticketId));
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.intake.ticket-ttl-ms:600000}")
+    public void evictCompletedTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(ticketTtlMillis));
+        tickets.values().removeIf(ticket -> ticket.isDone() && ticket.getCompletedAt().isBefore(cutoff));
+    }
+
+    private void requireMenuItem(Long menuItemId) {
+        // Served from the menu item cache, so rejecting unknown items costs no database round trip
+        if (!menuItemService.getMenuItemMetadata(menuItemId).isPresent()) {
+            throw new RuntimeException("Menu item not found with id: " + menuItemId);
+        }
+    }
+
+    private Optional<OrderTicket> enqueue(Function<OrderService, Order> action) {
+        if (!accepting) {
+            return Optional.empty();
+        }
+        OrderTicket ticket = new OrderTicket(UUID.randomUUID().toString());
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(new PendingOrder(ticket, action))) {
+            tickets.remove(ticket.getId());
+            logger.warn("Order intake queue is full ({} orders), shedding order", queueCapacity);
+            return Optional.empty();
+        }
+        return Optional.of(ticket);
+    }
+
+    private void work() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Take whatever else is already waiting, up to the batch size, in one queue operation
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void process(List<PendingOrder> batch) {
+        for (PendingOrder pending : batch) {
+            pending.ticket.processing();
+        }
+        // Each order keeps its own transaction: one sold-out item must not roll back its neighbours
+        for (PendingOrder pending : batch) {
+            try {
+                Order order = pending.action.apply(orderService);
+                complete(pending.ticket, order.getId(), null);
+            } catch (Exception e) {
+                logger.warn("Queued order {} was rejected: {}", pending.ticket.getId(), e.getMessage());
+                complete(pending.ticket, null, e.getMessage());
+            }
+        }
+    }
+
+    private void complete(OrderTicket ticket, Long orderId, String error) {
+        if (error == null) {
+            ticket.completed(orderId);
+        } else {
+            ticket.failed(error);
+        }
+        eventPublisher.publishEvent(new OrderTicketCompletedEvent(ticket));
+    }
+
+    static final class PendingOrder {
+        final OrderTicket ticket;
+        final Function<OrderService, Order> action;
+
+        PendingOrder(OrderTicket ticket, Function<OrderService, Order> action) {
+            this.ticket = ticket;
+            this.action = action;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.canteen.ordering.service.intake;
+
+import java.time.LocalDateTime;
+
+/**
+ * Receipt for an order accepted by {@link OrderIntake}. Clients poll it, or subscribe to the live
+ * event stream with its id, until it is {@link Status#COMPLETED} with an order id or
+ * {@link Status#FAILED} with a reason.
+ */
+public class OrderTicket {
+
+    public enum Status {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final LocalDateTime submittedAt;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long orderId;
+    private volatile String error;
+    private volatile LocalDateTime completedAt;
+
+    public OrderTicket(String id) {
+        this.id = id;
+        this.submittedAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Id of the created order, once {@link Status#COMPLETED}.
+     */
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Why the order was rejected, once {@link Status#FAILED}.
+     */
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public boolean isDone() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void processing() {
+        status = Status.PROCESSING;
+    }
+
+    void completed(Long orderId) {
+        this.orderId = orderId;
+        this.completedAt = LocalDateTime.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.completedAt = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,270 @@
+package com.canteen.ordering.service.live;
+
+import com.canteen.ordering.dto.OrderStatusUpdate;
+import com.canteen.ordering.dto.StockUpdate;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.event.OrderTicketCompletedEvent;
+import com.canteen.ordering.event.StockChangedEvent;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.repository.MenuItemStock;
+import com.canteen.ordering.service.intake.OrderIntake;
+import com.canteen.ordering.service.intake.OrderTicket;
+import com.canteen.ordering.service.stock.StockLedger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed stock and order status changes to every client connected to the live event stream.
+ * The outcome of a queued order goes only to clients that subscribed with its ticket id, since the
+ * ticket is the receipt of the client that placed it.
+ * <p>
+ * Listeners run after commit and only queue work, so a slow or stalled client never holds up the
+ * transaction that caused the change. Stock changes are collected by menu item id and published on
+ * a short fixed delay: a burst of orders for the same item costs one stock read and one event per
+ * client, carrying the latest count. Writes to the clients happen on a small dedicated executor
+ * rather than on request or scheduler threads.
+ * <p>
+ * A write to a stalled client blocks its dispatch thread until the socket gives up. A client whose
+ * write has been blocked for {@code send-timeout-ms} is disconnected, and the executor gets a
+ * thread in place of the one it holds until that write returns, so stalled clients cannot take every
+ * dispatch thread from the others.
+ */
+@Component
+public class LiveEventBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveEventBroadcaster.class);
+
+    static final String STOCK_EVENT = "stock";
+    static final String ORDER_EVENT = "order";
+    static final String TICKET_EVENT = "ticket";
+    private static final long RECONNECT_MILLIS = 3000;
+
+    private final Set<LiveSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<String, Set<LiveSubscriber>> ticketSubscribers = new ConcurrentHashMap<>();
+    private final Set<Long> changedStock = ConcurrentHashMap.newKeySet();
+    // Disconnected while a write to them was blocked, each holding a dispatch thread until it returns
+    private final Set<LiveSubscriber> stalledSubscribers = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor dispatcher;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired(required = false)
+    private StockLedger stockLedger;
+
+    // Only present when app.orders.intake.mode=queued
+    @Autowired(required = false)
+    private OrderIntake orderIntake;
+
+    @Value("${app.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    @Value("${app.events.subscriber-buffer:256}")
+    private int subscriberBuffer;
+
+    @Value("${app.events.dispatch-threads:4}")
+    private int dispatchThreads;
+
+    @Value("${app.events.send-timeout-ms:5000}")
+    private long sendTimeoutMillis;
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Each subscriber has at most one drain task queued, so the queue is bounded by the subscriber count
+        dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "live-events-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (LiveSubscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Connects a client to the stream. With a {@code ticketId} it also receives the outcome of that
+     * queued order, straight away if the order has already been processed.
+     */
+    public SseEmitter subscribe(String ticketId) {
+        return subscribe(new SseEmitter(emitterTimeoutMillis), ticketId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String ticketId) {
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, subscriberBuffer, dispatcher,
+                closed -> unsubscribe(closed, ticketId));
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscribers.add(subscriber);
+        subscriber.offer(SseEmitter.event().reconnectTime(RECONNECT_MILLIS).comment("connected"));
+        if (ticketId != null) {
+            ticketSubscribers.computeIfAbsent(ticketId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            // Registered first, so an outcome arriving meanwhile is sent at worst twice, never missed
+            Optional<OrderTicket> ticket = orderIntake != null ? orderIntake.getTicket(ticketId) : Optional.empty();
+            if (ticket.isPresent() && ticket.get().isDone()) {
+                subscriber.offer(TICKET_EVENT, ticket.get());
+            }
+        }
+        logger.debug("Live event subscriber connected, {} connected", subscribers.size());
+        return emitter;
+    }
+
+    private void unsubscribe(LiveSubscriber subscriber, String ticketId) {
+        subscribers.remove(subscriber);
+        if (ticketId != null) {
+            ticketSubscribers.computeIfPresent(ticketId, (id, watchers) -> {
+                watchers.remove(subscriber);
+                return watchers.isEmpty() ? null : watchers;
+            });
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        OrderStatusUpdate update = OrderStatusUpdate.of(event);
+        for (LiveSubscriber subscriber : subscribers) {
+            subscriber.offer(ORDER_EVENT, update);
+        }
+    }
+
+    // Published by the intake workers after the order's own transaction has finished
+    @EventListener
+    public void onOrderTicketCompleted(OrderTicketCompletedEvent event) {
+        Set<LiveSubscriber> watchers = ticketSubscribers.get(event.getTicket().getId());
+        if (watchers == null) {
+            return;
+        }
+        for (LiveSubscriber subscriber : watchers) {
+            subscriber.offer(TICKET_EVENT, event.getTicket());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!subscribers.isEmpty()) {
+            changedStock.add(event.getMenuItemId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.stock-coalesce-ms:250}")
+    public void publishStockChanges() {
+        if (changedStock.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> iterator = changedStock.iterator(); iterator.hasNext(); ) {
+            ids.add(iterator.next());
+            iterator.remove();
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            List<StockUpdate> updates = readStock(ids);
+            for (LiveSubscriber subscriber : subscribers) {
+                for (StockUpdate update : updates) {
+                    if (!subscriber.offerStock(update)) {
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error publishing stock changes for {} menu items", ids.size(), e);
+        }
+    }
+
+    // Keeps idle connections from being closed by proxies and notices clients that went away
+    @Scheduled(fixedRateString = "${app.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (LiveSubscriber subscriber : subscribers) {
+            subscriber.offer(SseEmitter.event().comment("heartbeat"));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.events.stall-check-ms:1000}")
+    public void closeStalledSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (LiveSubscriber subscriber : subscribers) {
+            if (subscriber.isSendStalled(now, timeoutNanos) && stalledSubscribers.add(subscriber)) {
+                logger.warn("Live event subscriber stalled on a write for over {} ms, disconnecting it",
+                        sendTimeoutMillis);
+                subscriber.close();
+                resizeDispatcher(1);
+            }
+        }
+        for (Iterator<LiveSubscriber> iterator = stalledSubscribers.iterator(); iterator.hasNext(); ) {
+            if (!iterator.next().isSending()) {
+                iterator.remove();
+                resizeDispatcher(-1);
+            }
+        }
+    }
+
+    // Raise the maximum before the core size and lower it after, so the core never exceeds it
+    private synchronized void resizeDispatcher(int delta) {
+        int size = dispatcher.getCorePoolSize() + delta;
+        if (delta > 0) {
+            dispatcher.setMaximumPoolSize(size);
+            dispatcher.setCorePoolSize(size);
+        } else {
+            dispatcher.setCorePoolSize(size);
+            dispatcher.setMaximumPoolSize(size);
+        }
+    }
+
+    int getDispatchThreads() {
+        return dispatcher.getCorePoolSize();
+    }
+
+    private List<StockUpdate> readStock(List<Long> ids) {
+        List<StockUpdate> updates = new ArrayList<>(ids.size());
+        if (stockLedger != null) {
+            for (Long id : ids) {
+                Optional<Integer> available = stockLedger.getAvailable(id);
+                available.ifPresent(stockCount -> updates.add(new StockUpdate(id, stockCount)));
+            }
+            return updates;
+        }
+        for (MenuItemStock stock : menuItemRepository.findStockCountsByIds(ids)) {
+            updates.add(new StockUpdate(stock.getId(), stock.getStockCount()));
+        }
+        return updates;
+    }
+}
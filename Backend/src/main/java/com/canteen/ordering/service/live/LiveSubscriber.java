@@ -0,0 +1,191 @@
+package com.canteen.ordering.service.live;
+
+import com.canteen.ordering.dto.StockUpdate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One connected event stream client and the events waiting to be written to it.
+ * <p>
+ * Stock updates are kept per menu item, so a later count replaces one that has not been sent yet;
+ * everything else waits in a bounded queue. At most one drain task per subscriber is queued on the
+ * dispatch executor at a time, which keeps writes to the emitter sequential. A client that falls
+ * further behind than the buffer allows is disconnected: it reconnects and refetches, which is
+ * cheaper than holding an ever growing backlog for it. A write that blocks is reported through
+ * {@link #isSendStalled} so the broadcaster can drop the client and replace the thread it holds.
+ * <p>
+ * The emitter's methods lock the emitter, so completing it while a write is blocked would block
+ * too; a subscriber closed mid-write leaves completing the emitter to the writing thread.
+ */
+class LiveSubscriber {
+
+    private static final long NOT_SENDING = Long.MIN_VALUE;
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Executor executor;
+    private final Consumer<LiveSubscriber> onClose;
+
+    // Guarded by this
+    private final Map<Long, StockUpdate> pendingStock = new LinkedHashMap<>();
+    private final Deque<SseEmitter.SseEventBuilder> pendingEvents = new ArrayDeque<>();
+
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long sendStartedAt = NOT_SENDING;
+
+    LiveSubscriber(SseEmitter emitter, int capacity, Executor executor, Consumer<LiveSubscriber> onClose) {
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Queues a named event. Returns false, and disconnects the client, if its buffer is full.
+     */
+    boolean offer(String name, Object data) {
+        return offer(SseEmitter.event().name(name).data(data));
+    }
+
+    boolean offer(SseEmitter.SseEventBuilder event) {
+        synchronized (this) {
+            if (closed.get()) {
+                return false;
+            }
+            if (pendingEvents.size() + pendingStock.size() >= capacity) {
+                return overflow();
+            }
+            pendingEvents.addLast(event);
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * Queues a stock count, replacing any count for the same menu item that has not been sent yet.
+     */
+    boolean offerStock(StockUpdate update) {
+        synchronized (this) {
+            if (closed.get()) {
+                return false;
+            }
+            if (!pendingStock.containsKey(update.getMenuItemId())
+                    && pendingEvents.size() + pendingStock.size() >= capacity) {
+                return overflow();
+            }
+            pendingStock.put(update.getMenuItemId(), update);
+        }
+        schedule();
+        return true;
+    }
+
+    synchronized int pendingCount() {
+        return pendingEvents.size() + pendingStock.size();
+    }
+
+    /**
+     * Whether a write to the client has been in progress for longer than {@code timeoutNanos}.
+     */
+    boolean isSendStalled(long now, long timeoutNanos) {
+        long startedAt = sendStartedAt;
+        return startedAt != NOT_SENDING && now - startedAt > timeoutNanos;
+    }
+
+    boolean isSending() {
+        return sendStartedAt != NOT_SENDING;
+    }
+
+    void close() {
+        if (markClosed() && !isSending()) {
+            emitter.complete();
+        }
+    }
+
+    private boolean markClosed() {
+        if (!closed.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (this) {
+            pendingEvents.clear();
+            pendingStock.clear();
+        }
+        onClose.accept(this);
+        return true;
+    }
+
+    // Caller holds the lock
+    private boolean overflow() {
+        // Completing the emitter from a dispatch thread keeps the caller, usually an event listener, cheap
+        executor.execute(this::close);
+        return false;
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<SseEmitter.SseEventBuilder> batch = takePending();
+            if (batch.isEmpty()) {
+                draining.set(false);
+                // An offer may have slipped in between taking the batch and clearing the flag
+                if (pendingCount() == 0 || !draining.compareAndSet(false, true)) {
+                    return;
+                }
+                continue;
+            }
+            for (SseEmitter.SseEventBuilder event : batch) {
+                if (closed.get()) {
+                    return;
+                }
+                sendStartedAt = System.nanoTime();
+                try {
+                    emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away; the container reports it through the emitter callbacks too
+                    markClosed();
+                } finally {
+                    sendStartedAt = NOT_SENDING;
+                }
+                if (closed.get()) {
+                    // Either the write failed or close() ran during it and left the emitter to this thread
+                    emitter.complete();
+                    return;
+                }
+            }
+        }
+    }
+
+    private synchronized List<SseEmitter.SseEventBuilder> takePending() {
+        List<SseEmitter.SseEventBuilder> batch = new ArrayList<>(pendingEvents.size() + pendingStock.size());
+        batch.addAll(pendingEvents);
+        pendingEvents.clear();
+        for (StockUpdate update : pendingStock.values()) {
+            batch.add(SseEmitter.event().name(LiveEventBroadcaster.STOCK_EVENT).data(update));
+        }
+        pendingStock.clear();
+        return batch;
+    }
+}
@@ -0,0 +1,80 @@
+package com.canteen.ordering.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Domain meters for the stock engine and auto-cancellation, published under {@code /actuator/metrics}.
+ * <p>
+ * The order operations themselves are timed with {@code @Timed} on {@code OrderService}; this class
+ * covers what an annotation cannot see. Meters are looked up through the registry on each call, which
+ * caches them by name and tags, so the per-item rejection counters appear as items sell out.
+ */
+@Component
+public class OrderMetrics {
+
+    public static final String ORDERS = "canteen.orders";
+    public static final String STOCK_DECREMENT = "canteen.stock.decrement";
+    public static final String STOCK_REJECTIONS = "canteen.stock.rejections";
+    public static final String AUTO_CANCEL_LAG = "canteen.orders.auto-cancel.lag";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.stock.mode:jpa}")
+    private String stockMode;
+
+    @Value("${app.stock.locking:pessimistic}")
+    private String stockLocking;
+
+    @Value("${app.auto-cancel.minutes:15}")
+    private long autoCancelMinutes;
+
+    /**
+     * Records one stock decrement: the time spent acquiring the stock lock (or winning the update)
+     * and applying it, tagged with the active engine and whether the units were taken. A refused
+     * decrement also counts as a rejection against its menu item.
+     */
+    public void recordStockDecrement(Long menuItemId, boolean decremented, long elapsedNanos) {
+        Timer.builder(STOCK_DECREMENT)
+                .description("Stock lock acquisition and decrement time")
+                .tag("engine", stockEngine())
+                .tag("outcome", decremented ? "taken" : "rejected")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!decremented) {
+            // Bounded by the size of the menu
+            Counter.builder(STOCK_REJECTIONS)
+                    .description("Orders refused for insufficient stock")
+                    .tag("menuItem", String.valueOf(menuItemId))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * Records how long after its deadline an order was actually auto-cancelled. The deadline is
+     * {@code createdAt} plus the auto-cancel timeout; a growing lag means the expiry path is falling behind.
+     */
+    public void recordAutoCancelled(LocalDateTime createdAt, LocalDateTime cancelledAt) {
+        Duration lag = Duration.between(createdAt.plusMinutes(autoCancelMinutes), cancelledAt);
+        Timer.builder(AUTO_CANCEL_LAG)
+                .description("Time between an order's auto-cancel deadline and its cancellation")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    private String stockEngine() {
+        return "ledger".equals(stockMode) ? "ledger" : stockLocking;
+    }
+}
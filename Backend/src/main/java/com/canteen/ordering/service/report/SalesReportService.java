@@ -0,0 +1,214 @@
+package com.canteen.ordering.service.report;
+
+import com.canteen.ordering.config.ReplicaRead;
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.SalesReportRow;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.entity.SalesRollup;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.HourlySales;
+import com.canteen.ordering.repository.OrderLineRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.repository.SalesRollupRepository;
+import com.canteen.ordering.service.MenuItemService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales reports read from the hourly {@code sales_rollups} rather than from the orders, so a report
+ * costs one row per menu item per hour in range however many orders there are.
+ * <p>
+ * The rollups are kept up to date by {@link SalesRollupAccumulator}. When the table is empty on startup
+ * (first deployment) they are backfilled from all existing orders, archived ones included; {@link #rebuild}
+ * recomputes a range of closed hours, for instance after a crash lost unflushed deltas.
+ */
+@Service
+public class SalesReportService implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesReportService.class);
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        public LocalDateTime periodStart(LocalDateTime bucketStart) {
+            switch (this) {
+                case DAY:
+                    return bucketStart.truncatedTo(ChronoUnit.DAYS);
+                case MONTH:
+                    return bucketStart.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+                default:
+                    return bucketStart;
+            }
+        }
+
+        /**
+         * @throws IllegalArgumentException if the granularity is not supported
+         */
+        public static Granularity parse(String value) {
+            return Granularity.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private SalesRollupAccumulator accumulator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.reports.rollup.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+
+    /**
+     * Sales per period and menu item for the hours starting in {@code [from, to)}, oldest period first.
+     * Either bound may be null for open-ended; {@code menuItemId} may be null for all items. The last
+     * {@code app.reports.rollup.flush-interval-ms} of sales may not be included yet.
+     */
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public List<SalesReportRow> getSales(LocalDateTime from, LocalDateTime to, Granularity granularity,
+                                         Long menuItemId) {
+        Map<LocalDateTime, Map<Long, SalesRollup>> periods = new TreeMap<>();
+        for (SalesRollup rollup : salesRollupRepository.findInRange(
+                from != null ? from : EARLIEST, to != null ? to : LATEST, menuItemId)) {
+            LocalDateTime periodStart = granularity.periodStart(rollup.getBucketStart());
+            periods.computeIfAbsent(periodStart, start -> new TreeMap<>())
+                    .computeIfAbsent(rollup.getMenuItemId(), id -> new SalesRollup(periodStart, id))
+                    .add(rollup);
+        }
+
+        List<SalesReportRow> rows = new ArrayList<>();
+        periods.forEach((periodStart, items) -> items.forEach((id, total) -> rows.add(new SalesReportRow(
+                periodStart, id, menuItemService.getMenuItemMetadata(id).map(MenuItemMetadata::getName).orElse(null),
+                total.getOrders(), total.getUnits(), total.getPaidOrders(), total.getPaidUnits(),
+                total.getPaidRevenue(), total.getCancelledOrders(), total.getCancelledUnits()))));
+        return rows;
+    }
+
+    /**
+     * Recomputes the rollups of the closed hours in {@code [from, to)} from the orders. Bounds are rounded
+     * down to the hour and {@code to} is capped at the start of the current hour, which is still receiving
+     * deltas; either bound may be null for open-ended. Hours up to the last change of the newest archived
+     * order are left alone: the archiver moves their orders between tables, and a sum taken meanwhile could
+     * miss or double count them.
+     *
+     * @return number of rollup rows written
+     */
+    public int rebuild(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime currentHour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime requestedStart = from != null ? from.truncatedTo(ChronoUnit.HOURS) : EARLIEST;
+        LocalDateTime archivedUntil = archivedOrderRepository.findLatestUpdatedAt();
+        LocalDateTime start = archivedUntil != null && !requestedStart.isAfter(archivedUntil)
+                ? archivedUntil.truncatedTo(ChronoUnit.HOURS).plusHours(1)
+                : requestedStart;
+        LocalDateTime end = to != null && to.isBefore(currentHour) ? to.truncatedTo(ChronoUnit.HOURS) : currentHour;
+        if (!start.isBefore(end)) {
+            return 0;
+        }
+        // Deltas for these hours must reach the table before it is recomputed, or they would be added twice
+        accumulator.flush();
+        int written = transactionTemplate.execute(status -> replace(start, end));
+        logger.info("Rebuilt {} sales rollups from {} to {}", written, start, end);
+        return written;
+    }
+
+    // Runs before the web server and the schedulers start, so no order changes while the history is
+    // summed and nothing is accumulated that the backfill also counts
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backfillOnStartup) {
+            backfill();
+        }
+    }
+
+    public void backfill() {
+        if (salesRollupRepository.count() > 0) {
+            return;
+        }
+        // Up to now rather than the last closed hour: nothing has been accumulated for an empty table yet
+        int written = transactionTemplate.execute(status -> replace(EARLIEST, LocalDateTime.now()));
+        logger.info("Backfilled {} sales rollups from order history", written);
+    }
+
+    private int replace(LocalDateTime start, LocalDateTime end) {
+        salesRollupRepository.deleteInRange(start, end);
+        Map<LocalDateTime, Map<Long, SalesRollup>> rollups = new HashMap<>();
+        for (HourlySales sales : concat(orderRepository.sumSingleItemOrdersPlacedByHour(start, end),
+                orderLineRepository.sumLinesPlacedByHour(start, end),
+                archivedOrderRepository.sumSingleItemOrdersPlacedByHour(start, end),
+                archivedOrderLineRepository.sumLinesPlacedByHour(start, end))) {
+            rollupFor(rollups, sales).addPlaced(sales.getOrders(), sales.getUnits());
+        }
+        for (HourlySales sales : concat(
+                orderRepository.sumSingleItemOrdersReachingStatusByHour(OrderStatus.PAID, start, end),
+                orderLineRepository.sumLinesReachingStatusByHour(OrderStatus.PAID, start, end),
+                archivedOrderRepository.sumSingleItemOrdersReachingStatusByHour(OrderStatus.PAID, start, end),
+                archivedOrderLineRepository.sumLinesReachingStatusByHour(OrderStatus.PAID, start, end))) {
+            rollupFor(rollups, sales).addPaid(sales.getOrders(), sales.getUnits(), sales.getAmount());
+        }
+        for (HourlySales sales : concat(
+                orderRepository.sumSingleItemOrdersReachingStatusByHour(OrderStatus.CANCELLED, start, end),
+                orderLineRepository.sumLinesReachingStatusByHour(OrderStatus.CANCELLED, start, end),
+                archivedOrderRepository.sumSingleItemOrdersReachingStatusByHour(OrderStatus.CANCELLED, start, end),
+                archivedOrderLineRepository.sumLinesReachingStatusByHour(OrderStatus.CANCELLED, start, end))) {
+            rollupFor(rollups, sales).addCancelled(sales.getOrders(), sales.getUnits());
+        }
+
+        List<SalesRollup> rows = new ArrayList<>();
+        rollups.values().forEach(items -> rows.addAll(items.values()));
+        salesRollupRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    private static SalesRollup rollupFor(Map<LocalDateTime, Map<Long, SalesRollup>> rollups, HourlySales sales) {
+        LocalDateTime bucketStart = LocalDateTime.of(sales.getBucketYear(), sales.getBucketMonth(),
+                sales.getBucketDay(), sales.getBucketHour(), 0);
+        return rollups.computeIfAbsent(bucketStart, start -> new HashMap<>())
+                .computeIfAbsent(sales.getMenuItemId(), id -> new SalesRollup(bucketStart, id));
+    }
+
+    // A menu item's orders of an hour may come from several sources; rollupFor adds them up
+    @SafeVarargs
+    private static List<HourlySales> concat(List<HourlySales>... sources) {
+        List<HourlySales> all = new ArrayList<>();
+        for (List<HourlySales> source : sources) {
+            all.addAll(source);
+        }
+        return all;
+    }
+}
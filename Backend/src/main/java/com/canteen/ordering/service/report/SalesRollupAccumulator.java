@@ -0,0 +1,160 @@
+package com.canteen.ordering.service.report;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.entity.SalesRollup;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.SalesRollupRepository;
+import com.canteen.ordering.service.MenuItemService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for {@code sales_rollups}: committed order transitions are added to in-memory deltas per
+ * hour and menu item, and {@link #flush()} adds those to the table in one transaction on a timer and on
+ * shutdown. A busy hour then costs one row update per item per flush instead of one per order.
+ * <p>
+ * Deltas not yet flushed are lost if the process dies; {@code SalesReportService.rebuild} recomputes
+ * closed hours from the orders themselves.
+ */
+@Component
+public class SalesRollupAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupAccumulator.class);
+
+    private final Map<Key, SalesRollup> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        LocalDateTime bucketStart = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        OrderStatus status = event.getNewStatus();
+        event.getItemQuantities().forEach((menuItemId, quantity) -> {
+            BigDecimal revenue = status == OrderStatus.PAID ? amountOf(event, menuItemId, quantity) : null;
+            // compute runs atomically per key, so the delta is never updated and flushed at once
+            pending.compute(new Key(bucketStart, menuItemId), (key, delta) -> {
+                SalesRollup rollup = delta != null ? delta : new SalesRollup(bucketStart, menuItemId);
+                if (event.getPreviousStatus() == null) {
+                    rollup.addPlaced(1, quantity);
+                }
+                if (status == OrderStatus.PAID) {
+                    rollup.addPaid(1, quantity, revenue);
+                } else if (status == OrderStatus.CANCELLED) {
+                    rollup.addCancelled(1, quantity);
+                }
+                return rollup;
+            });
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.reports.rollup.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        // Sorted so concurrent flushers on other nodes lock rollup rows in the same order
+        Map<Key, SalesRollup> deltas = new TreeMap<>(Key.ORDER);
+        for (Key key : pending.keySet()) {
+            SalesRollup delta = pending.remove(key);
+            if (delta != null) {
+                deltas.put(key, delta);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.values().forEach(this::write));
+            logger.debug("Flushed sales rollup deltas for {} hour/item buckets", deltas.size());
+        } catch (RuntimeException e) {
+            // Includes another node inserting the same bucket first; the retry then finds the row
+            logger.error("Error flushing sales rollups, will retry {} deltas on next flush", deltas.size(), e);
+            deltas.forEach((key, delta) -> pending.merge(key, delta, (current, failed) -> {
+                current.add(failed);
+                return current;
+            }));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Flushing sales rollups before shutdown");
+        flush();
+    }
+
+    private void write(SalesRollup delta) {
+        int updated = salesRollupRepository.addToBucket(delta.getBucketStart(), delta.getMenuItemId(),
+                delta.getOrders(), delta.getUnits(), delta.getPaidOrders(), delta.getPaidUnits(),
+                delta.getPaidRevenue(), delta.getCancelledOrders(), delta.getCancelledUnits());
+        if (updated == 0) {
+            // A fresh row, so a delta kept for retry never carries the id of a rolled-back insert
+            SalesRollup rollup = new SalesRollup(delta.getBucketStart(), delta.getMenuItemId());
+            rollup.add(delta);
+            salesRollupRepository.save(rollup);
+        }
+    }
+
+    private BigDecimal amountOf(OrderStatusChangedEvent event, Long menuItemId, int quantity) {
+        if (event.getItemAmounts() != null && event.getItemAmounts().containsKey(menuItemId)) {
+            return event.getItemAmounts().get(menuItemId);
+        }
+        // Single-item orders are charged the menu item's price, which the metadata cache already holds
+        return menuItemService.getMenuItemMetadata(menuItemId)
+                .map(MenuItemMetadata::getPrice)
+                .map(price -> price.multiply(BigDecimal.valueOf(quantity)))
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private static final class Key {
+
+        static final Comparator<Key> ORDER = Comparator.comparing((Key key) -> key.bucketStart)
+                .thenComparing(key -> key.menuItemId);
+
+        final LocalDateTime bucketStart;
+        final Long menuItemId;
+
+        Key(LocalDateTime bucketStart, Long menuItemId) {
+            this.bucketStart = bucketStart;
+            this.menuItemId = menuItemId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return bucketStart.equals(other.bucketStart) && menuItemId.equals(other.menuItemId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bucketStart, menuItemId);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.canteen.ordering.service.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index over menu item names for case-insensitive substring search.
+ * <p>
+ * Every name is lowercased and split into overlapping three-character grams. A query of three or
+ * more characters only looks at the names that contain all of its trigrams, starting from the
+ * rarest one, and then confirms the substring match; shorter queries fall back to scanning the
+ * names in memory, which is still far cheaper than a {@code LIKE '%x%'} round trip. Matches are
+ * ranked exact name first, then name prefix, then word prefix, then any substring; ties go to the
+ * shorter name.
+ * <p>
+ * Lookups happen on every keystroke while writes only happen when the menu is edited, so a
+ * read/write lock keeps readers concurrent and each update atomic.
+ */
+public class MenuSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a menu item, or replaces its name if it is already indexed.
+     */
+    public void put(Long menuItemId, String name) {
+        String normalized = normalize(name);
+        lock.writeLock().lock();
+        try {
+            String previous = names.put(menuItemId, normalized);
+            if (previous != null) {
+                unindex(menuItemId, previous);
+            }
+            for (String gram : trigrams(normalized)) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(menuItemId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long menuItemId) {
+        lock.writeLock().lock();
+        try {
+            String previous = names.remove(menuItemId);
+            if (previous != null) {
+                unindex(menuItemId, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given id to name mapping.
+     */
+    public void rebuild(Map<Long, String> menuItemNames) {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+            menuItemNames.forEach((id, name) -> {
+                String normalized = normalize(name);
+                names.put(id, normalized);
+                for (String gram : trigrams(normalized)) {
+                    postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the menu items whose name contains {@code query}, best match first.
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : candidates(normalized)) {
+                String name = names.get(id);
+                int rank = rank(name, normalized);
+                if (rank >= 0) {
+                    matches.add(new Match(id, name, rank));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparingInt((Match match) -> match.rank)
+                .thenComparingInt(match -> match.name.length())
+                .thenComparing(match -> match.name)
+                .thenComparing(match -> match.id));
+        List<Long> ids = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i = 0; i < matches.size() && i < limit; i++) {
+            ids.add(matches.get(i).id);
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the read lock
+    private Set<Long> candidates(String query) {
+        if (query.length() < GRAM) {
+            return names.keySet();
+        }
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : trigrams(query)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            lists.add(posting);
+        }
+        // Intersect from the rarest trigram so the working set starts, and stays, small
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    // Caller holds the write lock
+    private void unindex(Long menuItemId, String name) {
+        for (String gram : trigrams(name)) {
+            Set<Long> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(menuItemId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 0 exact, 1 name prefix, 2 word prefix, 3 other substring, -1 no match
+     */
+    private static int rank(String name, String query) {
+        int index = name.indexOf(query);
+        if (index < 0) {
+            return -1;
+        }
+        if (index == 0) {
+            return name.length() == query.length() ? 0 : 1;
+        }
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(name.charAt(index - 1))) {
+                return 2;
+            }
+            index = name.indexOf(query, index + 1);
+        }
+        return 3;
+    }
+
+    private static Set<String> trigrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Match {
+        final Long id;
+        final String name;
+        final int rank;
+
+        Match(Long id, String name, int rank) {
+            this.id = id;
+            this.name = name;
+            this.rank = rank;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.canteen.ordering.service.search;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.event.MenuItemChangedEvent;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a {@link MenuSearchIndex} in step with the menu: loaded from the database once the
+ * application is ready, then updated from {@link MenuItemChangedEvent}s as edits commit.
+ */
+@Component
+public class MenuSearchIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuSearchIndexer.class);
+
+    private final MenuSearchIndex index = new MenuSearchIndex();
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, String> menuItemNames = new HashMap<>();
+        for (MenuItem menuItem : menuItemRepository.findAll()) {
+            menuItemNames.put(menuItem.getId(), menuItem.getName());
+        }
+        index.rebuild(menuItemNames);
+        logger.info("Indexed {} menu item names for search", menuItemNames.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMenuItemChanged(MenuItemChangedEvent event) {
+        if (event.isDeleted()) {
+            index.remove(event.getMenuItemId());
+        } else {
+            index.put(event.getMenuItemId(), event.getName());
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        return index.search(query, limit);
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks and decrements in one guarded statement
+ * ({@code UPDATE ... SET stock_count = stock_count - ? WHERE id = ? AND stock_count >= ?}),
+ * so there is no read round trip and the row lock is held only for the UPDATE itself
+ * rather than across a read-modify-write.
+ */
+@Component
+@ConditionalOnProperty(name = "app.stock.locking", havingValue = "conditional")
+public class ConditionalUpdateStockLockingStrategy implements StockLockingStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConditionalUpdateStockLockingStrategy.class);
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Override
+    public boolean decrement(Long menuItemId, int quantity) {
+        if (menuItemRepository.decrementStockIfAvailable(menuItemId, quantity) == 1) {
+            logger.info("Successfully decremented stock for menu item id: {}", menuItemId);
+            return true;
+        }
+        logger.warn("Insufficient stock or unknown menu item id: {}. Requested: {}", menuItemId, quantity);
+        return false;
+    }
+
+    @Override
+    public boolean restore(Long menuItemId, int quantity) {
+        if (menuItemRepository.adjustStock(menuItemId, quantity) == 1) {
+            logger.info("Successfully restored stock for menu item id: {}", menuItemId);
+            return true;
+        }
+        logger.error("Menu item not found with id: {}", menuItemId);
+        return false;
+    }
+}
@@ -0,0 +1,128 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reads without locking and writes with a {@code @Version} check, retrying up to
+ * {@code app.stock.optimistic.max-attempts} times when another writer got there first.
+ * <p>
+ * A failed version check marks its transaction rollback-only, so each attempt runs in its own
+ * {@code REQUIRES_NEW} transaction and a successful decrement is compensated if the caller's
+ * transaction later rolls back. This briefly needs a second pooled connection per caller.
+ */
+@Component
+@ConditionalOnProperty(name = "app.stock.locking", havingValue = "optimistic")
+public class OptimisticStockLockingStrategy implements StockLockingStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticStockLockingStrategy.class);
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.stock.optimistic.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.stock.optimistic.backoff-ms:5}")
+    private long backoffMillis;
+
+    private TransactionTemplate attemptTemplate;
+
+    @PostConstruct
+    public void init() {
+        attemptTemplate = new TransactionTemplate(transactionManager);
+        attemptTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean decrement(Long menuItemId, int quantity) {
+        boolean decremented = withRetry(menuItemId, () -> {
+            Optional<MenuItem> menuItemOpt = menuItemRepository.findById(menuItemId);
+            if (!menuItemOpt.isPresent()) {
+                logger.error("Menu item not found with id: {}", menuItemId);
+                return false;
+            }
+            MenuItem menuItem = menuItemOpt.get();
+            if (menuItem.getStockCount() < quantity) {
+                logger.warn("Insufficient stock for menu item: {}. Available: {}, Requested: {}",
+                           menuItem.getName(), menuItem.getStockCount(), quantity);
+                return false;
+            }
+            menuItem.setStockCount(menuItem.getStockCount() - quantity);
+            menuItemRepository.saveAndFlush(menuItem);
+            return true;
+        });
+
+        if (decremented) {
+            TransactionCompensations.onRollback(() -> restore(menuItemId, quantity));
+        }
+        return decremented;
+    }
+
+    @Override
+    public boolean restore(Long menuItemId, int quantity) {
+        return withRetry(menuItemId, () -> {
+            Optional<MenuItem> menuItemOpt = menuItemRepository.findById(menuItemId);
+            if (!menuItemOpt.isPresent()) {
+                logger.error("Menu item not found with id: {}", menuItemId);
+                return false;
+            }
+            MenuItem menuItem = menuItemOpt.get();
+            menuItem.setStockCount(menuItem.getStockCount() + quantity);
+            menuItemRepository.saveAndFlush(menuItem);
+            return true;
+        });
+    }
+
+    private boolean withRetry(Long menuItemId, StockAttempt attempt) {
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return Boolean.TRUE.equals(attemptTemplate.execute(status -> attempt.run()));
+            } catch (ObjectOptimisticLockingFailureException e) {
+                if (attemptNumber >= maxAttempts) {
+                    throw new RuntimeException("Stock for menu item id: " + menuItemId
+                            + " is being updated concurrently, gave up after " + maxAttempts + " attempts");
+                }
+                logger.debug("Version conflict on menu item id: {}, attempt {} of {}",
+                            menuItemId, attemptNumber, maxAttempts);
+                backoff(attemptNumber);
+            }
+        }
+    }
+
+    private void backoff(int attemptNumber) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        // Jittered so that writers that collided once do not collide again in lockstep
+        long delay = ThreadLocalRandom.current().nextLong(backoffMillis * attemptNumber + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying stock update", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StockAttempt {
+        boolean run();
+    }
+}
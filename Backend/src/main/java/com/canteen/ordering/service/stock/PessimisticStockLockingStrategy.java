@@ -0,0 +1,63 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Reads the row with {@code SELECT ... FOR UPDATE} and holds the lock until the caller's
+ * transaction ends. Simple and always correct, but every buyer of the same item queues on one row.
+ */
+@Component
+@ConditionalOnProperty(name = "app.stock.locking", havingValue = "pessimistic", matchIfMissing = true)
+public class PessimisticStockLockingStrategy implements StockLockingStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(PessimisticStockLockingStrategy.class);
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Override
+    public boolean decrement(Long menuItemId, int quantity) {
+        Optional<MenuItem> menuItemOpt = menuItemRepository.findByIdWithLock(menuItemId);
+
+        if (menuItemOpt.isPresent()) {
+            MenuItem menuItem = menuItemOpt.get();
+            if (menuItem.getStockCount() >= quantity) {
+                menuItem.setStockCount(menuItem.getStockCount() - quantity);
+                menuItemRepository.save(menuItem);
+                logger.info("Successfully decremented stock for menu item: {}", menuItem.getName());
+                return true;
+            } else {
+                logger.warn("Insufficient stock for menu item: {}. Available: {}, Requested: {}",
+                           menuItem.getName(), menuItem.getStockCount(), quantity);
+                return false;
+            }
+        } else {
+            logger.error("Menu item not found with id: {}", menuItemId);
+            return false;
+        }
+    }
+
+    @Override
+    public boolean restore(Long menuItemId, int quantity) {
+        Optional<MenuItem> menuItemOpt = menuItemRepository.findByIdWithLock(menuItemId);
+
+        if (menuItemOpt.isPresent()) {
+            MenuItem menuItem = menuItemOpt.get();
+            menuItem.setStockCount(menuItem.getStockCount() + quantity);
+            menuItemRepository.save(menuItem);
+            logger.info("Successfully restored stock for menu item: {}", menuItem.getName());
+            return true;
+        } else {
+            logger.error("Menu item not found with id: {}", menuItemId);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.StockContention;
+import com.canteen.ordering.service.MenuItemService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/stockcontention[?limit=n]}: the menu items whose stock locks were waited on
+ * longest over the profiler's window, so the items that need special handling during a rush stand out.
+ */
+@Component
+@Endpoint(id = "stockcontention")
+public class StockContentionEndpoint {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    @Autowired
+    private StockContentionProfiler profiler;
+
+    @Autowired
+    private MenuItemService menuItemService;
+
+    @ReadOperation
+    public Map<String, Object> contention(@Nullable Integer limit) {
+        int top = limit == null || limit < 1 ? DEFAULT_LIMIT : limit;
+        // Names come from the menu item cache
+        List<StockContention> items = profiler.top(top, menuItemId ->
+                menuItemService.getMenuItemMetadata(menuItemId).map(MenuItemMetadata::getName).orElse(null));
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("windowSeconds", profiler.getWindowSeconds());
+        report.put("items", items);
+        return report;
+    }
+}
@@ -0,0 +1,212 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.dto.StockContention;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Records, per menu item, how long stock decrements wait for the item's lock, how long the lock is
+ * then held, how many requests queue for it and how many attempts fail, over a sliding window.
+ * <p>
+ * Wait time runs from the request arriving at {@code MenuItemService.decrementStock} until the locking
+ * strategy returns, so it includes the read/update round trip that takes the lock. Hold time runs from
+ * there until the surrounding transaction completes, since that is when a row lock is released. The
+ * window is a ring of time buckets: recording touches only the current bucket, and a bucket is
+ * replaced rather than cleared once it falls out of the window. With {@code app.stock.contention.enabled=false}
+ * {@link #enter} returns null and nothing is recorded.
+ */
+@Component
+public class StockContentionProfiler {
+
+    // Requests currently waiting for each item's lock; entries stay once created, one per menu item
+    private final Map<Long, AtomicInteger> waiting = new ConcurrentHashMap<>();
+
+    private AtomicReferenceArray<Bucket> buckets;
+    private long bucketMillis;
+
+    @Value("${app.stock.contention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.stock.contention.window-seconds:60}")
+    private long windowSeconds;
+
+    @Value("${app.stock.contention.buckets:6}")
+    private int bucketCount;
+
+    @PostConstruct
+    public void init() {
+        buckets = new AtomicReferenceArray<>(bucketCount);
+        bucketMillis = Math.max(1, TimeUnit.SECONDS.toMillis(windowSeconds) / bucketCount);
+    }
+
+    /**
+     * Marks a request as queued for the item's lock.
+     *
+     * @return the attempt to pass to {@link #exit}, or null when profiling is disabled
+     */
+    public Attempt enter(Long menuItemId) {
+        if (!enabled) {
+            return null;
+        }
+        int depth = waiting.computeIfAbsent(menuItemId, id -> new AtomicInteger()).incrementAndGet();
+        return new Attempt(menuItemId, depth, System.nanoTime());
+    }
+
+    /**
+     * Records the wait of an attempt that has left the lock queue, and starts timing how long the lock is
+     * held. Accepts null so callers need not check whether profiling is enabled.
+     */
+    public void exit(Attempt attempt, boolean succeeded) {
+        if (attempt == null) {
+            return;
+        }
+        long acquiredAt = System.nanoTime();
+        waiting.get(attempt.menuItemId).decrementAndGet();
+        Stats stats = currentStats(attempt.menuItemId);
+        stats.acquisitions.increment();
+        if (!succeeded) {
+            stats.failures.increment();
+        }
+        stats.maxQueueDepth.accumulate(attempt.queueDepth);
+        long waitNanos = acquiredAt - attempt.startNanos;
+        stats.waitNanos.add(waitNanos);
+        stats.maxWaitNanos.accumulate(waitNanos);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    recordHold(stats, System.nanoTime() - acquiredAt);
+                }
+            });
+        } else {
+            // No transaction to outlive the call: the lock went with the statement
+            recordHold(stats, 0);
+        }
+    }
+
+    /**
+     * The {@code limit} items with the most total lock wait in the window, highest first.
+     */
+    public List<StockContention> top(int limit, Function<Long, String> names) {
+        long currentEpoch = epoch();
+        Map<Long, Totals> totals = new HashMap<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket == null || bucket.epoch <= currentEpoch - buckets.length()) {
+                continue;
+            }
+            bucket.stats.forEach((menuItemId, stats) ->
+                    totals.computeIfAbsent(menuItemId, id -> new Totals()).add(stats));
+        }
+        List<StockContention> items = new ArrayList<>(totals.size());
+        totals.forEach((menuItemId, total) -> {
+            AtomicInteger waitingNow = waiting.get(menuItemId);
+            items.add(new StockContention(menuItemId, names.apply(menuItemId), total.acquisitions, total.failures,
+                    waitingNow == null ? 0 : waitingNow.get(), (int) total.maxQueueDepth,
+                    millis(total.waitNanos), millis(total.maxWaitNanos),
+                    millis(total.holdNanos), millis(total.maxHoldNanos)));
+        });
+        items.sort(Comparator.comparingDouble(StockContention::getTotalWaitMs).reversed());
+        return items.size() > limit ? new ArrayList<>(items.subList(0, limit)) : items;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    private static void recordHold(Stats stats, long holdNanos) {
+        stats.holdNanos.add(holdNanos);
+        stats.maxHoldNanos.accumulate(holdNanos);
+    }
+
+    private Stats currentStats(Long menuItemId) {
+        long currentEpoch = epoch();
+        int slot = (int) (currentEpoch % buckets.length());
+        Bucket bucket = buckets.get(slot);
+        while (bucket == null || bucket.epoch < currentEpoch) {
+            Bucket fresh = new Bucket(currentEpoch);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                bucket = fresh;
+                break;
+            }
+            bucket = buckets.get(slot);
+        }
+        return bucket.stats.computeIfAbsent(menuItemId, id -> new Stats());
+    }
+
+    private long epoch() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public static final class Attempt {
+        private final Long menuItemId;
+        private final int queueDepth;
+        private final long startNanos;
+
+        Attempt(Long menuItemId, int queueDepth, long startNanos) {
+            this.menuItemId = menuItemId;
+            this.queueDepth = queueDepth;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private static final class Bucket {
+        final long epoch;
+        final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+
+        Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class Stats {
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder waitNanos = new LongAdder();
+        final LongAdder holdNanos = new LongAdder();
+        final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        final LongAccumulator maxHoldNanos = new LongAccumulator(Math::max, 0);
+        final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    }
+
+    private static final class Totals {
+        long acquisitions;
+        long failures;
+        long waitNanos;
+        long maxWaitNanos;
+        long holdNanos;
+        long maxHoldNanos;
+        long maxQueueDepth;
+
+        void add(Stats stats) {
+            acquisitions += stats.acquisitions.sum();
+            failures += stats.failures.sum();
+            waitNanos += stats.waitNanos.sum();
+            maxWaitNanos = Math.max(maxWaitNanos, stats.maxWaitNanos.get());
+            holdNanos += stats.holdNanos.sum();
+            maxHoldNanos = Math.max(maxHoldNanos, stats.maxHoldNanos.get());
+            maxQueueDepth = Math.max(maxQueueDepth, stats.maxQueueDepth.get());
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.MenuVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory, authoritative stock counters used when {@code app.stock.mode=ledger}.
+ * <p>
+ * Each menu item gets its own pair of atomics, so decrements and restores for different
+ * items never contend and decrements for the same item are a CAS loop instead of a row lock.
+ * Net changes are written back to {@code menu_items.stock_count} in batches by {@link #flush()}
+ * on a timer and on shutdown. Counters are recovered from the database on startup, and lazily
+ * for items the ledger has not seen yet.
+ * <p>
+ * A counter remembers the row version its stock was read at. The flush only applies a delta while
+ * the row is still at that version, so once an admin write has replaced the stock (and
+ * {@link #resetAfterCommit(MenuItem)} the counter), deltas taken from the old counter are dropped
+ * instead of being added on top of the new absolute value.
+ */
+@Component
+@ConditionalOnProperty(name = "app.stock.mode", havingValue = "ledger")
+public class StockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockLedger.class);
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MenuVersion menuVersion;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        counters.clear();
+        // A read-write transaction keeps this on the primary; a lagging read replica would seed stale counts
+        transactionTemplate.executeWithoutResult(status -> {
+            for (MenuItem menuItem : menuItemRepository.findAll()) {
+                counters.put(menuItem.getId(), new Counter(menuItem.getStockCount(), menuItem.getVersion()));
+            }
+        });
+        logger.info("Recovered stock ledger for {} menu items", counters.size());
+    }
+
+    public boolean tryDecrement(Long menuItemId, int quantity) {
+        Counter counter = counterFor(menuItemId);
+        if (counter == null || !counter.tryTake(quantity)) {
+            return false;
+        }
+        // The order insert may still fail; give the units back if the caller's transaction rolls back
+        TransactionCompensations.onRollback(() -> counter.give(quantity));
+        return true;
+    }
+
+    public boolean restore(Long menuItemId, int quantity) {
+        Counter counter = counterFor(menuItemId);
+        if (counter == null) {
+            return false;
+        }
+        counter.give(quantity);
+        TransactionCompensations.onRollback(() -> counter.take(quantity));
+        return true;
+    }
+
+    public Optional<Integer> getAvailable(Long menuItemId) {
+        Counter counter = counterFor(menuItemId);
+        return counter == null ? Optional.empty() : Optional.of(counter.stock.get());
+    }
+
+    /**
+     * Replaces the counter for an item after an absolute stock write (create or admin update).
+     * Any unflushed delta is discarded because the absolute value already supersedes it.
+     */
+    public void reset(Long menuItemId, int stockCount, long version) {
+        counters.put(menuItemId, new Counter(stockCount, version));
+    }
+
+    /**
+     * Resets the counter from the written menu item once the surrounding transaction commits, or
+     * immediately if there is none. A rolled-back write leaves the counter alone; the stock and
+     * version are read after the commit, when Hibernate has bumped the version.
+     */
+    public void resetAfterCommit(MenuItem menuItem) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reset(menuItem.getId(), menuItem.getStockCount(), menuItem.getVersion());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reset(menuItem.getId(), menuItem.getStockCount(), menuItem.getVersion());
+            }
+        });
+    }
+
+    public void remove(Long menuItemId) {
+        counters.remove(menuItemId);
+    }
+
+    // Synchronized so the shutdown flush cannot interleave with a scheduled one; each counter's
+    // version is only advanced here
+    @Scheduled(fixedDelayString = "${app.stock.ledger.flush-interval-ms:500}")
+    public synchronized void flush() {
+        Map<Long, Counter> flushing = new TreeMap<>();
+        Map<Long, Integer> deltas = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            int delta = counter.unflushed.getAndSet(0);
+            if (delta != 0) {
+                flushing.put(id, counter);
+                deltas.put(id, delta);
+            }
+        });
+
+        if (flushing.isEmpty()) {
+            return;
+        }
+
+        Set<Long> applied = new HashSet<>();
+        try {
+            // Sorted by id so concurrent flushers and row-locking writers always lock in the same order
+            transactionTemplate.executeWithoutResult(status -> flushing.forEach((id, counter) -> {
+                if (menuItemRepository.adjustStockAtVersion(id, deltas.get(id), counter.version) == 1) {
+                    applied.add(id);
+                }
+            }));
+        } catch (RuntimeException e) {
+            logger.error("Error flushing stock ledger, will retry {} deltas on next flush", flushing.size(), e);
+            // Back onto the counter the delta was taken from; if that counter has since been reset the
+            // delta goes with it
+            flushing.forEach((id, counter) -> counter.unflushed.addAndGet(deltas.get(id)));
+            return;
+        }
+
+        flushing.forEach((id, counter) -> {
+            if (applied.contains(id)) {
+                counter.version++;
+            } else {
+                logger.debug("Dropped stock delta {} for menu item {}, superseded by a newer write",
+                        deltas.get(id), id);
+            }
+        });
+        // Menu listings read the database, so they only change now that the deltas are committed
+        menuVersion.bump();
+        logger.debug("Flushed stock ledger deltas for {} menu items", applied.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Flushing stock ledger before shutdown");
+        flush();
+    }
+
+    // Loaded outside the map so the database round trip does not hold a map bin lock; if another
+    // thread or a reset got there first, its counter wins
+    private Counter counterFor(Long menuItemId) {
+        Counter counter = counters.get(menuItemId);
+        if (counter != null) {
+            return counter;
+        }
+        Optional<MenuItem> menuItem = menuItemRepository.findById(menuItemId);
+        if (!menuItem.isPresent()) {
+            return null;
+        }
+        Counter loaded = new Counter(menuItem.get().getStockCount(), menuItem.get().getVersion());
+        Counter existing = counters.putIfAbsent(menuItemId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    static final class Counter {
+
+        final AtomicInteger stock;
+        final AtomicInteger unflushed = new AtomicInteger();
+        // Row version the stock above corresponds to, net of the deltas flushed since
+        volatile long version;
+
+        Counter(int stock, long version) {
+            this.stock = new AtomicInteger(stock);
+            this.version = version;
+        }
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = stock.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!stock.compareAndSet(current, current - quantity));
+            unflushed.addAndGet(-quantity);
+            return true;
+        }
+
+        void take(int quantity) {
+            stock.addAndGet(-quantity);
+            unflushed.addAndGet(-quantity);
+        }
+
+        void give(int quantity) {
+            stock.addAndGet(quantity);
+            unflushed.addAndGet(quantity);
+        }
+    }
+}
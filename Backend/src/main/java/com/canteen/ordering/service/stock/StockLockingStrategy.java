@@ -0,0 +1,21 @@
+package com.canteen.ordering.service.stock;
+
+/**
+ * How {@code MenuItemService} serializes concurrent writes to {@code menu_items.stock_count}.
+ * <p>
+ * Exactly one implementation is active per deployment, selected with {@code app.stock.locking}:
+ * {@code pessimistic} (default), {@code optimistic} or {@code conditional}. Implementations run
+ * inside the caller's transaction and must leave stock untouched if that transaction rolls back.
+ */
+public interface StockLockingStrategy {
+
+    /**
+     * @return true if the item exists and had at least {@code quantity} units, which are now taken
+     */
+    boolean decrement(Long menuItemId, int quantity);
+
+    /**
+     * @return true if the item exists and {@code quantity} units were added back
+     */
+    boolean restore(Long menuItemId, int quantity);
+}
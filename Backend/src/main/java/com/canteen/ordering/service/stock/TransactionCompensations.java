@@ -0,0 +1,29 @@
+package com.canteen.ordering.service.stock;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Stock engines that change stock outside the caller's transaction (the in-memory ledger,
+ * or optimistic attempts committed in their own transaction) register an undo step here,
+ * so a rolled-back order does not keep the units it reserved.
+ */
+final class TransactionCompensations {
+
+    private TransactionCompensations() {
+    }
+
+    static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+}
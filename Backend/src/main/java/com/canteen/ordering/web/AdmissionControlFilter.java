@@ -0,0 +1,111 @@
+package com.canteen.ordering.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client admission control for the menu and order endpoints, so one kiosk or script cannot take
+ * every database connection.
+ * <p>
+ * Runs ahead of the other application filters, behind only the CORS filter so the browser can read a
+ * 429. A client is its API key header when it sends one of the keys listed in
+ * {@code app.admission.api-keys}, otherwise its remote address (set
+ * {@code server.forward-headers-strategy} when running behind a proxy). Unknown keys are ignored, so
+ * rotating made-up keys does not earn a script fresh buckets. A request over its client's limit is
+ * answered 429 with {@code Retry-After} here, before it reaches a controller, a transaction or the
+ * connection pool. Requests outside the limited routes pass through untouched.
+ */
+@Component
+@Order(AdmissionControlFilter.ORDER)
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final String MENU_PATH = "/api/menu";
+    private static final String ORDERS_PATH = "/api/orders";
+
+    // Absent when app.admission.enabled=false, and in web slice tests
+    @Autowired
+    private ObjectProvider<ClientRateLimiter> clientRateLimiter;
+
+    @Value("${app.admission.api-key-header:X-API-Key}")
+    private String apiKeyHeader;
+
+    @Value("${app.admission.api-keys:}")
+    private String[] apiKeys;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ClientRateLimiter limiter = clientRateLimiter.getIfAvailable();
+        ClientRateLimiter.Route route = limiter != null ? route(request) : null;
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String client = client(request);
+        long waitNanos = limiter.tryAcquire(route, client);
+        if (waitNanos > 0) {
+            long second = TimeUnit.SECONDS.toNanos(1);
+            long retryAfterSeconds = Math.max(1, (waitNanos + second - 1) / second);
+            logger.debug("Client {} is over its {} limit, retry after {}s", client, route, retryAfterSeconds);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    static ClientRateLimiter.Route route(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        if (isUnder(path, MENU_PATH)) {
+            return "GET".equals(method) ? ClientRateLimiter.Route.MENU_READS : null;
+        }
+        if (isUnder(path, ORDERS_PATH)) {
+            if ("GET".equals(method)) {
+                return ClientRateLimiter.Route.ORDER_HISTORY;
+            }
+            return "POST".equals(method) ? ClientRateLimiter.Route.ORDER_MUTATIONS : null;
+        }
+        return null;
+    }
+
+    private String client(HttpServletRequest request) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        // Prefixed so an API key can never share a bucket with an address
+        return apiKey != null && isConfiguredKey(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private boolean isConfiguredKey(String apiKey) {
+        for (String key : apiKeys) {
+            String trimmed = key.trim();
+            if (!trimmed.isEmpty() && trimmed.equals(apiKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isUnder(String path, String prefix) {
+        return path.equals(prefix) || path.startsWith(prefix + "/");
+    }
+}
@@ -0,0 +1,133 @@
+package com.canteen.ordering.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client {@link TokenBucket}s, one set per {@link Route}, each route with its own rate and burst
+ * under {@code app.admission.<route>.*}.
+ * <p>
+ * Buckets live in {@link ConcurrentHashMap}s, which lock only per bin on insert and not at all on
+ * lookup, so admitting a known client never blocks. A client's bucket is created on its first request
+ * and dropped by {@link #evictIdle()} once it has sat full for {@code app.admission.idle-eviction-ms};
+ * a returning client simply starts with a full bucket, which is what it would have had anyway.
+ * <p>
+ * Each route tracks at most {@code app.admission.max-clients} clients. Once that many have buckets,
+ * further clients share one overflow bucket for the route until eviction makes room, so a flood of
+ * new addresses is limited as a whole and cannot grow the maps without bound.
+ */
+@Component
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class ClientRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClientRateLimiter.class);
+
+    public enum Route {
+        /** GET /api/menu/** */
+        MENU_READS,
+        /** GET /api/orders/**: listings, history, export, single orders and ticket polls */
+        ORDER_HISTORY,
+        /** POST /api/orders/**: create, checkout, pay and cancel */
+        ORDER_MUTATIONS
+    }
+
+    private final Map<Route, Map<String, TokenBucket>> buckets = new EnumMap<>(Route.class);
+    private final Map<Route, Limit> limits = new EnumMap<>(Route.class);
+    private final Map<Route, TokenBucket> overflowBuckets = new EnumMap<>(Route.class);
+
+    @Value("${app.admission.menu-reads.rate-per-second:20}")
+    private double menuReadsRate;
+
+    @Value("${app.admission.menu-reads.burst:50}")
+    private int menuReadsBurst;
+
+    @Value("${app.admission.order-history.rate-per-second:5}")
+    private double orderHistoryRate;
+
+    @Value("${app.admission.order-history.burst:20}")
+    private int orderHistoryBurst;
+
+    @Value("${app.admission.order-mutations.rate-per-second:5}")
+    private double orderMutationsRate;
+
+    @Value("${app.admission.order-mutations.burst:10}")
+    private int orderMutationsBurst;
+
+    @Value("${app.admission.idle-eviction-ms:600000}")
+    private long idleEvictionMillis;
+
+    @Value("${app.admission.max-clients:10000}")
+    private int maxClients;
+
+    @PostConstruct
+    public void init() {
+        limits.put(Route.MENU_READS, new Limit(menuReadsRate, menuReadsBurst));
+        limits.put(Route.ORDER_HISTORY, new Limit(orderHistoryRate, orderHistoryBurst));
+        limits.put(Route.ORDER_MUTATIONS, new Limit(orderMutationsRate, orderMutationsBurst));
+        long now = System.nanoTime();
+        for (Route route : Route.values()) {
+            buckets.put(route, new ConcurrentHashMap<>());
+            Limit limit = limits.get(route);
+            overflowBuckets.put(route, new TokenBucket(limit.ratePerSecond, limit.burst, now));
+        }
+    }
+
+    /**
+     * Takes a token from {@code client}'s bucket for {@code route}.
+     *
+     * @return 0 if the request may proceed, otherwise the nanoseconds until the client may try again
+     */
+    public long tryAcquire(Route route, String client) {
+        long now = System.nanoTime();
+        Map<String, TokenBucket> routeBuckets = buckets.get(route);
+        TokenBucket bucket = routeBuckets.get(client);
+        if (bucket == null) {
+            // Checked without locking, so a burst of new clients can overshoot the cap by a few entries
+            if (routeBuckets.size() >= maxClients) {
+                return overflowBuckets.get(route).tryTake(now);
+            }
+            Limit limit = limits.get(route);
+            bucket = routeBuckets.computeIfAbsent(client, key -> new TokenBucket(limit.ratePerSecond, limit.burst, now));
+        }
+        return bucket.tryTake(now);
+    }
+
+    @Scheduled(fixedDelayString = "${app.admission.idle-eviction-ms:600000}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+        int evicted = 0;
+        for (Map<String, TokenBucket> routeBuckets : buckets.values()) {
+            int before = routeBuckets.size();
+            routeBuckets.values().removeIf(bucket -> bucket.isIdle(now, idleNanos));
+            evicted += before - routeBuckets.size();
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle client rate limit buckets", evicted);
+        }
+    }
+
+    int getClientCount(Route route) {
+        return buckets.get(route).size();
+    }
+
+    private static final class Limit {
+        final double ratePerSecond;
+        final int burst;
+
+        Limit(double ratePerSecond, int burst) {
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+    }
+}
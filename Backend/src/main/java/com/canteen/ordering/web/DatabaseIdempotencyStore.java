@@ -0,0 +1,120 @@
+package com.canteen.ordering.web;
+
+import com.canteen.ordering.entity.IdempotencyRecord;
+import com.canteen.ordering.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * {@link IdempotencyStore} shared by every node through the {@code idempotency_keys} table, used when
+ * {@code app.idempotency.store=database}. A claim is an insert of the key, so the database's primary key
+ * decides which node executes; duplicates on other nodes poll the row until it has a response.
+ * Each operation runs in its own short transaction, never the one that creates the order.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotencyStore.class);
+    private static final long POLL_MILLIS = 50;
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${app.idempotency.in-flight-timeout-ms:30000}")
+    private long inFlightTimeoutMillis;
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        // Second pass only after an expired or released row was removed between our insert and read
+        for (int attempt = 0; attempt < 2; attempt++) {
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.saveAndFlush(
+                        new IdempotencyRecord(key, fingerprint, now.plus(Duration.ofMillis(inFlightTimeoutMillis)))));
+                return Claim.acquired();
+            } catch (DataIntegrityViolationException e) {
+                Optional<IdempotencyRecord> existing = repository.findById(key);
+                if (!existing.isPresent()) {
+                    continue;
+                }
+                IdempotencyRecord record = existing.get();
+                if (!record.getExpiresAt().isAfter(now)) {
+                    transactionTemplate.executeWithoutResult(status -> repository.deleteIfExpired(key, now));
+                    continue;
+                }
+                if (!record.getFingerprint().equals(fingerprint)) {
+                    return Claim.mismatch();
+                }
+                return record.isCompleted() ? Claim.completed(toResponse(record)) : Claim.inFlight();
+            }
+        }
+        return Claim.inFlight();
+    }
+
+    @Override
+    public Optional<StoredResponse> await(String key, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            Optional<IdempotencyRecord> record = repository.findById(key);
+            if (!record.isPresent()) {
+                return Optional.empty();
+            }
+            if (record.get().isCompleted()) {
+                return Optional.of(toResponse(record.get()));
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return Optional.empty();
+            }
+            Thread.sleep(Math.min(POLL_MILLIS, remaining));
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        transactionTemplate.executeWithoutResult(status -> repository.findById(key).ifPresent(record -> {
+            record.setCompleted(true);
+            record.setResponseStatus(response.getStatus());
+            record.setContentType(response.getContentType());
+            record.setLocation(response.getLocation());
+            record.setResponseBody(response.getBody());
+            record.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(ttlMillis)));
+        }));
+    }
+
+    @Override
+    public void release(String key) {
+        transactionTemplate.executeWithoutResult(status -> repository.deleteInFlight(key));
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void evictExpired() {
+        Integer deleted = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        if (deleted != null && deleted > 0) {
+            logger.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private static StoredResponse toResponse(IdempotencyRecord record) {
+        return new StoredResponse(record.getResponseStatus(), record.getContentType(), record.getLocation(),
+                record.getResponseBody() != null ? record.getResponseBody() : new byte[0]);
+    }
+}
@@ -0,0 +1,277 @@
+package com.canteen.ordering.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * {@code Idempotency-Key} support for the order endpoints that change state: creating an order,
+ * checking out, paying and cancelling.
+ * <p>
+ * The first request with a key runs normally and its response is stored; a retry with the same key
+ * gets that response back, marked with {@code Idempotent-Replayed: true}, instead of creating a second
+ * order or decrementing stock again. A retry that arrives while the first is still running waits for
+ * it rather than running in parallel. Server errors are not stored, so the client can retry them. A key
+ * reused for a different request (method, path, parameters or body) is answered 422. Requests without
+ * the header are untouched.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final String ORDERS_PATH = "/api/orders";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Absent in web slice tests, which then see every request pass straight through
+    @Autowired
+    private ObjectProvider<IdempotencyStore> idempotencyStore;
+
+    @Value("${app.idempotency.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMillis;
+
+    @Value("${app.idempotency.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || !(path.equals(ORDERS_PATH) || path.startsWith(ORDERS_PATH + "/"))
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        IdempotencyStore store = idempotencyStore.getIfAvailable();
+        if (store == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    IDEMPOTENCY_KEY_HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprint(cachedRequest);
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        try {
+            while (true) {
+                IdempotencyStore.Claim claim = store.claim(key, fingerprint);
+                switch (claim.getState()) {
+                    case ACQUIRED:
+                        execute(store, key, cachedRequest, response, chain);
+                        return;
+                    case COMPLETED:
+                        replay(claim.getResponse(), response);
+                        return;
+                    case MISMATCH:
+                        response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                                IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+                        return;
+                    case FULL:
+                        logger.warn("Idempotency store is full, refusing key {}", key);
+                        refuse(response, HttpStatus.SERVICE_UNAVAILABLE);
+                        return;
+                    default:
+                        long remaining = deadline - System.currentTimeMillis();
+                        Optional<StoredResponse> finished = remaining > 0
+                                ? store.await(key, remaining) : Optional.empty();
+                        if (finished.isPresent()) {
+                            replay(finished.get(), response);
+                            return;
+                        }
+                        // Either the first execution failed and released the key, and we claim it next,
+                        // or it is still running and the client should come back later
+                        if (System.currentTimeMillis() >= deadline) {
+                            refuse(response, HttpStatus.CONFLICT);
+                            return;
+                        }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            refuse(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private void execute(IdempotencyStore store, String key, HttpServletRequest request,
+                         HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(request, responseWrapper);
+            if (responseWrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value() && !request.isAsyncStarted()) {
+                store.complete(key, StoredResponse.of(responseWrapper));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        if (stored.getLocation() != null) {
+            response.setHeader(HttpHeaders.LOCATION, stored.getLocation());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private void refuse(HttpServletResponse response, HttpStatus status) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(status.value());
+    }
+
+    /**
+     * SHA-256 over method, path, parameters and body, so a key cannot silently replay the response
+     * of a different order.
+     */
+    static String fingerprint(CachedBodyRequest request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((request.getMethod() + ' ' + request.getRequestURI() + '\n').getBytes(StandardCharsets.UTF_8));
+        for (Map.Entry<String, String[]> parameter : request.getParameters().entrySet()) {
+            digest.update(parameter.getKey().getBytes(StandardCharsets.UTF_8));
+            for (String value : parameter.getValue()) {
+                digest.update((byte) '=');
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '&');
+        }
+        digest.update(request.getBody());
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Reads the body up front so it can be fingerprinted and still be read by the controller.
+     * Form posts are left to the container, which parses them into parameters.
+     */
+    static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final Map<String, String[]> parameters;
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            // Parameters first: for a form post this consumes the body into the parameter map
+            parameters = new TreeMap<>(request.getParameterMap());
+            body = isForm(request) ? new byte[0] : StreamUtils.copyToByteArray(request.getInputStream());
+        }
+
+        Map<String, String[]> getParameters() {
+            return parameters;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The body is already in memory, so it is available, and read in full, straight away
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        private static boolean isForm(HttpServletRequest request) {
+            String contentType = request.getContentType();
+            return contentType != null && contentType.startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.canteen.ordering.web;
+
+import java.util.Optional;
+
+/**
+ * Remembers which {@code Idempotency-Key}s have been seen and the response each one produced.
+ * <p>
+ * Exactly one implementation is active, selected with {@code app.idempotency.store}: {@code memory}
+ * (default, single node) or {@code database} (shared by every node through the
+ * {@code idempotency_keys} table). A key is first claimed by one execution; duplicates arriving
+ * while it runs wait for it, and duplicates arriving later get its stored response.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Claims {@code key} for a new execution of the request identified by {@code fingerprint},
+     * or reports what already holds it.
+     */
+    Claim claim(String key, String fingerprint);
+
+    /**
+     * Waits up to {@code timeoutMillis} for the execution holding {@code key} to finish.
+     *
+     * @return its response, or empty if it is still running, was released, or the key is unknown
+     */
+    Optional<StoredResponse> await(String key, long timeoutMillis) throws InterruptedException;
+
+    /**
+     * Stores the response of the execution that claimed {@code key}, to be replayed until the key expires.
+     */
+    void complete(String key, StoredResponse response);
+
+    /**
+     * Forgets a claimed key without a response, so the next attempt with it executes again.
+     */
+    void release(String key);
+
+    final class Claim {
+
+        public enum State {
+            /** The caller holds the key and must execute the request. */
+            ACQUIRED,
+            /** Another execution holds the key and has not finished. */
+            IN_FLIGHT,
+            /** The key already has a response, see {@link #getResponse()}. */
+            COMPLETED,
+            /** The key was used for a different request. */
+            MISMATCH,
+            /** The store is at capacity and cannot take another key right now. */
+            FULL
+        }
+
+        private static final Claim ACQUIRED = new Claim(State.ACQUIRED, null);
+        private static final Claim IN_FLIGHT = new Claim(State.IN_FLIGHT, null);
+        private static final Claim MISMATCH = new Claim(State.MISMATCH, null);
+        private static final Claim FULL = new Claim(State.FULL, null);
+
+        private final State state;
+        private final StoredResponse response;
+
+        private Claim(State state, StoredResponse response) {
+            this.state = state;
+            this.response = response;
+        }
+
+        public static Claim acquired() {
+            return ACQUIRED;
+        }
+
+        public static Claim inFlight() {
+            return IN_FLIGHT;
+        }
+
+        public static Claim completed(StoredResponse response) {
+            return new Claim(State.COMPLETED, response);
+        }
+
+        public static Claim mismatch() {
+            return MISMATCH;
+        }
+
+        public static Claim full() {
+            return FULL;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public StoredResponse getResponse() {
+            return response;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.canteen.ordering.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-node {@link IdempotencyStore}. Each key maps to a future that the claiming execution
+ * completes, so waiting duplicates are woken as soon as the response exists rather than polling.
+ * Holds at most {@code app.idempotency.max-entries} keys; when full of unexpired keys it refuses
+ * new ones instead of forgetting keys a client may still retry.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    @Value("${app.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${app.idempotency.in-flight-timeout-ms:30000}")
+    private long inFlightTimeoutMillis;
+
+    @Value("${app.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Override
+    public Claim claim(String key, String fingerprint) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return Claim.full();
+            }
+        }
+        Entry fresh = new Entry(fingerprint, now + inFlightTimeoutMillis);
+        Entry[] replaced = new Entry[1];
+        Entry current = entries.compute(key, (k, existing) -> {
+            if (existing == null || existing.isExpired(now)) {
+                replaced[0] = existing;
+                return fresh;
+            }
+            return existing;
+        });
+        if (replaced[0] != null) {
+            // Wake anyone still waiting on an execution that overran its in-flight timeout
+            replaced[0].response.complete(null);
+        }
+        if (current == fresh) {
+            return Claim.acquired();
+        }
+        if (!current.fingerprint.equals(fingerprint)) {
+            return Claim.mismatch();
+        }
+        StoredResponse response = current.response.getNow(null);
+        return response != null ? Claim.completed(response) : Claim.inFlight();
+    }
+
+    @Override
+    public Optional<StoredResponse> await(String key, long timeoutMillis) throws InterruptedException {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(entry.response.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException | ExecutionException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void complete(String key, StoredResponse response) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.expiresAt = System.currentTimeMillis() + ttlMillis;
+            entry.response.complete(response);
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.response.complete(null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, entry) -> {
+            if (entry.isExpired(now) && entries.remove(key, entry)) {
+                entry.response.complete(null);
+            }
+        });
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        volatile long expiresAt;
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.canteen.ordering.web;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * The parts of a response an idempotent retry gets back: status, content type, {@code Location} and body.
+ */
+public final class StoredResponse {
+
+    private final int status;
+    private final String contentType;
+    private final String location;
+    private final byte[] body;
+
+    public StoredResponse(int status, String contentType, String location, byte[] body) {
+        this.status = status;
+        this.contentType = contentType;
+        this.location = location;
+        this.body = body;
+    }
+
+    static StoredResponse of(ContentCachingResponseWrapper response) {
+        return new StoredResponse(response.getStatus(), response.getContentType(),
+                response.getHeader(HttpHeaders.LOCATION), response.getContentAsByteArray());
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,54 @@
+package com.canteen.ordering.web;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket of {@code burst} tokens refilled at {@code ratePerSecond}, kept as a single
+ * {@link AtomicLong} so taking a token is one compare-and-set with no lock.
+ * <p>
+ * Instead of a token count and a refill timestamp, the bucket stores the time at which it would be
+ * completely full again (the generic cell rate algorithm formulation). Each admitted request pushes that
+ * time forward by one token's worth; a request is admitted while the time is no more than
+ * {@code burst} tokens' worth in the future. Refill is therefore implicit, and an idle bucket needs no
+ * timer.
+ */
+final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    // When the bucket is next completely full, on the System.nanoTime() clock
+    private final AtomicLong fullAt;
+
+    TokenBucket(double ratePerSecond, int burst, long now) {
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burstNanos = nanosPerToken * burst;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until a token is available
+     */
+    long tryTake(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long base = Math.max(current, now);
+            long next = base + nanosPerToken;
+            if (next - now > burstNanos) {
+                return next - now - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * True once the bucket has been full for at least {@code idleNanos}, so forgetting it changes nothing.
+     */
+    boolean isIdle(long now, long idleNanos) {
+        return now - fullAt.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,370 @@
+package com.canteen.ordering.benchmark;
+
+import com.canteen.ordering.CanteenOrderingSystemApplication;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replays a lunch rush against the application on the H2 (dev) profile, over real HTTP.
+ * <p>
+ * Customers arrive as a Poisson process whose rate follows a piecewise-linear curve of
+ * {@code second:customersPerSecond} points. Each one browses {@code /api/menu/available}, thinks,
+ * orders one item (most customers go for the few hot items, which have little stock), thinks
+ * again and then either pays or walks away, leaving the order to auto-cancellation. Requests are
+ * sent asynchronously, so thousands of customers can be in flight without a thread each, and a
+ * slow server does not slow the arrivals down.
+ * <p>
+ * Afterwards it waits for the abandoned orders to be cancelled and checks that no item was
+ * oversold: every item's remaining stock plus its units in live orders must equal what it started
+ * with. Reports throughput, p50/p95/p99/p99.9 and error rate per endpoint, writes one {@code .hgrm}
+ * percentile file per endpoint and an interval histogram log ({@code lunch-rush.hlog}, tagged by
+ * endpoint) to {@code rush.output}. Skipped in normal builds; run with
+ * <pre>
+ * mvn test -Dtest=LunchRushLoadTest -Dbenchmark=true [-Drush.curve=0:5,30:120,90:120,120:10]
+ *     [-Drush.pay-probability=0.7] [-Drush.hot-items=3] [-Drush.hot-stock=400] [-Drush.stock=100000]
+ *     [-Drush.think-ms=800] [-Drush.output=target/lunch-rush] [-Dapp.stock.mode=ledger ...]
+ * </pre>
+ * Any {@code app.*} system property is passed through to the application, so each stock engine
+ * and intake mode can be sized the same way.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LunchRushLoadTest {
+
+    private static final String CURVE = System.getProperty("rush.curve", "0:5,30:120,90:120,120:10");
+    private static final double PAY_PROBABILITY = Double.parseDouble(System.getProperty("rush.pay-probability", "0.7"));
+    private static final double HOT_ITEM_SHARE = Double.parseDouble(System.getProperty("rush.hot-share", "0.8"));
+    private static final int MENU_ITEMS = Integer.getInteger("rush.menu-items", 20);
+    private static final int HOT_ITEMS = Integer.getInteger("rush.hot-items", 3);
+    private static final int HOT_STOCK = Integer.getInteger("rush.hot-stock", 400);
+    private static final int STOCK = Integer.getInteger("rush.stock", 100_000);
+    private static final long THINK_MILLIS = Long.getLong("rush.think-ms", 800);
+    private static final String OUTPUT = System.getProperty("rush.output", "target/lunch-rush");
+    // Abandoned orders are cancelled after this long, so the oversell check can run on settled stock
+    private static final int AUTO_CANCEL_MINUTES = Integer.getInteger("rush.auto-cancel-minutes", 1);
+    private static final long REPORT_INTERVAL_MILLIS = 5_000;
+
+    private static final String BROWSE = "GET /api/menu/available";
+    private static final String ORDER = "POST /api/orders";
+    private static final String PAY = "POST /api/orders/{id}/pay";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+    private final AtomicInteger customersInFlight = new AtomicInteger();
+    private final LongAdder soldOut = new LongAdder();
+    private final LongAdder abandoned = new LongAdder();
+    private final LongAdder paid = new LongAdder();
+
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    @Test
+    void replayLunchRush() throws Exception {
+        endpoints.put(BROWSE, new Endpoint());
+        endpoints.put(ORDER, new Endpoint());
+        endpoints.put(PAY, new Endpoint());
+
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:lunch-rush;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("app.auto-cancel.minutes", String.valueOf(AUTO_CANCEL_MINUTES));
+        // Every simulated customer connects from 127.0.0.1, so per-client limits would turn the rush into 429s
+        properties.put("app.admission.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.canteen.ordering", "WARN");
+        properties.put("logging.level.org.hibernate.SQL", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        properties.put("logging.level.org.springframework.web", "WARN");
+        properties.put("server.port", "0");
+        System.getProperties().stringPropertyNames().stream()
+                .filter(name -> name.startsWith("app."))
+                .forEach(name -> properties.put(name, System.getProperty(name)));
+        // Command-line arguments, unlike builder default properties, override application.properties
+        // and application-dev.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CanteenOrderingSystemApplication.class)
+                .profiles("dev")
+                .run(args)) {
+
+            Map<Long, Integer> initialStock = seedMenu(context.getBean(MenuItemRepository.class));
+            List<Long> menuItemIds = new ArrayList<>(initialStock.keySet());
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            ExecutorService httpThreads = Executors.newFixedThreadPool(8);
+            httpClient = HttpClient.newBuilder()
+                    .executor(httpThreads)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            new File(OUTPUT).mkdirs();
+            try (PrintStream log = new PrintStream(new FileOutputStream(new File(OUTPUT, "lunch-rush.hlog")))) {
+                HistogramLogWriter logWriter = new HistogramLogWriter(log);
+                long startMillis = System.currentTimeMillis();
+                logWriter.outputLogFormatVersion();
+                logWriter.outputStartTime(startMillis);
+                logWriter.setBaseTime(startMillis);
+                logWriter.outputLegend();
+
+                long customers = runArrivals(menuItemIds, logWriter);
+                awaitCustomers();
+                double seconds = (System.currentTimeMillis() - startMillis) / 1000.0;
+                writeIntervals(logWriter);
+
+                report(customers, seconds);
+            } finally {
+                httpThreads.shutdownNow();
+            }
+
+            checkNoOversell(context.getBean(JdbcTemplate.class), initialStock);
+        }
+    }
+
+    private Map<Long, Integer> seedMenu(MenuItemRepository menuItemRepository) {
+        Map<Long, Integer> initialStock = new LinkedHashMap<>();
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            int stock = i < HOT_ITEMS ? HOT_STOCK : STOCK;
+            MenuItem menuItem = menuItemRepository.save(new MenuItem("Rush item " + i, new BigDecimal("6.50"), stock));
+            initialStock.put(menuItem.getId(), stock);
+        }
+        return initialStock;
+    }
+
+    // Open model: arrivals follow the curve no matter how slowly the server answers
+    private long runArrivals(List<Long> menuItemIds, HistogramLogWriter logWriter) throws Exception {
+        double[][] curve = parseCurve(CURVE);
+        double durationSeconds = curve[curve.length - 1][0];
+        long startNanos = System.nanoTime();
+        long nextReport = System.currentTimeMillis() + REPORT_INTERVAL_MILLIS;
+        double nextArrival = 0;
+        long customers = 0;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (nextArrival < durationSeconds) {
+            double rate = Math.max(0.1, rateAt(curve, nextArrival));
+            nextArrival += -Math.log(1 - random.nextDouble()) / rate;
+            long sleepNanos = startNanos + (long) (nextArrival * 1_000_000_000L) - System.nanoTime();
+            if (sleepNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            customers++;
+            startCustomer(pickItem(menuItemIds, random));
+            if (System.currentTimeMillis() >= nextReport) {
+                writeIntervals(logWriter);
+                System.out.printf("t=%5.0fs  rate=%6.1f/s  customers in flight=%d%n",
+                        nextArrival, rate, customersInFlight.get());
+                nextReport += REPORT_INTERVAL_MILLIS;
+            }
+        }
+        return customers;
+    }
+
+    private void startCustomer(Long menuItemId) {
+        customersInFlight.incrementAndGet();
+        send(BROWSE, HttpRequest.newBuilder(URI.create(baseUrl + "/api/menu/available")).GET())
+                .thenCompose(browse -> afterThinking(() -> send(ORDER, HttpRequest.newBuilder(
+                        URI.create(baseUrl + "/api/orders?menuItemId=" + menuItemId))
+                        .POST(HttpRequest.BodyPublishers.noBody()))))
+                .thenCompose(order -> {
+                    if (order == null || order.statusCode() != 201) {
+                        if (order != null && order.statusCode() == 400) {
+                            soldOut.increment();
+                        }
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    if (ThreadLocalRandom.current().nextDouble() >= PAY_PROBABILITY) {
+                        abandoned.increment();
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    long orderId = readId(order.body());
+                    return afterThinking(() -> send(PAY, HttpRequest.newBuilder(
+                            URI.create(baseUrl + "/api/orders/" + orderId + "/pay"))
+                            .POST(HttpRequest.BodyPublishers.noBody())))
+                            .thenAccept(pay -> {
+                                if (pay != null && pay.statusCode() == 200) {
+                                    paid.increment();
+                                }
+                            });
+                })
+                .whenComplete((ignored, error) -> customersInFlight.decrementAndGet());
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(String endpoint, HttpRequest.Builder request) {
+        Endpoint stats = endpoints.get(endpoint);
+        long begin = System.nanoTime();
+        return httpClient.sendAsync(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    stats.recorder.recordValue(Math.max(1, (System.nanoTime() - begin) / 1_000));
+                    if (error != null || response.statusCode() >= 500) {
+                        stats.errors.increment();
+                    } else {
+                        stats.statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                    }
+                    return error != null ? null : response;
+                });
+    }
+
+    private static <T> CompletableFuture<T> afterThinking(Supplier<CompletableFuture<T>> next) {
+        long thinkMillis = (long) (THINK_MILLIS * (0.5 + ThreadLocalRandom.current().nextDouble()));
+        return CompletableFuture.supplyAsync(() -> null,
+                        CompletableFuture.delayedExecutor(thinkMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> next.get());
+    }
+
+    private long readId(String body) {
+        try {
+            JsonNode order = objectMapper.readTree(body);
+            return order.get("id").asLong();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable order response: " + body, e);
+        }
+    }
+
+    private static Long pickItem(List<Long> menuItemIds, ThreadLocalRandom random) {
+        if (random.nextDouble() < HOT_ITEM_SHARE) {
+            return menuItemIds.get(random.nextInt(Math.min(HOT_ITEMS, menuItemIds.size())));
+        }
+        return menuItemIds.get(random.nextInt(menuItemIds.size()));
+    }
+
+    private void awaitCustomers() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2);
+        while (customersInFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+    }
+
+    private void writeIntervals(HistogramLogWriter logWriter) {
+        endpoints.forEach((name, endpoint) -> {
+            Histogram interval = endpoint.recorder.getIntervalHistogram(endpoint.recycled);
+            endpoint.total.add(interval);
+            interval.setTag(name.replace(' ', '_'));
+            logWriter.outputIntervalHistogram(interval);
+            endpoint.recycled = interval;
+        });
+    }
+
+    private void report(long customers, double seconds) throws IOException {
+        System.out.printf("%n%d customers in %.1f s: %d paid, %d abandoned, %d turned away (sold out)%n",
+                customers, seconds, paid.sum(), abandoned.sum(), soldOut.sum());
+        System.out.printf("%-28s %9s %9s %9s %9s %9s %9s %8s%n",
+                "endpoint (ms)", "req/s", "p50", "p95", "p99", "p99.9", "max", "errors");
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Histogram total = entry.getValue().total;
+            long count = total.getTotalCount();
+            long errors = entry.getValue().errors.sum();
+            System.out.printf("%-28s %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7.2f%%%n", entry.getKey(),
+                    count / seconds,
+                    total.getValueAtPercentile(50) / 1000.0,
+                    total.getValueAtPercentile(95) / 1000.0,
+                    total.getValueAtPercentile(99) / 1000.0,
+                    total.getValueAtPercentile(99.9) / 1000.0,
+                    total.getMaxValue() / 1000.0,
+                    count == 0 ? 0.0 : 100.0 * errors / count);
+            System.out.printf("%-28s statuses %s%n", "", entry.getValue().statuses);
+            String fileName = entry.getKey().replaceAll("[^A-Za-z]+", "-").replaceAll("^-|-$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(new FileOutputStream(new File(OUTPUT, fileName)))) {
+                // Recorded in microseconds, reported in milliseconds
+                total.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.printf("Histograms written to %s%n", new File(OUTPUT).getAbsolutePath());
+    }
+
+    private void checkNoOversell(JdbcTemplate jdbcTemplate, Map<Long, Integer> initialStock) throws InterruptedException {
+        // Wait for abandoned orders to be auto-cancelled and their stock returned
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(AUTO_CANCEL_MINUTES) + 60_000;
+        Integer pending;
+        while ((pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE status = 'PENDING'", Integer.class)) > 0
+                && System.currentTimeMillis() < deadline) {
+            TimeUnit.SECONDS.sleep(2);
+        }
+        System.out.printf("%d orders still pending after auto-cancellation%n", pending);
+
+        Map<Long, Long> held = new ConcurrentHashMap<>();
+        jdbcTemplate.query("SELECT menu_item_id, COUNT(*) FROM orders WHERE status <> 'CANCELLED' GROUP BY menu_item_id",
+                row -> { held.put(row.getLong(1), row.getLong(2)); });
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<Long, Integer> item : initialStock.entrySet()) {
+            Integer stock = jdbcTemplate.queryForObject(
+                    "SELECT stock_count FROM menu_items WHERE id = ?", Integer.class, item.getKey());
+            long sold = held.getOrDefault(item.getKey(), 0L);
+            if (stock < 0 || stock + sold != item.getValue()) {
+                problems.add(String.format("item %d: started %d, %d left, %d in live orders",
+                        item.getKey(), item.getValue(), stock, sold));
+            }
+        }
+        System.out.println(problems.isEmpty() ? "Oversell check passed" : "Oversell check FAILED: " + problems);
+        assertTrue(problems.isEmpty(), "Stock does not add up: " + problems);
+    }
+
+    private static double[][] parseCurve(String spec) {
+        String[] points = spec.split(",");
+        double[][] curve = new double[points.length][2];
+        for (int i = 0; i < points.length; i++) {
+            String[] point = points[i].trim().split(":");
+            curve[i][0] = Double.parseDouble(point[0]);
+            curve[i][1] = Double.parseDouble(point[1]);
+        }
+        return curve;
+    }
+
+    private static double rateAt(double[][] curve, double second) {
+        for (int i = 1; i < curve.length; i++) {
+            if (second <= curve[i][0]) {
+                double span = curve[i][0] - curve[i - 1][0];
+                double fraction = span <= 0 ? 1 : (second - curve[i - 1][0]) / span;
+                return curve[i - 1][1] + fraction * (curve[i][1] - curve[i - 1][1]);
+            }
+        }
+        return curve[curve.length - 1][1];
+    }
+
+    private static final class Endpoint {
+        // Microseconds, up to one minute, three significant digits
+        final Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(1), 3);
+        final Histogram total = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        final LongAdder errors = new LongAdder();
+        final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        Histogram recycled;
+    }
+}
@@ -0,0 +1,106 @@
+package com.canteen.ordering.benchmark;
+
+import com.canteen.ordering.CanteenOrderingSystemApplication;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.MenuItemService;
+import com.canteen.ordering.service.search.MenuSearchIndexer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Compares menu search against a 10k-item catalogue on the H2 (dev) profile: the old
+ * {@code LIKE '%x%'} repository query, the trigram index alone, and the full service path
+ * (index plus primary key lookup of the matches). The queries replay what the search box sends
+ * while someone types. H2 runs in-process, so the LIKE numbers exclude the network round trip
+ * a real database adds. Skipped in normal builds; run with
+ * <pre>
+ * mvn test -Dtest=MenuSearchBenchmark -Dbenchmark=true [-Dbenchmark.items=10000] [-Dbenchmark.rounds=20]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MenuSearchBenchmark {
+
+    private static final int ITEMS = Integer.getInteger("benchmark.items", 10_000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 20);
+    private static final int WARMUP_ROUNDS = 5;
+
+    private static final String[] STYLES = {"Spicy", "Grilled", "Crispy", "Smoky", "Classic", "Vegan", "Double", "Mini"};
+    private static final String[] BASES = {"Chicken", "Beef", "Paneer", "Tofu", "Fish", "Mushroom", "Lamb", "Veggie"};
+    private static final String[] DISHES = {"Burger", "Wrap", "Salad", "Curry", "Pizza", "Noodles", "Sandwich", "Rice Bowl"};
+    // Keystroke-by-keystroke prefixes of a few searches, plus substrings from the middle of names
+    private static final List<String> QUERIES = Arrays.asList(
+            "c", "ch", "chi", "chic", "chick", "chicken",
+            "b", "bu", "bur", "burg", "burge", "burger",
+            "rice", "ice bo", "oodle", "paneer cu", "#4242");
+
+    @Test
+    void compareLikeQueryWithIndex() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CanteenOrderingSystemApplication.class)
+                .profiles("dev")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:search-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=500",
+                        "logging.level.com.canteen.ordering=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.springframework.web=WARN",
+                        "server.port=0")
+                .run()) {
+
+            MenuItemRepository menuItemRepository = context.getBean(MenuItemRepository.class);
+            MenuItemService menuItemService = context.getBean(MenuItemService.class);
+            MenuSearchIndexer indexer = context.getBean(MenuSearchIndexer.class);
+
+            List<MenuItem> catalogue = new ArrayList<>(ITEMS);
+            for (int i = 0; i < ITEMS; i++) {
+                String name = STYLES[i % STYLES.length] + " " + BASES[(i / STYLES.length) % BASES.length] + " "
+                        + DISHES[(i / (STYLES.length * BASES.length)) % DISHES.length] + " #" + i;
+                catalogue.add(new MenuItem(name, new BigDecimal("9.99"), 10));
+            }
+            menuItemRepository.saveAll(catalogue);
+            indexer.rebuild();
+
+            System.out.printf("%n%-18s %12s %12s %12s%n", "path", "queries/sec", "p50 (ms)", "p99 (ms)");
+            print("LIKE query", measure(query -> menuItemRepository.findByNameContainingIgnoreCase(query).size()));
+            print("index only", measure(query -> indexer.search(query, 50).size()));
+            print("index + PK fetch", measure(query -> menuItemService.searchMenuItems(query).size()));
+        }
+    }
+
+    private static long[] measure(Function<String, Integer> search) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            QUERIES.forEach(search::apply);
+        }
+        long[] latencies = new long[ROUNDS * QUERIES.size()];
+        int n = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (String query : QUERIES) {
+                long begin = System.nanoTime();
+                search.apply(query);
+                latencies[n++] = System.nanoTime() - begin;
+            }
+        }
+        return latencies;
+    }
+
+    private static void print(String path, long[] latencies) {
+        long total = 0;
+        for (long latency : latencies) {
+            total += latency;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %12.1f %12.3f %12.3f%n", path,
+                latencies.length / (total / 1_000_000_000.0),
+                latencies[(int) (latencies.length * 0.50)] / 1_000_000.0,
+                latencies[Math.min(latencies.length - 1, (int) (latencies.length * 0.99))] / 1_000_000.0);
+    }
+}
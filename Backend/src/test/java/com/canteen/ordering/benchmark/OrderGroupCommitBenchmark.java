@@ -0,0 +1,98 @@
+package com.canteen.ordering.benchmark;
+
+import com.canteen.ordering.CanteenOrderingSystemApplication;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.groupcommit.OrderGroupCommitter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Compares single-item order creation with one transaction per order against group commit, with
+ * many threads ordering from a small menu at once, on the H2 (dev) profile. H2 commits are far
+ * cheaper than a networked MySQL commit, so the gap here understates the real one. Skipped in
+ * normal builds; run with
+ * <pre>
+ * mvn test -Dtest=OrderGroupCommitBenchmark -Dbenchmark=true [-Dbenchmark.threads=32] [-Dbenchmark.orders=20000]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderGroupCommitBenchmark {
+
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 32);
+    private static final int ORDERS = Integer.getInteger("benchmark.orders", 20_000);
+    private static final int MENU_ITEMS = 10;
+
+    @Test
+    void compareOneTransactionPerOrderWithGroupCommit() throws Exception {
+        System.out.printf("%n%-22s %12s%n", "path", "orders/sec");
+        System.out.printf("%-22s %12.1f%n", "transaction per order", run(false));
+        System.out.printf("%-22s %12.1f%n", "group commit", run(true));
+    }
+
+    private static double run(boolean groupCommit) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CanteenOrderingSystemApplication.class)
+                .profiles("dev")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:group-commit-" + groupCommit + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "app.orders.group-commit.enabled=" + groupCommit,
+                        "logging.level.com.canteen.ordering=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.springframework.web=WARN",
+                        "server.port=0")
+                .run()) {
+
+            MenuItemRepository menuItemRepository = context.getBean(MenuItemRepository.class);
+            List<Long> menuItemIds = new ArrayList<>();
+            for (int i = 0; i < MENU_ITEMS; i++) {
+                menuItemIds.add(menuItemRepository.save(new MenuItem("Item " + i, new BigDecimal("5.00"), ORDERS)).getId());
+            }
+            OrderService orderService = context.getBean(OrderService.class);
+            LongConsumer createOrder = groupCommit
+                    ? context.getBean(OrderGroupCommitter.class)::createOrder
+                    : orderService::createOrder;
+
+            // Warm up, then measure
+            drive(createOrder, menuItemIds, ORDERS / 10);
+            long begin = System.nanoTime();
+            drive(createOrder, menuItemIds, ORDERS);
+            return ORDERS / ((System.nanoTime() - begin) / 1_000_000_000.0);
+        }
+    }
+
+    private static void drive(LongConsumer createOrder, List<Long> menuItemIds, int orders) throws Exception {
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger remaining = new AtomicInteger(orders);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(threads.submit(() -> {
+                start.await();
+                int n;
+                while ((n = remaining.decrementAndGet()) >= 0) {
+                    createOrder.accept(menuItemIds.get(n % menuItemIds.size()));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        threads.shutdown();
+    }
+}
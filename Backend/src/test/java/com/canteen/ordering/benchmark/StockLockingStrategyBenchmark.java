@@ -0,0 +1,126 @@
+package com.canteen.ordering.benchmark;
+
+import com.canteen.ordering.CanteenOrderingSystemApplication;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.MenuItemService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the stock-locking strategies under contention: every thread decrements the same
+ * menu item on the H2 (dev) profile. Skipped in normal builds; run with
+ * <pre>
+ * mvn test -Dtest=StockLockingStrategyBenchmark -Dbenchmark=true [-Dbenchmark.threads=16] [-Dbenchmark.operations=500]
+ * </pre>
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StockLockingStrategyBenchmark {
+
+    private static final List<String> STRATEGIES = Arrays.asList("pessimistic", "optimistic", "conditional");
+    private static final int THREADS = Integer.getInteger("benchmark.threads", 16);
+    private static final int OPERATIONS_PER_THREAD = Integer.getInteger("benchmark.operations", 500);
+    private static final int WARMUP_OPERATIONS = 200;
+
+    @Test
+    void compareStrategiesUnderContention() throws Exception {
+        System.out.printf("%n%-12s %8s %12s %10s %10s %8s%n",
+                "strategy", "threads", "ops/sec", "p50 (ms)", "p99 (ms)", "errors");
+        for (String strategy : STRATEGIES) {
+            Result result = run(strategy);
+            System.out.printf("%-12s %8d %12.1f %10.3f %10.3f %8d%n",
+                    strategy, THREADS, result.throughput, result.p50Millis, result.p99Millis, result.errors);
+        }
+    }
+
+    private Result run(String strategy) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CanteenOrderingSystemApplication.class)
+                .profiles("dev")
+                .properties(
+                        "app.stock.locking=" + strategy,
+                        "spring.datasource.url=jdbc:h2:mem:stock-benchmark-" + strategy + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.com.canteen.ordering=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.org.springframework.web=WARN",
+                        "server.port=0")
+                .run()) {
+
+            MenuItemService menuItemService = context.getBean(MenuItemService.class);
+            MenuItemRepository menuItemRepository = context.getBean(MenuItemRepository.class);
+
+            int totalOperations = THREADS * OPERATIONS_PER_THREAD;
+            MenuItem hotItem = menuItemService.createMenuItem(
+                    new MenuItem("Benchmark Burger", new BigDecimal("10.00"), totalOperations + WARMUP_OPERATIONS));
+            Long id = hotItem.getId();
+
+            for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+                menuItemService.decrementStock(id, 1);
+            }
+
+            long[] latencies = new long[totalOperations];
+            AtomicInteger errors = new AtomicInteger();
+            CountDownLatch start = new CountDownLatch(1);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int offset = t * OPERATIONS_PER_THREAD;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            if (!menuItemService.decrementStock(id, 1)) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (RuntimeException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[offset + i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+
+            long wallStart = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long wallNanos = System.nanoTime() - wallStart;
+            executor.shutdown();
+
+            int remaining = menuItemRepository.findById(id).orElseThrow(IllegalStateException::new).getStockCount();
+            assertEquals(errors.get(), remaining, "Stock left over must equal the number of failed decrements");
+
+            Arrays.sort(latencies);
+            Result result = new Result();
+            result.throughput = totalOperations / (wallNanos / 1_000_000_000.0);
+            result.p50Millis = latencies[(int) (totalOperations * 0.50)] / 1_000_000.0;
+            result.p99Millis = latencies[Math.min(totalOperations - 1, (int) (totalOperations * 0.99))] / 1_000_000.0;
+            result.errors = errors.get();
+            return result;
+        }
+    }
+
+    private static final class Result {
+        double throughput;
+        double p50Millis;
+        double p99Millis;
+        int errors;
+    }
+}
@@ -0,0 +1,180 @@
+package com.canteen.ordering.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadWriteRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lenient().when(primary.getConnection()).thenReturn(primaryConnection);
+        lenient().when(replica.getConnection()).thenReturn(replicaConnection);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadWriteRoutingDataSource.setReplicaRead(false);
+    }
+
+    @Test
+    void getConnection_InReplicaReadOnlyTransaction_ShouldUseReplica() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+        ReadWriteRoutingDataSource.setReplicaRead(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection connection = routing.getConnection();
+
+        // Then
+        assertSame(replicaConnection, connection);
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void getConnection_OutsideReadOnlyTransaction_ShouldUsePrimary() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+
+        // When
+        Connection connection = routing.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_InReadOnlyTransactionWithoutReplicaRead_ShouldUsePrimary() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection connection = routing.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_ReplicaReadOutsideReadOnlyTransaction_ShouldUsePrimary() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+        ReadWriteRoutingDataSource.setReplicaRead(true);
+
+        // When
+        Connection connection = routing.getConnection();
+
+        // Then
+        assertSame(primaryConnection, connection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void getConnection_WhenReplicaFails_ShouldFallBackToPrimaryAndStopTryingIt() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+        when(replica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ReadWriteRoutingDataSource.setReplicaRead(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // When
+        Connection first = routing.getConnection();
+        Connection second = routing.getConnection();
+
+        // Then
+        assertSame(primaryConnection, first);
+        assertSame(primaryConnection, second);
+        assertTrue(routing.isReplicaDown());
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void getConnection_AfterRetryPeriod_ShouldTryReplicaAgain() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 0);
+        when(replica.getConnection())
+                .thenThrow(new SQLException("Connection refused"))
+                .thenReturn(replicaConnection);
+        ReadWriteRoutingDataSource.setReplicaRead(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        routing.getConnection();
+
+        // When
+        Connection connection = routing.getConnection();
+
+        // Then
+        assertSame(replicaConnection, connection);
+        assertFalse(routing.isReplicaDown());
+    }
+
+    @Test
+    void getConnection_WhenPrimaryFails_ShouldNotUseReplica() throws SQLException {
+        // Given
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, replica, 30000);
+        when(primary.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        // When & Then
+        assertThrows(SQLException.class, routing::getConnection);
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void replicaReadTransaction_BehindLazyProxy_ShouldRunOnReplica() throws SQLException {
+        // Given
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primary, replica, 30000));
+        // The proxy borrows one connection up front to learn the default auto-commit and isolation
+        clearInvocations(primary);
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+        ReadWriteRoutingDataSource.setReplicaRead(true);
+
+        // When
+        readOnly.executeWithoutResult(status -> {
+            try {
+                DataSourceUtils.getConnection(dataSource).prepareStatement("SELECT 1");
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // Then
+        verify(replica).getConnection();
+        verify(replicaConnection).prepareStatement("SELECT 1");
+        verify(replicaConnection).setReadOnly(true);
+        verifyNoInteractions(primary);
+    }
+}
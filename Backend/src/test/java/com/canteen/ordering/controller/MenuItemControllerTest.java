@@ -18,6 +18,8 @@ import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -149,5 +151,54 @@ class MenuItemControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].name").value("Burger"));
     }
+    
+    @Test
+    void getAllMenuItems_ShouldReturnETagFromMenuVersion() throws Exception {
+        // Given
+        when(menuItemService.getMenuVersion()).thenReturn(7L);
+        when(menuItemService.getAllMenuItems()).thenReturn(Arrays.asList(menuItem));
+        
+        // When & Then
+        mockMvc.perform(get("/api/menu"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"menu-7\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+    
+    @Test
+    void getAllMenuItems_WhenETagMatches_ShouldReturnNotModifiedWithoutLoadingMenu() throws Exception {
+        // Given
+        when(menuItemService.getMenuVersion()).thenReturn(7L);
+        
+        // When & Then
+        mockMvc.perform(get("/api/menu").header("If-None-Match", "\"menu-6\", \"menu-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"menu-7\""))
+                .andExpect(content().string(""));
+        verify(menuItemService, never()).getAllMenuItems();
+    }
+    
+    @Test
+    void getAvailableMenuItems_WhenMenuChanged_ShouldReturnNewMenu() throws Exception {
+        // Given
+        when(menuItemService.getMenuVersion()).thenReturn(8L);
+        when(menuItemService.getAvailableMenuItems()).thenReturn(Arrays.asList(menuItem));
+        
+        // When & Then
+        mockMvc.perform(get("/api/menu/available").header("If-None-Match", "\"menu-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"menu-8\""))
+                .andExpect(jsonPath("$[0].name").value("Burger"));
+    }
+    
+    @Test
+    void getAvailableMenuItems_WhenETagMatches_ShouldReturnNotModifiedWithoutLoadingMenu() throws Exception {
+        // Given
+        when(menuItemService.getMenuVersion()).thenReturn(8L);
+        
+        // When & Then
+        mockMvc.perform(get("/api/menu/available").header("If-None-Match", "\"menu-8\""))
+                .andExpect(status().isNotModified());
+        verify(menuItemService, never()).getAvailableMenuItems();
+    }
 }
-
@@ -0,0 +1,57 @@
+package com.canteen.ordering.controller;
+
+import com.canteen.ordering.service.OrderExportService;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.OrderStatsService;
+import com.canteen.ordering.web.ClientRateLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = OrderController.class, properties = {
+        "app.admission.order-mutations.rate-per-second=0.1",
+        "app.admission.order-mutations.burst=1"})
+@Import(ClientRateLimiter.class)
+class OrderControllerAdmissionTest {
+
+    private static final String FRONTEND_ORIGIN = "http://localhost:3000";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private OrderExportService orderExportService;
+
+    @MockBean
+    private OrderStatsService orderStatsService;
+
+    @Test
+    void rateLimitedRequest_ShouldCarryCorsHeadersSoTheBrowserSeesRetryAfter() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "1")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "1")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, FRONTEND_ORIGIN))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                        containsString(HttpHeaders.RETRY_AFTER)));
+    }
+}
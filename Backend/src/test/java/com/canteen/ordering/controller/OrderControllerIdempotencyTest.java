@@ -0,0 +1,96 @@
+package com.canteen.ordering.controller;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.service.OrderExportService;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.OrderStatsService;
+import com.canteen.ordering.web.IdempotencyFilter;
+import com.canteen.ordering.web.InMemoryIdempotencyStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OrderController.class)
+@Import(InMemoryIdempotencyStore.class)
+class OrderControllerIdempotencyTest {
+
+    private static final String FRONTEND_ORIGIN = "http://localhost:3000";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private OrderExportService orderExportService;
+
+    @MockBean
+    private OrderStatsService orderStatsService;
+
+    @Test
+    void replayedCreateOrder_ShouldCarryCorsHeadersForTheFrontend() throws Exception {
+        // Given
+        MenuItem menuItem = new MenuItem();
+        menuItem.setId(1L);
+        menuItem.setName("Burger");
+        menuItem.setPrice(new BigDecimal("10.50"));
+        Order order = new Order();
+        order.setId(1L);
+        order.setMenuItem(menuItem);
+        order.setStatus(OrderStatus.PENDING);
+        order.setCreatedAt(LocalDateTime.now());
+        when(orderService.createOrder(1L)).thenReturn(order);
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "1")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1"))
+                .andExpect(status().isCreated());
+
+        // When & Then
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "1")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, FRONTEND_ORIGIN))
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS,
+                        containsString(IdempotencyFilter.REPLAYED_HEADER)))
+                .andExpect(jsonPath("$.id").value(1));
+        verify(orderService, times(1)).createOrder(1L);
+    }
+
+    @Test
+    void keyReusedForDifferentOrder_ShouldCarryCorsHeaders() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "1")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-2"));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders")
+                .param("menuItemId", "2")
+                .header(HttpHeaders.ORIGIN, FRONTEND_ORIGIN)
+                .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-2"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(header().string(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, FRONTEND_ORIGIN));
+    }
+}
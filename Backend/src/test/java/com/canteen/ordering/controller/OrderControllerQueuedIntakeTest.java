@@ -0,0 +1,89 @@
+package com.canteen.ordering.controller;
+
+import com.canteen.ordering.service.OrderExportService;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.OrderStatsService;
+import com.canteen.ordering.service.intake.OrderIntake;
+import com.canteen.ordering.service.intake.OrderTicket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(value = OrderController.class, properties = "app.orders.intake.retry-after-seconds=3")
+class OrderControllerQueuedIntakeTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @MockBean
+    private OrderService orderService;
+    
+    @MockBean
+    private OrderExportService orderExportService;
+    
+    @MockBean
+    private OrderStatsService orderStatsService;
+    
+    @MockBean
+    private OrderIntake orderIntake;
+    
+    @Test
+    void createOrder_ShouldAnswerAcceptedWithTicket() throws Exception {
+        // Given
+        when(orderIntake.submit(1L)).thenReturn(Optional.of(new OrderTicket("t-1")));
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders").param("menuItemId", "1"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/tickets/t-1"))
+                .andExpect(jsonPath("$.id").value("t-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+        verify(orderService, never()).createOrder(anyLong());
+    }
+    
+    @Test
+    void createOrder_WhenQueueIsFull_ShouldShedLoad() throws Exception {
+        // Given
+        when(orderIntake.submit(1L)).thenReturn(Optional.empty());
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders").param("menuItemId", "1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+    
+    @Test
+    void checkout_WithUnknownMenuItem_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(orderIntake.submitCheckout(anyList())).thenThrow(new RuntimeException("Menu item not found with id: 9"));
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders/checkout")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lines\":[{\"menuItemId\":9,\"quantity\":1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void getTicket_WhenUnknown_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(orderIntake.getTicket("missing")).thenReturn(Optional.empty());
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/tickets/missing"))
+                .andExpect(status().isNotFound());
+    }
+}
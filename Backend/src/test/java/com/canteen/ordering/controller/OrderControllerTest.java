@@ -1,23 +1,39 @@
 package com.canteen.ordering.controller;
 
+import com.canteen.ordering.dto.CheckoutRequest;
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.OrderStats;
+import com.canteen.ordering.dto.OrderSummary;
 import com.canteen.ordering.entity.MenuItem;
 import com.canteen.ordering.entity.Order;
 import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.service.OrderExportService;
 import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.OrderStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -31,6 +47,15 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
     
+    @MockBean
+    private OrderExportService orderExportService;
+    
+    @MockBean
+    private OrderStatsService orderStatsService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     private MenuItem menuItem;
     private Order order;
     
@@ -52,13 +77,14 @@ class OrderControllerTest {
     @Test
     void getAllOrders_ShouldReturnAllOrders() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(order);
-        when(orderService.getAllOrders()).thenReturn(orders);
+        List<OrderSummary> orders = Arrays.asList(summaryOf(order));
+        when(orderService.getAllOrders(null, 50)).thenReturn(new CursorPage<>(orders, null));
         
         // When & Then
         mockMvc.perform(get("/api/orders"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].menuItem.name").value("Burger"))
                 .andExpect(jsonPath("$[0].status").value("PENDING"));
     }
     
@@ -84,6 +110,19 @@ class OrderControllerTest {
                 .andExpect(status().isNotFound());
     }
     
+    @Test
+    void getOrderById_WhenArchived_ShouldReturnArchivedSummary() throws Exception {
+        // Given
+        when(orderService.getOrderById(1L)).thenReturn(Optional.empty());
+        when(orderService.getArchivedOrderById(1L)).thenReturn(Optional.of(summaryOf(order)));
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+    
     @Test
     void createOrder_ShouldCreateAndReturnOrder() throws Exception {
         // Given
@@ -97,6 +136,33 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.status").value("PENDING"));
     }
     
+    @Test
+    void checkout_ShouldCreateAndReturnOrder() throws Exception {
+        // Given
+        CheckoutRequest checkoutRequest = new CheckoutRequest(Arrays.asList(new CheckoutRequest.Line(1L, 3)));
+        when(orderService.checkout(anyList())).thenReturn(order);
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(checkoutRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+    
+    @Test
+    void checkout_WhenQuantityInvalid_ShouldReturnBadRequest() throws Exception {
+        // Given
+        CheckoutRequest checkoutRequest = new CheckoutRequest(Arrays.asList(new CheckoutRequest.Line(1L, 0)));
+        
+        // When & Then
+        mockMvc.perform(post("/api/orders/checkout")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(checkoutRequest)))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     void cancelOrder_ShouldCancelAndReturnOrder() throws Exception {
         // Given
@@ -126,8 +192,8 @@ class OrderControllerTest {
     @Test
     void getOrderHistory_ShouldReturnOrderHistory() throws Exception {
         // Given
-        List<Order> orders = Arrays.asList(order);
-        when(orderService.getOrderHistory()).thenReturn(orders);
+        List<OrderSummary> orders = Arrays.asList(summaryOf(order));
+        when(orderService.getOrderHistory(null, 50)).thenReturn(new CursorPage<>(orders, null));
         
         // When & Then
         mockMvc.perform(get("/api/orders/history"))
@@ -139,8 +205,8 @@ class OrderControllerTest {
     @Test
     void getPendingOrders_ShouldReturnPendingOrders() throws Exception {
         // Given
-        List<Order> pendingOrders = Arrays.asList(order);
-        when(orderService.getPendingOrders()).thenReturn(pendingOrders);
+        List<OrderSummary> pendingOrders = Arrays.asList(summaryOf(order));
+        when(orderService.getPendingOrders(null, 50)).thenReturn(new CursorPage<>(pendingOrders, null));
         
         // When & Then
         mockMvc.perform(get("/api/orders/pending"))
@@ -153,8 +219,8 @@ class OrderControllerTest {
     void getPaidOrders_ShouldReturnPaidOrders() throws Exception {
         // Given
         order.setStatus(OrderStatus.PAID);
-        List<Order> paidOrders = Arrays.asList(order);
-        when(orderService.getPaidOrders()).thenReturn(paidOrders);
+        List<OrderSummary> paidOrders = Arrays.asList(summaryOf(order));
+        when(orderService.getPaidOrders(null, 50)).thenReturn(new CursorPage<>(paidOrders, null));
         
         // When & Then
         mockMvc.perform(get("/api/orders/paid"))
@@ -167,8 +233,8 @@ class OrderControllerTest {
     void getCancelledOrders_ShouldReturnCancelledOrders() throws Exception {
         // Given
         order.setStatus(OrderStatus.CANCELLED);
-        List<Order> cancelledOrders = Arrays.asList(order);
-        when(orderService.getCancelledOrders()).thenReturn(cancelledOrders);
+        List<OrderSummary> cancelledOrders = Arrays.asList(summaryOf(order));
+        when(orderService.getCancelledOrders(null, 50)).thenReturn(new CursorPage<>(cancelledOrders, null));
         
         // When & Then
         mockMvc.perform(get("/api/orders/cancelled"))
@@ -176,5 +242,88 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$[0].id").value(1))
                 .andExpect(jsonPath("$[0].status").value("CANCELLED"));
     }
+    
+    @Test
+    void getAllOrders_WhenMorePages_ShouldReturnNextCursorHeader() throws Exception {
+        // Given
+        when(orderService.getAllOrders("abc", 1)).thenReturn(new CursorPage<>(Arrays.asList(summaryOf(order)), "def"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders").param("cursor", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "def"))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+    
+    @Test
+    void getAllOrders_OnLastPage_ShouldOmitNextCursorHeader() throws Exception {
+        // Given
+        when(orderService.getAllOrders(null, 50)).thenReturn(new CursorPage<>(Arrays.asList(summaryOf(order)), null));
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+    
+    @Test
+    void getOrderHistory_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // Given
+        when(orderService.getOrderHistory("bogus", 50)).thenThrow(new IllegalArgumentException("Invalid cursor: bogus"));
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/history").param("cursor", "bogus"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void exportOrders_AsCsv_ShouldStreamWithCsvContentType() throws Exception {
+        // Given
+        when(orderExportService.export(isNull(), isNull(), eq(OrderExportService.Format.CSV), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    invocation.getArgument(3, OutputStream.class).write("orderId\n1\n".getBytes(StandardCharsets.UTF_8));
+                    return 1L;
+                });
+        
+        // When
+        MvcResult result = mockMvc.perform(get("/api/orders/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string("orderId\n1\n"));
+    }
+    
+    @Test
+    void exportOrders_WithUnsupportedFormat_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/orders/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    private OrderSummary summaryOf(Order order) {
+        MenuItem item = order.getMenuItem();
+        return new OrderSummary(order.getId(), order.getStatus(), order.getCreatedAt(), order.getUpdatedAt(),
+                item.getId(), item.getName(), item.getPrice());
+    }
+    
+    @Test
+    void getOrderSummary_ShouldReturnCounters() throws Exception {
+        // Given
+        OrderStats stats = new OrderStats(2, 3, 1, new BigDecimal("31.50"),
+                Collections.singletonList(new OrderStats.MenuItemStats(1L, "Burger", 2, 3, 1)), LocalDateTime.now());
+        when(orderStatsService.getStats()).thenReturn(stats);
+        
+        // When & Then
+        mockMvc.perform(get("/api/orders/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalOrders").value(6))
+                .andExpect(jsonPath("$.pendingOrders").value(2))
+                .andExpect(jsonPath("$.paidRevenue").value(31.50))
+                .andExpect(jsonPath("$.menuItems[0].name").value("Burger"))
+                .andExpect(jsonPath("$.menuItems[0].paidUnits").value(3));
+    }
 }
-
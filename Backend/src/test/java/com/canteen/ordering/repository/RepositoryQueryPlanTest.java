@@ -0,0 +1,443 @@
+package com.canteen.ordering.repository;
+
+import com.canteen.ordering.dto.OrderExportRow;
+import com.canteen.ordering.entity.OrderStatus;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs every repository query against a (H2) database seeded with tens of thousands of rows and
+ * replays the SQL Hibernate actually sent under {@code EXPLAIN}, failing when a plan reads a growing
+ * table end to end. A query added without a case here, or a reason to be exempt, fails as well.
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Import(RepositoryQueryPlanTest.StatementRecorderConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryQueryPlanTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    // Tables that grow with traffic. menu_items is bounded by the size of the menu, so scanning it
+    // as the small side of a join is fine; only its own repository's lookups must not scan it.
+    private static final Set<String> GROWING_TABLES = new HashSet<>(Arrays.asList(
+            "ORDERS", "ORDER_LINES", "ORDERS_ARCHIVE", "ORDER_LINES_ARCHIVE", "SALES_ROLLUPS", "IDEMPOTENCY_KEYS"));
+
+    private static final Pattern TABLE_SCAN = Pattern.compile("(\\w+)\\.tableScan");
+
+    private static final String RECONCILE_TOTAL = "Stats reconciliation total over every order, read on the " +
+            "reconcile timer rather than per request; no index narrows a whole-table total";
+
+    private static final Map<String, String> EXEMPT = new TreeMap<>();
+
+    static {
+        EXEMPT.put("MenuItemRepository.findByNameContainingIgnoreCase",
+                "Leading-wildcard LIKE cannot seek on an index; menu search is served by MenuSearchIndex");
+        for (String query : Arrays.asList(
+                "OrderRepository.countGroupedByStatus",
+                "OrderRepository.countSingleItemOrdersByMenuItemAndStatus",
+                "OrderRepository.sumSingleItemOrderAmounts",
+                "OrderLineRepository.sumQuantitiesByMenuItemAndStatus",
+                "OrderLineRepository.sumLineAmounts",
+                "ArchivedOrderRepository.countGroupedByStatus",
+                "ArchivedOrderRepository.countSingleItemOrdersByMenuItemAndStatus",
+                "ArchivedOrderRepository.sumSingleItemOrderAmounts",
+                "ArchivedOrderLineRepository.sumQuantitiesByMenuItemAndStatus",
+                "ArchivedOrderLineRepository.sumLineAmounts")) {
+            EXEMPT.put(query, RECONCILE_TOTAL);
+        }
+    }
+
+    // 2,000 menu items; 20,000 orders, three in five single-item and the rest carts of two lines,
+    // one in ten still pending; 10,000 older archived orders; 20,000 hourly rollups; 10,000 keys
+    private static final List<String> SEED = Arrays.asList(
+            "INSERT INTO menu_items (id, name, price, stock_count, version) " +
+            "SELECT X, CONCAT('Item ', X), 5 + MOD(X, 10), MOD(X, 5) * 10, 0 FROM SYSTEM_RANGE(1001, 3000)",
+            "INSERT INTO orders (id, menu_item_id, status, created_at, updated_at) " +
+            "SELECT X, CASE WHEN MOD(X, 5) < 3 THEN 1001 + MOD(X, 2000) END, " +
+            "CASE MOD(X, 10) WHEN 0 THEN 'PENDING' WHEN 1 THEN 'CANCELLED' ELSE 'PAID' END, " +
+            "DATEADD(MINUTE, X, TIMESTAMP '2026-01-01 00:00:00'), " +
+            "DATEADD(MINUTE, X + 10, TIMESTAMP '2026-01-01 00:00:00') FROM SYSTEM_RANGE(1, 20000)",
+            "INSERT INTO order_lines (id, order_id, menu_item_id, quantity, unit_price) " +
+            "SELECT o.id * 2 + k.X, o.id, 1001 + MOD(o.id + k.X, 2000), 1 + k.X, 7.50 " +
+            "FROM orders o CROSS JOIN SYSTEM_RANGE(0, 1) k WHERE o.menu_item_id IS NULL",
+            "INSERT INTO orders_archive (id, menu_item_id, status, created_at, updated_at, archived_at) " +
+            "SELECT X, CASE WHEN MOD(X, 5) < 3 THEN 1001 + MOD(X, 2000) END, " +
+            "CASE MOD(X, 10) WHEN 1 THEN 'CANCELLED' ELSE 'PAID' END, " +
+            "DATEADD(MINUTE, X - 200000, TIMESTAMP '2026-01-01 00:00:00'), " +
+            "DATEADD(MINUTE, X - 199990, TIMESTAMP '2026-01-01 00:00:00'), TIMESTAMP '2026-01-01 00:00:00' " +
+            "FROM SYSTEM_RANGE(100001, 110000)",
+            "INSERT INTO order_lines_archive (id, order_id, menu_item_id, quantity, unit_price) " +
+            "SELECT o.id * 2 + k.X, o.id, 1001 + MOD(o.id + k.X, 2000), 1 + k.X, 7.50 " +
+            "FROM orders_archive o CROSS JOIN SYSTEM_RANGE(0, 1) k WHERE o.menu_item_id IS NULL",
+            "INSERT INTO sales_rollups (bucket_start, menu_item_id, orders, units, paid_orders, paid_units, " +
+            "paid_revenue, cancelled_orders, cancelled_units) " +
+            "SELECT DATEADD(HOUR, X / 50, TIMESTAMP '2026-01-01 00:00:00'), 1001 + MOD(X, 50), 1, 1, 1, 1, 7.50, 0, 0 " +
+            "FROM SYSTEM_RANGE(0, 19999)",
+            "INSERT INTO idempotency_keys (idempotency_key, fingerprint, completed, created_at, expires_at) " +
+            "SELECT CONCAT('key-', X), 'fingerprint', TRUE, DATEADD(MINUTE, X, TIMESTAMP '2026-01-01 00:00:00'), " +
+            "DATEADD(MINUTE, X + 1440, TIMESTAMP '2026-01-01 00:00:00') FROM SYSTEM_RANGE(1, 10000)",
+            // Row counts and column selectivity for the planner
+            "ANALYZE");
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    @Autowired
+    private SalesRollupRepository salesRollupRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void everyRepositoryQuery_ShouldBeCheckedOrExempt() {
+        // Given
+        Repositories repositories = new Repositories(applicationContext);
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> domainType : repositories) {
+            Class<?> repository = repositories.getRepositoryInformationFor(domainType).orElseThrow()
+                    .getRepositoryInterface();
+            for (Method method : repository.getDeclaredMethods()) {
+                if (!method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers())) {
+                    declared.add(repository.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+
+        // When
+        Set<String> covered = new TreeSet<>(cases().keySet());
+        covered.addAll(EXEMPT.keySet());
+
+        // Then
+        assertEquals(declared, covered, "Every repository query needs a plan check below or a reason to be exempt");
+    }
+
+    @Test
+    void everyRepositoryQuery_ShouldSeekAnIndexRatherThanScanAGrowingTable() {
+        // Given
+        transactionTemplate.executeWithoutResult(status ->
+                SEED.forEach(sql -> entityManager.getEntityManager().createNativeQuery(sql).executeUpdate()));
+
+        // When
+        Map<String, List<String>> scans = new TreeMap<>();
+        cases().forEach((query, call) -> {
+            List<String> plans = explain(call);
+            assertFalse(plans.isEmpty(), query + " sent no statement");
+            Set<String> guarded = new HashSet<>(GROWING_TABLES);
+            if (query.startsWith(MenuItemRepository.class.getSimpleName() + ".")) {
+                guarded.add("MENU_ITEMS");
+            }
+            for (String plan : plans) {
+                Matcher scan = TABLE_SCAN.matcher(plan);
+                while (scan.find()) {
+                    if (guarded.contains(scan.group(1).toUpperCase())) {
+                        scans.computeIfAbsent(query, q -> new ArrayList<>()).add(plan);
+                    }
+                }
+            }
+        });
+
+        // Then
+        assertTrue(scans.isEmpty(), () -> "Queries planned as full table scans:\n" + scans.entrySet().stream()
+                .map(scan -> scan.getKey() + "\n    " + String.join("\n    ", scan.getValue()))
+                .collect(Collectors.joining("\n")));
+    }
+
+    // One call per repository query, keyed by repository and method name. Arguments hit the seeded
+    // data; writes use ids that match nothing where a real row would break a constraint, and every
+    // call is rolled back.
+    private Map<String, Runnable> cases() {
+        LocalDateTime day = START.plusDays(1);
+        List<Long> orderIds = Arrays.asList(3L, 4L, 8L);
+        List<Long> noIds = Collections.singletonList(-1L);
+        Pageable page = PageRequest.of(0, 20);
+
+        Map<String, Runnable> cases = new LinkedHashMap<>();
+        cases.put("OrderRepository.findByStatus", () -> orderRepository.findByStatus(OrderStatus.PENDING));
+        cases.put("OrderRepository.findByStatusAndCreatedAtBefore",
+                () -> orderRepository.findByStatusAndCreatedAtBefore(OrderStatus.PENDING, day));
+        cases.put("OrderRepository.findPendingOrdersOlderThan",
+                () -> orderRepository.findPendingOrdersOlderThan(OrderStatus.PENDING, day));
+        cases.put("OrderRepository.findExpiredForUpdate",
+                () -> orderRepository.findExpiredForUpdate(OrderStatus.PENDING, day, PageRequest.of(0, 100)));
+        cases.put("OrderRepository.findExpiredByIdsForUpdate",
+                () -> orderRepository.findExpiredByIdsForUpdate(orderIds, OrderStatus.PENDING, day));
+        cases.put("OrderRepository.updateStatusByIds", () -> orderRepository.updateStatusByIds(
+                orderIds, OrderStatus.PENDING, OrderStatus.CANCELLED, day));
+        cases.put("OrderRepository.findDeadlinesByStatus",
+                () -> orderRepository.findDeadlinesByStatus(OrderStatus.PENDING));
+        cases.put("OrderRepository.findAllOrderByCreatedAtDesc", () -> orderRepository.findAllOrderByCreatedAtDesc());
+        cases.put("OrderRepository.streamExportRows", () -> {
+            try (Stream<OrderExportRow> rows = orderRepository.streamExportRows(START, day)) {
+                rows.count();
+            }
+        });
+        cases.put("OrderRepository.findFirstPage", () -> orderRepository.findFirstPage(page));
+        cases.put("OrderRepository.findPageAfter",
+                () -> orderRepository.findPageAfter(START.plusDays(5), 7200L, page));
+        cases.put("OrderRepository.findFirstPageByStatus",
+                () -> orderRepository.findFirstPageByStatus(OrderStatus.PAID, page));
+        cases.put("OrderRepository.findPageByStatusAfter",
+                () -> orderRepository.findPageByStatusAfter(OrderStatus.PAID, START.plusDays(5), 7200L, page));
+        cases.put("OrderRepository.sumSingleItemOrdersPlacedByHour",
+                () -> orderRepository.sumSingleItemOrdersPlacedByHour(START, day));
+        cases.put("OrderRepository.sumSingleItemOrdersReachingStatusByHour",
+                () -> orderRepository.sumSingleItemOrdersReachingStatusByHour(OrderStatus.PAID, START, day));
+        cases.put("OrderRepository.findArchivableIds", () -> orderRepository.findArchivableIds(
+                EnumSet.of(OrderStatus.PAID, OrderStatus.CANCELLED), day, PageRequest.of(0, 500)));
+        cases.put("OrderRepository.deleteByIds", () -> orderRepository.deleteByIds(noIds));
+
+        cases.put("OrderLineRepository.findQuantitiesByOrderIds",
+                () -> orderLineRepository.findQuantitiesByOrderIds(orderIds));
+        cases.put("OrderLineRepository.findSummariesByOrderIds",
+                () -> orderLineRepository.findSummariesByOrderIds(orderIds));
+        cases.put("OrderLineRepository.sumLinesPlacedByHour", () -> orderLineRepository.sumLinesPlacedByHour(START, day));
+        cases.put("OrderLineRepository.sumLinesReachingStatusByHour",
+                () -> orderLineRepository.sumLinesReachingStatusByHour(OrderStatus.PAID, START, day));
+        cases.put("OrderLineRepository.deleteByOrderIds", () -> orderLineRepository.deleteByOrderIds(orderIds));
+
+        cases.put("MenuItemRepository.findByIdWithLock", () -> menuItemRepository.findByIdWithLock(1001L));
+        cases.put("MenuItemRepository.findMetadataById", () -> menuItemRepository.findMetadataById(1001L));
+        cases.put("MenuItemRepository.findStockCountById", () -> menuItemRepository.findStockCountById(1001L));
+        cases.put("MenuItemRepository.findStockCountsByIds",
+                () -> menuItemRepository.findStockCountsByIds(Arrays.asList(1001L, 1002L)));
+        cases.put("MenuItemRepository.findByStockCountGreaterThan", () -> menuItemRepository.findByStockCountGreaterThan(0));
+        cases.put("MenuItemRepository.adjustStock", () -> menuItemRepository.adjustStock(1001L, 1));
+        cases.put("MenuItemRepository.adjustStockAtVersion",
+                () -> menuItemRepository.adjustStockAtVersion(1001L, 1, 0L));
+        cases.put("MenuItemRepository.decrementStockIfAvailable",
+                () -> menuItemRepository.decrementStockIfAvailable(1001L, 1));
+
+        cases.put("ArchivedOrderRepository.copyFromOrders", () -> archivedOrderRepository.copyFromOrders(noIds, day));
+        cases.put("ArchivedOrderRepository.findFirstPage", () -> archivedOrderRepository.findFirstPage(page));
+        cases.put("ArchivedOrderRepository.findPageAfter",
+                () -> archivedOrderRepository.findPageAfter(START.minusDays(65), 105000L, page));
+        cases.put("ArchivedOrderRepository.findSummaryById", () -> archivedOrderRepository.findSummaryById(100003L));
+        cases.put("ArchivedOrderRepository.streamExportRows", () -> {
+            try (Stream<OrderExportRow> rows = archivedOrderRepository.streamExportRows(
+                    START.minusDays(70), START.minusDays(60))) {
+                rows.count();
+            }
+        });
+        cases.put("ArchivedOrderRepository.findLatestUpdatedAt", () -> archivedOrderRepository.findLatestUpdatedAt());
+        cases.put("ArchivedOrderRepository.sumSingleItemOrdersPlacedByHour",
+                () -> archivedOrderRepository.sumSingleItemOrdersPlacedByHour(START.minusDays(65), START.minusDays(64)));
+        cases.put("ArchivedOrderRepository.sumSingleItemOrdersReachingStatusByHour",
+                () -> archivedOrderRepository.sumSingleItemOrdersReachingStatusByHour(
+                        OrderStatus.PAID, START.minusDays(65), START.minusDays(64)));
+
+        cases.put("ArchivedOrderLineRepository.copyFromOrderLines",
+                () -> archivedOrderLineRepository.copyFromOrderLines(noIds));
+        cases.put("ArchivedOrderLineRepository.findSummariesByOrderIds",
+                () -> archivedOrderLineRepository.findSummariesByOrderIds(Arrays.asList(100003L, 100004L)));
+        cases.put("ArchivedOrderLineRepository.sumLinesPlacedByHour",
+                () -> archivedOrderLineRepository.sumLinesPlacedByHour(START.minusDays(65), START.minusDays(64)));
+        cases.put("ArchivedOrderLineRepository.sumLinesReachingStatusByHour",
+                () -> archivedOrderLineRepository.sumLinesReachingStatusByHour(
+                        OrderStatus.PAID, START.minusDays(65), START.minusDays(64)));
+
+        cases.put("SalesRollupRepository.addToBucket", () -> salesRollupRepository.addToBucket(
+                START, 1001L, 1, 1, 1, 1, BigDecimal.ONE, 0, 0));
+        cases.put("SalesRollupRepository.findInRange", () -> salesRollupRepository.findInRange(START, day, null));
+        cases.put("SalesRollupRepository.deleteInRange",
+                () -> salesRollupRepository.deleteInRange(START, START.plusHours(1)));
+
+        cases.put("IdempotencyRecordRepository.deleteInFlight", () -> idempotencyRecordRepository.deleteInFlight("key-1"));
+        cases.put("IdempotencyRecordRepository.deleteIfExpired",
+                () -> idempotencyRecordRepository.deleteIfExpired("key-1", day));
+        cases.put("IdempotencyRecordRepository.deleteExpired", () -> idempotencyRecordRepository.deleteExpired(day));
+        return cases;
+    }
+
+    private List<String> explain(Runnable call) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            List<String> plans = new ArrayList<>();
+            for (RecordedStatement statement : StatementRecorder.record(call)) {
+                plans.add(entityManager.getEntityManager().unwrap(Session.class).doReturningWork(statement::explain));
+            }
+            return plans;
+        });
+    }
+
+    @TestConfiguration
+    static class StatementRecorderConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecorder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? StatementRecorder.wrap((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Wraps the DataSource so statements executed while recording are kept with their bound
+     * parameters, ready to be replayed under {@code EXPLAIN}.
+     */
+    static final class StatementRecorder {
+
+        private static final List<RecordedStatement> recorded = new CopyOnWriteArrayList<>();
+        private static volatile boolean recording;
+
+        static List<RecordedStatement> record(Runnable call) {
+            recorded.clear();
+            recording = true;
+            try {
+                call.run();
+            } finally {
+                recording = false;
+            }
+            return new ArrayList<>(recorded);
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, args, result) ->
+                    result instanceof Connection ? wrap((Connection) result) : result);
+        }
+
+        private static Connection wrap(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.getName().startsWith("prepare") && result instanceof PreparedStatement
+                            ? wrap((PreparedStatement) result, (String) args[0]) : result);
+        }
+
+        private static PreparedStatement wrap(PreparedStatement statement, String sql) {
+            List<ParameterBinding> bindings = new ArrayList<>();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    bindings.add(target -> method.invoke(target, args));
+                } else if (name.equals("clearParameters")) {
+                    bindings.clear();
+                } else if (recording && name.startsWith("execute") && (args == null || args.length == 0)) {
+                    recorded.add(new RecordedStatement(sql, new ArrayList<>(bindings)));
+                }
+                return result;
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+            return (T) Proxy.newProxyInstance(StatementRecorder.class.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        // Identity semantics: Hibernate keeps statements in hash-based registries
+                        if (method.getName().equals("equals") && args != null && args.length == 1) {
+                            return proxy == args[0];
+                        }
+                        if (method.getName().equals("hashCode") && args == null) {
+                            return System.identityHashCode(proxy);
+                        }
+                        try {
+                            return wrapper.wrap(method, args, method.invoke(target, args));
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private interface ResultWrapper {
+            Object wrap(Method method, Object[] args, Object result) throws Exception;
+        }
+    }
+
+    private interface ParameterBinding {
+        void bind(PreparedStatement statement) throws ReflectiveOperationException;
+    }
+
+    private static final class RecordedStatement {
+
+        private final String sql;
+        private final List<ParameterBinding> bindings;
+
+        RecordedStatement(String sql, List<ParameterBinding> bindings) {
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        String explain(Connection connection) throws SQLException {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (ParameterBinding binding : bindings) {
+                    try {
+                        binding.bind(explain);
+                    } catch (ReflectiveOperationException e) {
+                        throw new SQLException("Could not bind a parameter of: " + sql, e);
+                    }
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        }
+    }
+}
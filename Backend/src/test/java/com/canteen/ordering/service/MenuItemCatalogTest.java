@@ -0,0 +1,95 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.config.CacheConfig;
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the catalog behind the real caching proxy and Caffeine cache manager.
+ */
+@SpringBootTest(classes = {CacheConfig.class, MenuItemCatalog.class})
+class MenuItemCatalogTest {
+
+    @Autowired
+    private MenuItemCatalog menuItemCatalog;
+
+    @MockBean
+    private MenuItemRepository menuItemRepository;
+
+    private MenuItemMetadata metadata;
+
+    @BeforeEach
+    void setUp() {
+        metadata = new MenuItemMetadata(1L, "Burger", new BigDecimal("10.50"));
+        menuItemCatalog.evict(1L);
+    }
+
+    @Test
+    void find_ShouldLoadFromDatabaseOnlyOnce() {
+        // Given
+        when(menuItemRepository.findMetadataById(1L)).thenReturn(Optional.of(metadata));
+
+        // When
+        Optional<MenuItemMetadata> first = menuItemCatalog.find(1L);
+        Optional<MenuItemMetadata> second = menuItemCatalog.find(1L);
+
+        // Then
+        assertEquals("Burger", first.get().getName());
+        assertEquals(new BigDecimal("10.50"), second.get().getPrice());
+        verify(menuItemRepository, times(1)).findMetadataById(1L);
+    }
+
+    @Test
+    void evict_ShouldForceReload() {
+        // Given
+        when(menuItemRepository.findMetadataById(1L)).thenReturn(Optional.of(metadata));
+        menuItemCatalog.find(1L);
+
+        // When
+        menuItemCatalog.evict(1L);
+        menuItemCatalog.find(1L);
+
+        // Then
+        verify(menuItemRepository, times(2)).findMetadataById(1L);
+    }
+
+    @Test
+    void put_ShouldReplaceEntryWithoutReload() {
+        // Given
+        when(menuItemRepository.findMetadataById(1L)).thenReturn(Optional.of(metadata));
+        menuItemCatalog.find(1L);
+
+        // When
+        menuItemCatalog.put(new MenuItemMetadata(1L, "Cheese Burger", new BigDecimal("11.00")));
+        Optional<MenuItemMetadata> found = menuItemCatalog.find(1L);
+
+        // Then
+        assertEquals("Cheese Burger", found.get().getName());
+        assertEquals(new BigDecimal("11.00"), found.get().getPrice());
+        verify(menuItemRepository, times(1)).findMetadataById(1L);
+    }
+
+    @Test
+    void find_WhenMissing_ShouldNotCacheAbsence() {
+        // Given
+        when(menuItemRepository.findMetadataById(2L)).thenReturn(Optional.empty());
+
+        // When
+        menuItemCatalog.find(2L);
+        menuItemCatalog.find(2L);
+
+        // Then
+        verify(menuItemRepository, times(2)).findMetadataById(2L);
+    }
+}
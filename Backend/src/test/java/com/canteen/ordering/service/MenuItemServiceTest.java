@@ -1,22 +1,37 @@
 package com.canteen.ordering.service;
 
+import com.canteen.ordering.dto.MenuItemMetadata;
 import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.event.MenuItemChangedEvent;
+import com.canteen.ordering.event.StockChangedEvent;
 import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.metrics.OrderMetrics;
+import com.canteen.ordering.service.search.MenuSearchIndexer;
+import com.canteen.ordering.service.stock.StockContentionProfiler;
+import com.canteen.ordering.service.stock.StockLockingStrategy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +40,27 @@ class MenuItemServiceTest {
     @Mock
     private MenuItemRepository menuItemRepository;
     
+    @Mock
+    private StockLockingStrategy stockLockingStrategy;
+    
+    @Mock
+    private MenuVersion menuVersion;
+    
+    @Mock
+    private MenuItemCatalog menuItemCatalog;
+    
+    @Mock
+    private MenuSearchIndexer menuSearchIndexer;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private OrderMetrics orderMetrics;
+    
+    @Mock
+    private StockContentionProfiler contentionProfiler;
+    
     @InjectMocks
     private MenuItemService menuItemService;
     
@@ -37,6 +73,8 @@ class MenuItemServiceTest {
         menuItem.setName("Burger");
         menuItem.setPrice(new BigDecimal("10.50"));
         menuItem.setStockCount(5);
+        
+        ReflectionTestUtils.setField(menuItemService, "searchMaxResults", 50);
     }
     
     @Test
@@ -57,7 +95,8 @@ class MenuItemServiceTest {
     @Test
     void getMenuItemById_WhenExists_ShouldReturnMenuItem() {
         // Given
-        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+        when(menuItemCatalog.find(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
+        when(menuItemRepository.findStockCountById(1L)).thenReturn(Optional.of(3));
         
         // When
         Optional<MenuItem> result = menuItemService.getMenuItemById(1L);
@@ -65,20 +104,21 @@ class MenuItemServiceTest {
         // Then
         assertTrue(result.isPresent());
         assertEquals("Burger", result.get().getName());
-        verify(menuItemRepository).findById(1L);
+        assertEquals(3, result.get().getStockCount());
+        verify(menuItemRepository, never()).findById(anyLong());
     }
     
     @Test
     void getMenuItemById_WhenNotExists_ShouldReturnEmpty() {
         // Given
-        when(menuItemRepository.findById(1L)).thenReturn(Optional.empty());
+        when(menuItemCatalog.find(1L)).thenReturn(Optional.empty());
         
         // When
         Optional<MenuItem> result = menuItemService.getMenuItemById(1L);
         
         // Then
         assertFalse(result.isPresent());
-        verify(menuItemRepository).findById(1L);
+        verify(menuItemRepository, never()).findStockCountById(anyLong());
     }
     
     @Test
@@ -138,6 +178,7 @@ class MenuItemServiceTest {
         // Then
         verify(menuItemRepository).findById(1L);
         verify(menuItemRepository).delete(menuItem);
+        verify(menuItemCatalog).evict(1L);
     }
     
     @Test
@@ -157,15 +198,145 @@ class MenuItemServiceTest {
     @Test
     void searchMenuItems_ShouldReturnMatchingMenuItems() {
         // Given
-        List<MenuItem> searchResults = Arrays.asList(menuItem);
-        when(menuItemRepository.findByNameContainingIgnoreCase("Burger")).thenReturn(searchResults);
+        MenuItem veggieBurger = new MenuItem("Veggie Burger", new BigDecimal("9.00"), 4);
+        veggieBurger.setId(2L);
+        when(menuSearchIndexer.search("Burger", 50)).thenReturn(Arrays.asList(1L, 2L));
+        when(menuItemRepository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(veggieBurger, menuItem));
         
         // When
         List<MenuItem> result = menuItemService.searchMenuItems("Burger");
         
         // Then
-        assertEquals(1, result.size());
-        verify(menuItemRepository).findByNameContainingIgnoreCase("Burger");
+        assertEquals(Arrays.asList(menuItem, veggieBurger), result);
+        verify(menuItemRepository, never()).findByNameContainingIgnoreCase(anyString());
+    }
+    
+    @Test
+    void searchMenuItems_WhenNothingMatches_ShouldNotQueryDatabase() {
+        // Given
+        when(menuSearchIndexer.search("Pasta", 50)).thenReturn(Collections.emptyList());
+        
+        // When
+        List<MenuItem> result = menuItemService.searchMenuItems("Pasta");
+        
+        // Then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(menuItemRepository);
+    }
+    
+    @Test
+    void deleteMenuItem_ShouldPublishDeletionForSearchIndex() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+        
+        // When
+        menuItemService.deleteMenuItem(1L);
+        
+        // Then
+        ArgumentCaptor<MenuItemChangedEvent> event = ArgumentCaptor.forClass(MenuItemChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isDeleted());
+        assertEquals(1L, event.getValue().getMenuItemId());
+    }
+    
+    @Test
+    void decrementStock_ShouldDelegateToLockingStrategy() {
+        // Given
+        when(stockLockingStrategy.decrement(1L, 2)).thenReturn(true);
+        
+        // When
+        boolean result = menuItemService.decrementStock(1L, 2);
+        
+        // Then
+        assertTrue(result);
+        verify(stockLockingStrategy).decrement(1L, 2);
+        verify(contentionProfiler).exit(any(), eq(true));
+    }
+    
+    @Test
+    void decrementStock_WhenStrategyRejects_ShouldReturnFalse() {
+        // Given
+        when(stockLockingStrategy.decrement(1L, 6)).thenReturn(false);
+        
+        // When
+        boolean result = menuItemService.decrementStock(1L, 6);
+        
+        // Then
+        assertFalse(result);
+        verify(eventPublisher, never()).publishEvent(any(StockChangedEvent.class));
+        verify(orderMetrics).recordStockDecrement(eq(1L), eq(false), anyLong());
+    }
+    
+    @Test
+    void decrementStock_ShouldPublishStockChange() {
+        // Given
+        when(stockLockingStrategy.decrement(1L, 2)).thenReturn(true);
+        
+        // When
+        menuItemService.decrementStock(1L, 2);
+        
+        // Then
+        ArgumentCaptor<StockChangedEvent> event = ArgumentCaptor.forClass(StockChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(1L, event.getValue().getMenuItemId());
+    }
+    
+    @Test
+    void restoreStock_ShouldDelegateToLockingStrategy() {
+        // When
+        menuItemService.restoreStock(1L, 1);
+        
+        // Then
+        verify(stockLockingStrategy).restore(1L, 1);
+    }
+    
+    @Test
+    void restoreStockInBulk_ShouldIssueOneAdditiveUpdatePerItem() {
+        // Given
+        Map<Long, Integer> quantities = new HashMap<>();
+        quantities.put(2L, 3);
+        quantities.put(1L, 5);
+        when(menuItemRepository.adjustStock(anyLong(), anyInt())).thenReturn(1);
+        
+        // When
+        menuItemService.restoreStockInBulk(quantities);
+        
+        // Then
+        InOrder inOrder = inOrder(menuItemRepository);
+        inOrder.verify(menuItemRepository).adjustStock(1L, 5);
+        inOrder.verify(menuItemRepository).adjustStock(2L, 3);
+        verify(menuItemRepository, never()).findByIdWithLock(anyLong());
+        verify(stockLockingStrategy, never()).restore(anyLong(), anyInt());
+    }
+    
+    @Test
+    void updateMenuItem_ShouldBumpMenuVersion() {
+        // Given
+        MenuItem updated = new MenuItem("Cheese Burger", new BigDecimal("11.00"), 8);
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+        when(menuItemRepository.save(any(MenuItem.class))).thenReturn(menuItem);
+        
+        // When
+        menuItemService.updateMenuItem(1L, updated);
+        
+        // Then
+        ArgumentCaptor<MenuItemMetadata> metadata = ArgumentCaptor.forClass(MenuItemMetadata.class);
+        verify(menuItemCatalog).put(metadata.capture());
+        assertEquals(1L, metadata.getValue().getId());
+        verify(menuItemCatalog, never()).evict(anyLong());
+        verify(menuVersion).bumpAfterCommit();
+    }
+    
+    @Test
+    void decrementStock_WhenOutOfStock_ShouldNotBumpMenuVersion() {
+        // Given
+        when(stockLockingStrategy.decrement(1L, 1)).thenReturn(false);
+        
+        // When
+        boolean result = menuItemService.decrementStock(1L, 1);
+        
+        // Then
+        assertFalse(result);
+        verify(menuVersion, never()).bumpAfterCommit();
     }
 }
-
@@ -0,0 +1,47 @@
+package com.canteen.ordering.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuVersionTest {
+
+    private final MenuVersion menuVersion = new MenuVersion();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bumpAfterCommit_WithoutTransaction_ShouldBumpImmediately() {
+        // Given
+        long before = menuVersion.current();
+
+        // When
+        menuVersion.bumpAfterCommit();
+
+        // Then
+        assertEquals(before + 1, menuVersion.current());
+    }
+
+    @Test
+    void bumpAfterCommit_InTransaction_ShouldWaitForCommit() {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        long before = menuVersion.current();
+
+        // When
+        menuVersion.bumpAfterCommit();
+
+        // Then
+        assertEquals(before, menuVersion.current());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(before + 1, menuVersion.current());
+    }
+}
@@ -0,0 +1,134 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.dto.OrderExportRow;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderExportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @InjectMocks
+    private OrderExportService orderExportService;
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        ReflectionTestUtils.setField(orderExportService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void export_AsCsv_ShouldWriteHeaderAndOneEscapedRowPerLine() throws Exception {
+        // Given
+        when(orderRepository.streamExportRows(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Stream.of(
+                new OrderExportRow(1L, OrderStatus.PAID, createdAt, createdAt, 1L, "Burger", 1, new BigDecimal("10.50")),
+                new OrderExportRow(2L, OrderStatus.PENDING, createdAt, createdAt, 2L, "Fish, \"fresh\"", 3, new BigDecimal("7.00"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = orderExportService.export(null, null, OrderExportService.Format.CSV, out);
+
+        // Then
+        assertEquals(2, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("orderId,status,createdAt,updatedAt,menuItemId,itemName,quantity,unitPrice", lines[0]);
+        assertEquals("1,PAID,2024-03-01T12:00,2024-03-01T12:00,1,Burger,1,10.50", lines[1]);
+        assertEquals("2,PENDING,2024-03-01T12:00,2024-03-01T12:00,2,\"Fish, \"\"fresh\"\"\",3,7.00", lines[2]);
+    }
+
+    @Test
+    void export_AsNdjson_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        // Given
+        LocalDateTime from = createdAt.minusDays(1);
+        when(orderRepository.streamExportRows(eq(from), any(LocalDateTime.class))).thenReturn(Stream.of(
+                new OrderExportRow(1L, OrderStatus.PAID, createdAt, createdAt, 1L, "Burger", 1, new BigDecimal("10.50"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        orderExportService.export(from, null, OrderExportService.Format.NDJSON, out);
+
+        // Then
+        String body = out.toString(StandardCharsets.UTF_8.name());
+        assertTrue(body.endsWith("\n"));
+        assertTrue(body.startsWith("{\"orderId\":1,\"status\":\"PAID\",\"createdAt\":\"2024-03-01T12:00:00\""));
+        assertEquals(1, body.split("\n").length);
+    }
+
+    @Test
+    void export_ShouldMergeArchivedOrdersInCreationOrder() throws Exception {
+        // Given
+        when(archivedOrderRepository.streamExportRows(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Stream.of(
+                new OrderExportRow(1L, OrderStatus.PAID, createdAt.minusDays(2), createdAt, 1L, "Burger", 1, new BigDecimal("10.50")),
+                new OrderExportRow(3L, OrderStatus.PAID, createdAt, createdAt, 1L, "Burger", 2, new BigDecimal("10.50")),
+                new OrderExportRow(3L, OrderStatus.PAID, createdAt, createdAt, 2L, "Fish", 1, new BigDecimal("7.00"))));
+        when(orderRepository.streamExportRows(any(LocalDateTime.class), any(LocalDateTime.class))).thenReturn(Stream.of(
+                new OrderExportRow(2L, OrderStatus.PAID, createdAt.minusDays(1), createdAt, 1L, "Burger", 1, new BigDecimal("10.50")),
+                new OrderExportRow(4L, OrderStatus.PENDING, createdAt, createdAt, 2L, "Fish", 1, new BigDecimal("7.00"))));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = orderExportService.export(null, null, OrderExportService.Format.CSV, out);
+
+        // Then
+        assertEquals(5, rows);
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertTrue(lines[1].startsWith("1,"));
+        assertTrue(lines[2].startsWith("2,"));
+        assertTrue(lines[3].startsWith("3,PAID,2024-03-01T12:00,2024-03-01T12:00,1,"));
+        assertTrue(lines[4].startsWith("3,PAID,2024-03-01T12:00,2024-03-01T12:00,2,"));
+        assertTrue(lines[5].startsWith("4,"));
+    }
+
+    @Test
+    void export_ShouldCloseTheDatabaseStream() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(orderRepository.streamExportRows(any(LocalDateTime.class), any(LocalDateTime.class)))
+                .thenReturn(Stream.<OrderExportRow>empty().onClose(() -> closed.set(true)));
+
+        // When
+        orderExportService.export(null, null, OrderExportService.Format.NDJSON, new ByteArrayOutputStream());
+
+        // Then
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void formatParse_WhenUnsupported_ShouldThrowException() {
+        // When & Then
+        assertEquals(OrderExportService.Format.CSV, OrderExportService.Format.parse("csv"));
+        assertThrows(IllegalArgumentException.class, () -> OrderExportService.Format.parse("xml"));
+    }
+}
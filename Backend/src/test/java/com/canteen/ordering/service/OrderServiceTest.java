@@ -1,25 +1,49 @@
 package com.canteen.ordering.service;
 
+import com.canteen.ordering.dto.CheckoutRequest;
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.OrderLineSummary;
+import com.canteen.ordering.dto.OrderSummary;
 import com.canteen.ordering.entity.MenuItem;
 import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
 import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderLineQuantity;
+import com.canteen.ordering.repository.OrderLineRepository;
 import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.service.metrics.OrderMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,9 +52,24 @@ class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
     
+    @Mock
+    private OrderLineRepository orderLineRepository;
+    
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+    
+    @Mock
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+    
     @Mock
     private MenuItemService menuItemService;
     
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private OrderMetrics orderMetrics;
+    
     @InjectMocks
     private OrderService orderService;
     
@@ -50,20 +89,90 @@ class OrderServiceTest {
         order.setMenuItem(menuItem);
         order.setStatus(OrderStatus.PENDING);
         order.setCreatedAt(LocalDateTime.now());
+        
+        ReflectionTestUtils.setField(orderService, "autoCancelMinutes", 15L);
+    }
+    
+    @Test
+    void getAllOrders_WhenMoreRowsThanLimit_ShouldReturnPageWithCursorToLastRow() {
+        // Given
+        OrderSummary newer = summary(2L, order.getCreatedAt().plusMinutes(1), 1L);
+        OrderSummary current = summary(1L, order.getCreatedAt(), 1L);
+        OrderSummary older = summary(0L, order.getCreatedAt().minusMinutes(1), 1L);
+        when(orderRepository.findFirstPage(any(Pageable.class))).thenReturn(Arrays.asList(newer, current, older));
+        
+        // When
+        CursorPage<OrderSummary> result = orderService.getAllOrders(null, 2);
+        
+        // Then
+        assertEquals(Arrays.asList(newer, current), result.getItems());
+        assertTrue(result.hasNext());
+        OrderCursor cursor = OrderCursor.decode(result.getNextCursor());
+        assertEquals(order.getCreatedAt(), cursor.getCreatedAt());
+        assertEquals(1L, cursor.getId());
+        verify(orderRepository).findFirstPage(PageRequest.of(0, 3));
+    }
+    
+    @Test
+    void getAllOrders_WithCursor_ShouldSeekPastCursorPosition() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 12, 30, 15, 123000000);
+        String cursor = new OrderCursor(createdAt, 42L).encode();
+        when(orderRepository.findPageAfter(eq(createdAt), eq(42L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summary(1L, order.getCreatedAt(), 1L)));
+        
+        // When
+        CursorPage<OrderSummary> result = orderService.getAllOrders(cursor, 50);
+        
+        // Then
+        assertEquals(1, result.getItems().size());
+        assertFalse(result.hasNext());
+        assertNull(result.getNextCursor());
+    }
+    
+    @Test
+    void getAllOrders_WithInvalidCursor_ShouldThrowException() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> orderService.getAllOrders("not-a-cursor", 50));
+        verifyNoInteractions(orderRepository);
     }
     
     @Test
-    void getAllOrders_ShouldReturnAllOrders() {
+    void getAllOrders_ShouldClampLimit() {
         // Given
-        List<Order> orders = Arrays.asList(order);
-        when(orderRepository.findAllOrderByCreatedAtDesc()).thenReturn(orders);
+        when(orderRepository.findFirstPage(any(Pageable.class))).thenReturn(Collections.emptyList());
         
         // When
-        List<Order> result = orderService.getAllOrders();
+        orderService.getAllOrders(null, 10_000);
+        orderService.getAllOrders(null, 0);
         
         // Then
-        assertEquals(1, result.size());
-        verify(orderRepository).findAllOrderByCreatedAtDesc();
+        verify(orderRepository).findFirstPage(PageRequest.of(0, OrderService.MAX_PAGE_SIZE + 1));
+        verify(orderRepository).findFirstPage(PageRequest.of(0, 2));
+    }
+    
+    @Test
+    void getAllOrders_WithCartOrders_ShouldLoadLinesForWholePageInOneQuery() {
+        // Given
+        OrderSummary single = summary(3L, order.getCreatedAt(), 1L);
+        OrderSummary cart = summary(2L, order.getCreatedAt(), null);
+        OrderSummary otherCart = summary(1L, order.getCreatedAt(), null);
+        when(orderRepository.findFirstPage(any(Pageable.class))).thenReturn(Arrays.asList(single, cart, otherCart));
+        when(orderLineRepository.findSummariesByOrderIds(argThat(ids -> ids.size() == 2 && ids.containsAll(Arrays.asList(1L, 2L)))))
+                .thenReturn(Arrays.asList(
+                        new OrderLineSummary(2L, 1L, "Burger", new BigDecimal("10.50"), 2, new BigDecimal("10.50")),
+                        new OrderLineSummary(1L, 1L, "Burger", new BigDecimal("10.50"), 1, new BigDecimal("10.50")),
+                        new OrderLineSummary(2L, 2L, "Fries", new BigDecimal("5.50"), 1, new BigDecimal("5.50"))));
+        
+        // When
+        CursorPage<OrderSummary> result = orderService.getAllOrders(null, 50);
+        
+        // Then
+        assertEquals(3, result.getItems().size());
+        assertTrue(single.getLines().isEmpty());
+        assertEquals(2, cart.getLines().size());
+        assertEquals(1, otherCart.getLines().size());
+        verify(orderLineRepository, times(1)).findSummariesByOrderIds(any());
     }
     
     @Test
@@ -83,8 +192,9 @@ class OrderServiceTest {
     @Test
     void createOrder_WhenMenuItemExistsAndStockAvailable_ShouldCreateOrder() {
         // Given
-        when(menuItemService.getMenuItemById(1L)).thenReturn(Optional.of(menuItem));
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
         when(menuItemService.decrementStock(1L, 1)).thenReturn(true);
+        when(menuItemService.getMenuItemReference(1L)).thenReturn(menuItem);
         when(orderRepository.save(any(Order.class))).thenReturn(order);
         
         // When
@@ -92,7 +202,8 @@ class OrderServiceTest {
         
         // Then
         assertNotNull(result);
-        verify(menuItemService).getMenuItemById(1L);
+        verify(menuItemService).getMenuItemMetadata(1L);
+        verify(menuItemService, never()).getMenuItemById(anyLong());
         verify(menuItemService).decrementStock(1L, 1);
         verify(orderRepository).save(any(Order.class));
     }
@@ -100,13 +211,13 @@ class OrderServiceTest {
     @Test
     void createOrder_WhenMenuItemNotExists_ShouldThrowException() {
         // Given
-        when(menuItemService.getMenuItemById(1L)).thenReturn(Optional.empty());
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.empty());
         
         // When & Then
         assertThrows(RuntimeException.class, () -> {
             orderService.createOrder(1L);
         });
-        verify(menuItemService).getMenuItemById(1L);
+        verify(menuItemService).getMenuItemMetadata(1L);
         verify(menuItemService, never()).decrementStock(anyLong(), anyInt());
         verify(orderRepository, never()).save(any(Order.class));
     }
@@ -114,18 +225,68 @@ class OrderServiceTest {
     @Test
     void createOrder_WhenInsufficientStock_ShouldThrowException() {
         // Given
-        when(menuItemService.getMenuItemById(1L)).thenReturn(Optional.of(menuItem));
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
         when(menuItemService.decrementStock(1L, 1)).thenReturn(false);
         
         // When & Then
         assertThrows(RuntimeException.class, () -> {
             orderService.createOrder(1L);
         });
-        verify(menuItemService).getMenuItemById(1L);
+        verify(menuItemService).getMenuItemMetadata(1L);
         verify(menuItemService).decrementStock(1L, 1);
         verify(orderRepository, never()).save(any(Order.class));
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_ShouldSaveEveryPlacedOrderInOneCallAndRejectOthersIndividually() {
+        // Given
+        MenuItem fries = new MenuItem("Fries", new BigDecimal("5.50"), 0);
+        fries.setId(2L);
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
+        when(menuItemService.getMenuItemMetadata(2L)).thenReturn(Optional.of(MenuItemMetadata.of(fries)));
+        when(menuItemService.getMenuItemMetadata(9L)).thenReturn(Optional.empty());
+        when(menuItemService.decrementStock(1L, 1)).thenReturn(true);
+        when(menuItemService.decrementStock(2L, 1)).thenReturn(false);
+        when(menuItemService.getMenuItemsByIds(Collections.singleton(1L)))
+                .thenReturn(Collections.singletonMap(1L, menuItem));
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // When
+        List<OrderService.OrderAttempt> result = orderService.createOrders(Arrays.asList(2L, 1L, 9L, 1L));
+        
+        // Then
+        assertEquals(4, result.size());
+        assertEquals("Insufficient stock for menu item: Fries", result.get(0).getError());
+        assertTrue(result.get(1).isPlaced());
+        assertEquals(menuItem, result.get(1).getOrder().getMenuItem());
+        assertEquals("Menu item not found with id: 9", result.get(2).getError());
+        assertTrue(result.get(3).isPlaced());
+        ArgumentCaptor<List<Order>> saved = ArgumentCaptor.forClass(List.class);
+        verify(orderRepository).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(eventPublisher, times(2)).publishEvent(any(OrderStatusChangedEvent.class));
+        InOrder inOrder = inOrder(menuItemService);
+        inOrder.verify(menuItemService, times(2)).decrementStock(1L, 1);
+        inOrder.verify(menuItemService).decrementStock(2L, 1);
+    }
+    
+    @Test
+    void createOrders_WhenNothingCanBePlaced_ShouldNotWrite() {
+        // Given
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
+        when(menuItemService.decrementStock(1L, 1)).thenReturn(false);
+        
+        // When
+        List<OrderService.OrderAttempt> result = orderService.createOrders(Collections.singletonList(1L));
+        
+        // Then
+        assertFalse(result.get(0).isPlaced());
+        verify(orderRepository, never()).saveAll(anyList());
+        verify(menuItemService, never()).getMenuItemsByIds(any());
+    }
+    
     @Test
     void cancelOrder_WhenOrderExistsAndPending_ShouldCancelOrder() {
         // Given
@@ -141,6 +302,77 @@ class OrderServiceTest {
         verify(orderRepository).save(any(Order.class));
     }
     
+    @Test
+    void checkout_ShouldMergeLinesAndReserveStockInAscendingIdOrder() {
+        // Given
+        MenuItem fries = new MenuItem("Fries", new BigDecimal("5.50"), 10);
+        fries.setId(2L);
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
+        when(menuItemService.getMenuItemMetadata(2L)).thenReturn(Optional.of(MenuItemMetadata.of(fries)));
+        when(menuItemService.getMenuItemReference(1L)).thenReturn(menuItem);
+        when(menuItemService.getMenuItemReference(2L)).thenReturn(fries);
+        when(menuItemService.decrementStock(anyLong(), anyInt())).thenReturn(true);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        List<CheckoutRequest.Line> lines = Arrays.asList(
+                new CheckoutRequest.Line(2L, 1),
+                new CheckoutRequest.Line(1L, 2),
+                new CheckoutRequest.Line(2L, 3));
+        
+        // When
+        Order result = orderService.checkout(lines);
+        
+        // Then
+        assertEquals(2, result.getLines().size());
+        assertEquals(new BigDecimal("10.50"), result.getLines().get(0).getUnitPrice());
+        assertEquals(OrderStatus.PENDING, result.getStatus());
+        InOrder inOrder = inOrder(menuItemService);
+        inOrder.verify(menuItemService).decrementStock(1L, 2);
+        inOrder.verify(menuItemService).decrementStock(2L, 4);
+        verify(orderRepository, times(1)).save(any(Order.class));
+    }
+    
+    @Test
+    void checkout_WhenAnyLineHasInsufficientStock_ShouldThrowException() {
+        // Given
+        MenuItem fries = new MenuItem("Fries", new BigDecimal("5.50"), 0);
+        fries.setId(2L);
+        when(menuItemService.getMenuItemMetadata(1L)).thenReturn(Optional.of(MenuItemMetadata.of(menuItem)));
+        when(menuItemService.getMenuItemMetadata(2L)).thenReturn(Optional.of(MenuItemMetadata.of(fries)));
+        when(menuItemService.getMenuItemReference(1L)).thenReturn(menuItem);
+        when(menuItemService.decrementStock(1L, 1)).thenReturn(true);
+        when(menuItemService.decrementStock(2L, 1)).thenReturn(false);
+        List<CheckoutRequest.Line> lines = Arrays.asList(
+                new CheckoutRequest.Line(1L, 1),
+                new CheckoutRequest.Line(2L, 1));
+        
+        // When & Then
+        assertThrows(RuntimeException.class, () -> {
+            orderService.checkout(lines);
+        });
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+    
+    @Test
+    void cancelOrder_WhenCartOrderPending_ShouldRestoreEveryLine() {
+        // Given
+        MenuItem fries = new MenuItem("Fries", new BigDecimal("5.50"), 10);
+        fries.setId(2L);
+        Order cartOrder = new Order();
+        cartOrder.setId(2L);
+        cartOrder.addLine(new OrderLine(fries, 3));
+        cartOrder.addLine(new OrderLine(menuItem, 2));
+        when(orderRepository.findById(2L)).thenReturn(Optional.of(cartOrder));
+        when(orderRepository.save(any(Order.class))).thenReturn(cartOrder);
+        
+        // When
+        orderService.cancelOrder(2L);
+        
+        // Then
+        InOrder inOrder = inOrder(menuItemService);
+        inOrder.verify(menuItemService).restoreStock(1L, 2);
+        inOrder.verify(menuItemService).restoreStock(2L, 3);
+    }
+    
     @Test
     void cancelOrder_WhenOrderNotExists_ShouldThrowException() {
         // Given
@@ -214,29 +446,128 @@ class OrderServiceTest {
     @Test
     void getOrderHistory_ShouldReturnAllOrders() {
         // Given
-        List<Order> orders = Arrays.asList(order);
-        when(orderRepository.findAllOrderByCreatedAtDesc()).thenReturn(orders);
+        List<OrderSummary> orders = Arrays.asList(summary(1L, order.getCreatedAt(), 1L));
+        when(orderRepository.findFirstPage(any(Pageable.class))).thenReturn(orders);
+        
+        // When
+        CursorPage<OrderSummary> result = orderService.getOrderHistory(null, 50);
+        
+        // Then
+        assertEquals(1, result.getItems().size());
+        assertFalse(result.hasNext());
+    }
+    
+    @Test
+    void getOrderHistory_WithArchivedOrders_ShouldMergeNewestFirst() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        when(orderRepository.findFirstPage(any(Pageable.class))).thenReturn(Arrays.asList(
+                summary(5L, now, 1L), summary(3L, now.minusDays(1), 1L)));
+        when(archivedOrderRepository.findFirstPage(any(Pageable.class))).thenReturn(Arrays.asList(
+                summary(4L, now.minusHours(2), null), summary(2L, now.minusDays(2), 1L)));
+        OrderLineSummary line = new OrderLineSummary(4L, 1L, "Burger", new BigDecimal("10.50"), 2, new BigDecimal("10.50"));
+        when(archivedOrderLineRepository.findSummariesByOrderIds(Collections.singleton(4L)))
+                .thenReturn(Collections.singletonList(line));
         
         // When
-        List<Order> result = orderService.getOrderHistory();
+        CursorPage<OrderSummary> result = orderService.getOrderHistory(null, 3);
         
         // Then
-        assertEquals(1, result.size());
-        verify(orderRepository).findAllOrderByCreatedAtDesc();
+        assertEquals(Arrays.asList(5L, 4L, 3L), result.getItems().stream().map(OrderSummary::getId).collect(Collectors.toList()));
+        assertEquals(1, result.getItems().get(1).getLines().size());
+        assertTrue(result.hasNext());
+        verify(orderLineRepository, never()).findSummariesByOrderIds(anyCollection());
+    }
+    
+    @Test
+    void getArchivedOrderById_ForCartOrder_ShouldAttachArchivedLines() {
+        // Given
+        when(archivedOrderRepository.findSummaryById(4L)).thenReturn(Optional.of(summary(4L, LocalDateTime.now(), null)));
+        OrderLineSummary line = new OrderLineSummary(4L, 1L, "Burger", new BigDecimal("10.50"), 2, new BigDecimal("10.50"));
+        when(archivedOrderLineRepository.findSummariesByOrderIds(Collections.singleton(4L)))
+                .thenReturn(Collections.singletonList(line));
+        
+        // When
+        Optional<OrderSummary> result = orderService.getArchivedOrderById(4L);
+        
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(1, result.get().getLines().size());
+        verify(orderLineRepository, never()).findSummariesByOrderIds(anyCollection());
     }
     
     @Test
     void getPendingOrders_ShouldReturnPendingOrders() {
         // Given
-        List<Order> pendingOrders = Arrays.asList(order);
-        when(orderRepository.findByStatus(OrderStatus.PENDING)).thenReturn(pendingOrders);
+        List<OrderSummary> pendingOrders = Arrays.asList(summary(1L, order.getCreatedAt(), 1L));
+        when(orderRepository.findFirstPageByStatus(eq(OrderStatus.PENDING), any(Pageable.class)))
+                .thenReturn(pendingOrders);
+        
+        // When
+        CursorPage<OrderSummary> result = orderService.getPendingOrders(null, 50);
+        
+        // Then
+        assertEquals(1, result.getItems().size());
+        verify(orderRepository).findFirstPageByStatus(OrderStatus.PENDING, PageRequest.of(0, 51));
+    }
+    
+    @Test
+    void expireOrders_ShouldFlipLockedOrdersWithOneUpdateAndRestoreStockPerItem() {
+        // Given
+        MenuItem fries = new MenuItem("Fries", new BigDecimal("5.50"), 10);
+        fries.setId(2L);
+        Order secondBurger = new Order(menuItem);
+        secondBurger.setId(2L);
+        Order cartOrder = new Order();
+        cartOrder.setId(3L);
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(orderRepository.findExpiredByIdsForUpdate(eq(ids), eq(OrderStatus.PENDING), any(LocalDateTime.class)))
+                .thenReturn(Arrays.asList(order, secondBurger, cartOrder));
+        OrderLineQuantity friesLine = mock(OrderLineQuantity.class);
+        when(friesLine.getOrderId()).thenReturn(3L);
+        when(friesLine.getMenuItemId()).thenReturn(2L);
+        when(friesLine.getQuantity()).thenReturn(4);
+        OrderLineQuantity burgerLine = mock(OrderLineQuantity.class);
+        when(burgerLine.getOrderId()).thenReturn(3L);
+        when(burgerLine.getMenuItemId()).thenReturn(1L);
+        when(burgerLine.getQuantity()).thenReturn(2);
+        when(orderLineRepository.findQuantitiesByOrderIds(Arrays.asList(3L)))
+                .thenReturn(Arrays.asList(friesLine, burgerLine));
+        when(orderRepository.updateStatusByIds(eq(ids), eq(OrderStatus.PENDING), eq(OrderStatus.CANCELLED),
+                any(LocalDateTime.class))).thenReturn(3);
         
         // When
-        List<Order> result = orderService.getPendingOrders();
+        int cancelled = orderService.expireOrders(ids);
         
         // Then
-        assertEquals(1, result.size());
-        verify(orderRepository).findByStatus(OrderStatus.PENDING);
+        assertEquals(3, cancelled);
+        Map<Long, Integer> expectedRestore = new HashMap<>();
+        expectedRestore.put(1L, 4);
+        expectedRestore.put(2L, 4);
+        verify(menuItemService).restoreStockInBulk(expectedRestore);
+        verify(menuItemService, never()).restoreStock(anyLong(), anyInt());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(eventPublisher, times(3)).publishEvent(any(OrderStatusChangedEvent.class));
+        verify(orderMetrics, times(3)).recordAutoCancelled(any(), any(LocalDateTime.class));
+    }
+    
+    @Test
+    void cancelExpiredOrders_WhenNothingDue_ShouldNotUpdateAnything() {
+        // Given
+        when(orderRepository.findExpiredForUpdate(eq(OrderStatus.PENDING), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+        
+        // When
+        int cancelled = orderService.cancelExpiredOrders(200);
+        
+        // Then
+        assertEquals(0, cancelled);
+        verify(orderRepository, never()).updateStatusByIds(anyCollection(), any(), any(), any());
+        verify(menuItemService, never()).restoreStockInBulk(anyMap());
+    }
+    
+    private OrderSummary summary(Long id, LocalDateTime createdAt, Long menuItemId) {
+        return new OrderSummary(id, OrderStatus.PENDING, createdAt, createdAt,
+                menuItemId, menuItemId != null ? "Burger" : null, menuItemId != null ? new BigDecimal("10.50") : null);
     }
 }
-
@@ -0,0 +1,231 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.dto.OrderStats;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.MenuItemStatusQuantity;
+import com.canteen.ordering.repository.OrderLineRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.repository.OrderStatusCount;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderStatsServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderLineRepository orderLineRepository;
+
+    @Mock
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Mock
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    @Mock
+    private MenuItemService menuItemService;
+
+    @InjectMocks
+    private OrderStatsService orderStatsService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(menuItemService.getMenuItemMetadata(1L))
+                .thenReturn(Optional.of(new MenuItemMetadata(1L, "Burger", new BigDecimal("10.50"))));
+        lenient().when(menuItemService.getMenuItemMetadata(2L))
+                .thenReturn(Optional.of(new MenuItemMetadata(2L, "Fries", new BigDecimal("3.25"))));
+    }
+
+    @Test
+    void onOrderStatusChanged_ShouldMoveOrdersBetweenStatuses() {
+        // Given
+        orderStatsService.onOrderStatusChanged(event(1L, null, OrderStatus.PENDING, quantities(1L, 1), null));
+        orderStatsService.onOrderStatusChanged(event(2L, null, OrderStatus.PENDING, quantities(2L, 4), amounts(2L, "13.00")));
+        orderStatsService.onOrderStatusChanged(event(3L, null, OrderStatus.PENDING, quantities(1L, 1), null));
+
+        // When
+        orderStatsService.onOrderStatusChanged(event(1L, OrderStatus.PENDING, OrderStatus.PAID, quantities(1L, 1), null));
+        orderStatsService.onOrderStatusChanged(event(2L, OrderStatus.PENDING, OrderStatus.PAID, quantities(2L, 4), amounts(2L, "13.00")));
+        orderStatsService.onOrderStatusChanged(event(3L, OrderStatus.PENDING, OrderStatus.CANCELLED, quantities(1L, 1), null));
+
+        // Then
+        OrderStats stats = orderStatsService.getStats();
+        assertEquals(3, stats.getTotalOrders());
+        assertEquals(0, stats.getPendingOrders());
+        assertEquals(2, stats.getPaidOrders());
+        assertEquals(1, stats.getCancelledOrders());
+        assertEquals(new BigDecimal("23.50"), stats.getPaidRevenue());
+        assertEquals(2, stats.getMenuItems().size());
+        OrderStats.MenuItemStats burger = stats.getMenuItems().get(0);
+        assertEquals("Burger", burger.getName());
+        assertEquals(0, burger.getPendingUnits());
+        assertEquals(1, burger.getPaidUnits());
+        assertEquals(1, burger.getCancelledUnits());
+        assertEquals(4, stats.getMenuItems().get(1).getPaidUnits());
+        verifyNoInteractions(orderRepository, orderLineRepository, archivedOrderRepository, archivedOrderLineRepository);
+    }
+
+    @Test
+    void load_ShouldTakeCountersFromDatabase() {
+        // Given
+        stubDatabase(5, new BigDecimal("42.00"));
+
+        // When
+        orderStatsService.load();
+
+        // Then
+        OrderStats stats = orderStatsService.getStats();
+        assertEquals(5, stats.getPaidOrders());
+        assertEquals(new BigDecimal("42.00"), stats.getPaidRevenue());
+        assertEquals(5, stats.getMenuItems().get(0).getPaidUnits());
+        assertNotNull(stats.getReconciledAt());
+    }
+
+    @Test
+    void reconcile_ShouldCorrectOnlyDriftSeenTwiceInARow() {
+        // Given
+        stubDatabase(5, new BigDecimal("42.00"));
+        orderStatsService.load();
+        // An order paid in the database without its event reaching the counters
+        stubDatabase(6, new BigDecimal("52.50"));
+
+        // When
+        orderStatsService.reconcile();
+
+        // Then
+        assertEquals(5, orderStatsService.getStats().getPaidOrders());
+
+        // When
+        orderStatsService.reconcile();
+
+        // Then
+        OrderStats stats = orderStatsService.getStats();
+        assertEquals(6, stats.getPaidOrders());
+        assertEquals(new BigDecimal("52.50"), stats.getPaidRevenue());
+        assertEquals(6, stats.getMenuItems().get(0).getPaidUnits());
+    }
+
+    @Test
+    void reconcile_WhenEventCatchesUp_ShouldLeaveCountersAlone() {
+        // Given
+        stubDatabase(5, new BigDecimal("42.00"));
+        orderStatsService.load();
+        stubDatabase(6, new BigDecimal("52.50"));
+        orderStatsService.reconcile();
+
+        // When
+        orderStatsService.onOrderStatusChanged(event(9L, null, OrderStatus.PAID, quantities(1L, 1), null));
+        orderStatsService.reconcile();
+
+        // Then
+        OrderStats stats = orderStatsService.getStats();
+        assertEquals(6, stats.getPaidOrders());
+        assertEquals(new BigDecimal("52.50"), stats.getPaidRevenue());
+    }
+
+    @Test
+    void load_ShouldCountArchivedOrders() {
+        // Given
+        stubDatabase(5, new BigDecimal("42.00"));
+        when(archivedOrderRepository.countGroupedByStatus())
+                .thenReturn(Collections.singletonList(count(OrderStatus.PAID, 2)));
+        when(archivedOrderRepository.countSingleItemOrdersByMenuItemAndStatus())
+                .thenReturn(Collections.singletonList(quantity(1L, OrderStatus.PAID, 2)));
+        when(archivedOrderRepository.sumSingleItemOrderAmounts(OrderStatus.PAID)).thenReturn(new BigDecimal("21.00"));
+
+        // When
+        orderStatsService.load();
+
+        // Then
+        OrderStats stats = orderStatsService.getStats();
+        assertEquals(7, stats.getPaidOrders());
+        assertEquals(new BigDecimal("63.00"), stats.getPaidRevenue());
+        assertEquals(7, stats.getMenuItems().get(0).getPaidUnits());
+    }
+
+    private void stubDatabase(long paidBurgers, BigDecimal revenue) {
+        when(orderRepository.countGroupedByStatus())
+                .thenReturn(Collections.singletonList(count(OrderStatus.PAID, paidBurgers)));
+        when(orderRepository.countSingleItemOrdersByMenuItemAndStatus())
+                .thenReturn(Arrays.asList(quantity(1L, OrderStatus.PAID, paidBurgers)));
+        when(orderLineRepository.sumQuantitiesByMenuItemAndStatus()).thenReturn(Collections.emptyList());
+        when(orderRepository.sumSingleItemOrderAmounts(OrderStatus.PAID)).thenReturn(revenue);
+        when(orderLineRepository.sumLineAmounts(OrderStatus.PAID)).thenReturn(BigDecimal.ZERO);
+        when(archivedOrderRepository.countGroupedByStatus()).thenReturn(Collections.emptyList());
+        when(archivedOrderRepository.countSingleItemOrdersByMenuItemAndStatus()).thenReturn(Collections.emptyList());
+        when(archivedOrderLineRepository.sumQuantitiesByMenuItemAndStatus()).thenReturn(Collections.emptyList());
+        when(archivedOrderRepository.sumSingleItemOrderAmounts(OrderStatus.PAID)).thenReturn(BigDecimal.ZERO);
+        when(archivedOrderLineRepository.sumLineAmounts(OrderStatus.PAID)).thenReturn(BigDecimal.ZERO);
+    }
+
+    private static OrderStatusChangedEvent event(Long orderId, OrderStatus previousStatus, OrderStatus newStatus,
+                                                 Map<Long, Integer> itemQuantities, Map<Long, BigDecimal> itemAmounts) {
+        return new OrderStatusChangedEvent(orderId, previousStatus, newStatus, LocalDateTime.now(), itemQuantities, itemAmounts);
+    }
+
+    private static Map<Long, BigDecimal> amounts(Long menuItemId, String amount) {
+        Map<Long, BigDecimal> amounts = new TreeMap<>();
+        amounts.put(menuItemId, new BigDecimal(amount));
+        return amounts;
+    }
+
+    private static Map<Long, Integer> quantities(Long menuItemId, int quantity) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        quantities.put(menuItemId, quantity);
+        return quantities;
+    }
+
+    private static OrderStatusCount count(OrderStatus status, long count) {
+        return new OrderStatusCount() {
+            @Override
+            public OrderStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
+    private static MenuItemStatusQuantity quantity(Long menuItemId, OrderStatus status, long quantity) {
+        return new MenuItemStatusQuantity() {
+            @Override
+            public Long getMenuItemId() {
+                return menuItemId;
+            }
+
+            @Override
+            public OrderStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getQuantity() {
+                return quantity;
+            }
+        };
+    }
+}
@@ -0,0 +1,120 @@
+package com.canteen.ordering.service;
+
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.OrderSummary;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.service.metrics.OrderMetrics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the SQL statements behind an order listing page against a real (H2) database, so a lazy
+ * association sneaking back into the read path shows up as a failure rather than as N+1 in production.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("dev")
+@Import(OrderService.class)
+class OrderSummaryStatementCountTest {
+
+    private static final int SINGLE_ITEM_ORDERS = 20;
+    private static final int CART_ORDERS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private OrderService orderService;
+
+    @MockBean
+    private MenuItemService menuItemService;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        MenuItem burger = entityManager.persist(new MenuItem("Burger", new BigDecimal("10.50"), 100));
+        MenuItem fries = entityManager.persist(new MenuItem("Fries", new BigDecimal("5.50"), 100));
+
+        for (int i = 0; i < SINGLE_ITEM_ORDERS; i++) {
+            entityManager.persist(new Order(i % 2 == 0 ? burger : fries));
+        }
+        for (int i = 0; i < CART_ORDERS; i++) {
+            Order cart = new Order();
+            cart.setStatus(OrderStatus.PAID);
+            cart.addLine(new OrderLine(burger, 2));
+            cart.addLine(new OrderLine(fries, 1));
+            entityManager.persist(cart);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAllOrders_WithCartOrders_ShouldUseOneQueryForOrdersAndOneForLines() {
+        // When
+        CursorPage<OrderSummary> page = orderService.getAllOrders(null, 50);
+
+        // Then
+        assertEquals(SINGLE_ITEM_ORDERS + CART_ORDERS, page.getItems().size());
+        for (OrderSummary order : page.getItems()) {
+            if (order.getMenuItem() != null) {
+                assertNotNull(order.getMenuItem().getName());
+            } else {
+                assertEquals(2, order.getLines().size());
+            }
+        }
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getPendingOrders_WithSingleItemOrdersOnly_ShouldUseOneQuery() {
+        // When
+        CursorPage<OrderSummary> page = orderService.getPendingOrders(null, 10);
+
+        // Then
+        assertEquals(10, page.getItems().size());
+        assertTrue(page.hasNext());
+        page.getItems().forEach(order -> assertEquals("PENDING", order.getStatus().name()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getPendingOrders_NextPage_ShouldStillUseOneQuery() {
+        // Given
+        String cursor = orderService.getPendingOrders(null, 10).getNextCursor();
+        statistics.clear();
+
+        // When
+        CursorPage<OrderSummary> page = orderService.getPendingOrders(cursor, 10);
+
+        // Then
+        assertEquals(SINGLE_ITEM_ORDERS - 10, page.getItems().size());
+        assertFalse(page.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,142 @@
+package com.canteen.ordering.service.archive;
+
+import com.canteen.ordering.dto.CursorPage;
+import com.canteen.ordering.dto.OrderSummary;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.repository.ArchivedOrderLineRepository;
+import com.canteen.ordering.repository.ArchivedOrderRepository;
+import com.canteen.ordering.repository.OrderLineRepository;
+import com.canteen.ordering.repository.OrderRepository;
+import com.canteen.ordering.service.MenuItemService;
+import com.canteen.ordering.service.OrderService;
+import com.canteen.ordering.service.metrics.OrderMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the archival statements against a real (H2) database and reads the result back through
+ * the unified order history.
+ */
+@DataJpaTest(properties = {
+        "app.orders.archive.min-age-days=30",
+        "app.orders.archive.batch-size=2",
+        "app.orders.archive.pause-ms=0"
+})
+@ActiveProfiles("dev")
+@Import({OrderArchiver.class, OrderService.class})
+class OrderArchiverTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderLineRepository archivedOrderLineRepository;
+
+    @MockBean
+    private MenuItemService menuItemService;
+
+    @MockBean
+    private OrderMetrics orderMetrics;
+
+    private final List<Long> oldFinalIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MenuItem burger = entityManager.persist(new MenuItem("Burger", new BigDecimal("10.50"), 100));
+        MenuItem fries = entityManager.persist(new MenuItem("Fries", new BigDecimal("5.50"), 100));
+
+        oldFinalIds.add(persist(new Order(burger), OrderStatus.PAID));
+        oldFinalIds.add(persist(new Order(fries), OrderStatus.CANCELLED));
+        Order cart = new Order();
+        cart.addLine(new OrderLine(burger, 2));
+        cart.addLine(new OrderLine(fries, 1));
+        oldFinalIds.add(persist(cart, OrderStatus.PAID));
+        persist(new Order(burger), OrderStatus.PENDING);
+        entityManager.flush();
+
+        // Backdate every order so far, then add a recent paid order that must stay
+        LocalDateTime longAgo = LocalDateTime.now().minusDays(60);
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Order o SET o.createdAt = :longAgo, o.updatedAt = :longAgo")
+                .setParameter("longAgo", longAgo)
+                .executeUpdate();
+        persist(new Order(burger), OrderStatus.PAID);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void archive_ShouldMoveOldFinalOrdersInBatches() {
+        // When
+        int archived = orderArchiver.archive();
+
+        // Then
+        assertEquals(3, archived);
+        assertEquals(2, orderRepository.count());
+        assertEquals(0, orderLineRepository.count());
+        assertEquals(3, archivedOrderRepository.count());
+        assertEquals(2, archivedOrderLineRepository.count());
+        oldFinalIds.forEach(id -> {
+            assertFalse(orderRepository.existsById(id));
+            assertTrue(archivedOrderRepository.existsById(id));
+        });
+    }
+
+    @Test
+    void getOrderHistory_AfterArchive_ShouldStillListEveryOrder() {
+        // Given
+        orderArchiver.archive();
+
+        // When
+        CursorPage<OrderSummary> first = orderService.getOrderHistory(null, 3);
+        CursorPage<OrderSummary> second = orderService.getOrderHistory(first.getNextCursor(), 3);
+
+        // Then
+        assertEquals(3, first.getItems().size());
+        assertEquals(2, second.getItems().size());
+        assertFalse(second.hasNext());
+        List<OrderSummary> all = new ArrayList<>(first.getItems());
+        all.addAll(second.getItems());
+        OrderSummary cart = all.stream().filter(order -> order.getMenuItem() == null).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(2, cart.getLines().size());
+        assertTrue(all.stream().map(OrderSummary::getId).collect(Collectors.toSet())
+                .containsAll(oldFinalIds));
+    }
+
+    private Long persist(Order order, OrderStatus status) {
+        order.setStatus(status);
+        return entityManager.persist(order).getId();
+    }
+}
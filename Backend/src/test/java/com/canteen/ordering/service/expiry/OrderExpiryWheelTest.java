@@ -0,0 +1,110 @@
+package com.canteen.ordering.service.expiry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderExpiryWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    private OrderExpiryWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new OrderExpiryWheel(1000, 16, START);
+    }
+
+    @Test
+    void advance_ShouldReturnOnlyOrdersWhoseDeadlineHasPassed() {
+        // Given
+        wheel.schedule(1L, START + 2_000);
+        wheel.schedule(2L, START + 5_000);
+
+        // When
+        List<Long> early = wheel.advance(START + 1_999);
+        List<Long> due = wheel.advance(START + 2_000);
+
+        // Then
+        assertTrue(early.isEmpty());
+        assertEquals(Collections.singletonList(1L), due);
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void advance_ShouldFireDeadlinesBeyondOneRevolutionOnLaterRevolution() {
+        // Given: wheel spans 16 seconds
+        wheel.schedule(1L, START + 40_000);
+
+        // When
+        List<Long> firstRevolution = wheel.advance(START + 20_000);
+        List<Long> due = wheel.advance(START + 40_000);
+
+        // Then
+        assertTrue(firstRevolution.isEmpty());
+        assertEquals(Collections.singletonList(1L), due);
+    }
+
+    @Test
+    void advance_AfterLongPause_ShouldFireEverythingOverdue() {
+        // Given
+        wheel.schedule(1L, START + 3_000);
+        wheel.schedule(2L, START + 9_000);
+        wheel.schedule(3L, START + 100_000);
+
+        // When
+        List<Long> due = wheel.advance(START + 60_000);
+
+        // Then
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(due));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void schedule_WhenDeadlineAlreadyPassed_ShouldFireOnNextAdvance() {
+        // Given
+        wheel.schedule(1L, START - 60_000);
+
+        // When
+        List<Long> due = wheel.advance(START + 1_000);
+
+        // Then
+        assertEquals(Collections.singletonList(1L), due);
+    }
+
+    @Test
+    void cancel_ShouldPreventOrderFromFiring() {
+        // Given
+        wheel.schedule(1L, START + 2_000);
+
+        // When
+        boolean cancelled = wheel.cancel(1L);
+        List<Long> due = wheel.advance(START + 10_000);
+
+        // Then
+        assertTrue(cancelled);
+        assertTrue(due.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_WhenRescheduled_ShouldKeepOnlyLatestDeadline() {
+        // Given
+        wheel.schedule(1L, START + 2_000);
+        wheel.schedule(1L, START + 8_000);
+
+        // When
+        List<Long> early = wheel.advance(START + 5_000);
+        List<Long> due = wheel.advance(START + 8_000);
+
+        // Then
+        assertTrue(early.isEmpty());
+        assertEquals(Collections.singletonList(1L), due);
+    }
+}
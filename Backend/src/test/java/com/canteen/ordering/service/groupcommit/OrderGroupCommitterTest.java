@@ -0,0 +1,172 @@
+package com.canteen.ordering.service.groupcommit;
+
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderGroupCommitterTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @InjectMocks
+    private OrderGroupCommitter committer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(committer, "timeoutMillis", 5_000L);
+    }
+
+    @Test
+    void commit_ShouldHandEachCallerItsOwnOutcome() throws Exception {
+        // Given
+        Order placed = order(7L);
+        when(orderService.createOrders(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(
+                OrderService.OrderAttempt.placed(placed),
+                OrderService.OrderAttempt.rejected("Insufficient stock for menu item: Fries")));
+        OrderGroupCommitter.PendingOrder first = new OrderGroupCommitter.PendingOrder(1L);
+        OrderGroupCommitter.PendingOrder second = new OrderGroupCommitter.PendingOrder(2L);
+
+        // When
+        committer.commit(Arrays.asList(first, second));
+
+        // Then
+        assertSame(placed, first.result.get());
+        ExecutionException rejected = assertThrows(ExecutionException.class, () -> second.result.get());
+        assertEquals("Insufficient stock for menu item: Fries", rejected.getCause().getMessage());
+    }
+
+    @Test
+    void commit_WhenGroupTransactionFails_ShouldRetryEachOrderAlone() throws Exception {
+        // Given
+        Order placed = order(7L);
+        when(orderService.createOrders(Arrays.asList(1L, 2L))).thenThrow(new RuntimeException("Deadlock found"));
+        when(orderService.createOrders(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(OrderService.OrderAttempt.placed(placed)));
+        when(orderService.createOrders(Collections.singletonList(2L))).thenReturn(Collections.singletonList(
+                OrderService.OrderAttempt.rejected("Menu item not found with id: 2")));
+        OrderGroupCommitter.PendingOrder first = new OrderGroupCommitter.PendingOrder(1L);
+        OrderGroupCommitter.PendingOrder second = new OrderGroupCommitter.PendingOrder(2L);
+
+        // When
+        committer.commit(Arrays.asList(first, second));
+
+        // Then
+        assertSame(placed, first.result.get());
+        assertTrue(second.result.isCompletedExceptionally());
+        verify(orderService, never()).createOrder(anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrder_WhenTimedOutBeforeCommit_ShouldWithdrawTheRequest() {
+        // Given no committer is running to take the request
+        ReflectionTestUtils.setField(committer, "timeoutMillis", 50L);
+        ReflectionTestUtils.setField(committer, "running", true);
+
+        // When
+        RuntimeException timedOut = assertThrows(RuntimeException.class, () -> committer.createOrder(1L));
+        BlockingQueue<OrderGroupCommitter.PendingOrder> queue =
+                (BlockingQueue<OrderGroupCommitter.PendingOrder>) ReflectionTestUtils.getField(committer, "queue");
+        committer.commit(new ArrayList<>(queue));
+
+        // Then
+        assertTrue(timedOut.getMessage().contains("not placed"));
+        verify(orderService, never()).createOrders(anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrder_WhenTimedOutAfterClaim_ShouldWaitForTheOutcome() throws Exception {
+        // Given a committer that takes the request but is slow to commit it
+        ReflectionTestUtils.setField(committer, "timeoutMillis", 500L);
+        ReflectionTestUtils.setField(committer, "running", true);
+        Order placed = order(7L);
+        BlockingQueue<OrderGroupCommitter.PendingOrder> queue =
+                (BlockingQueue<OrderGroupCommitter.PendingOrder>) ReflectionTestUtils.getField(committer, "queue");
+        ExecutorService callerThread = Executors.newSingleThreadExecutor();
+
+        try {
+            CompletableFuture<Order> caller = CompletableFuture.supplyAsync(() -> committer.createOrder(1L), callerThread);
+            OrderGroupCommitter.PendingOrder pending = queue.poll(5, TimeUnit.SECONDS);
+            assertTrue(pending.claim());
+            // Past the caller's first timeout, well within its second
+            Thread.sleep(700);
+
+            // When
+            pending.result.complete(placed);
+
+            // Then
+            assertSame(placed, caller.get(5, TimeUnit.SECONDS));
+        } finally {
+            callerThread.shutdownNow();
+        }
+    }
+
+    @Test
+    void createOrder_ShouldGroupConcurrentCallersIntoOneTransaction() throws Exception {
+        // Given: a long window that only closes once the batch is full
+        ReflectionTestUtils.setField(committer, "windowMillis", 5_000L);
+        ReflectionTestUtils.setField(committer, "maxBatch", 3);
+        ReflectionTestUtils.setField(committer, "committerCount", 1);
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            List<OrderService.OrderAttempt> attempts = new ArrayList<>();
+            for (Long menuItemId : invocation.<List<Long>>getArgument(0)) {
+                attempts.add(OrderService.OrderAttempt.placed(order(menuItemId * 10)));
+            }
+            return attempts;
+        });
+        committer.start();
+        ExecutorService callerThreads = Executors.newFixedThreadPool(3);
+
+        try {
+            // When
+            List<CompletableFuture<Order>> callers = new ArrayList<>();
+            for (long menuItemId = 1; menuItemId <= 3; menuItemId++) {
+                long id = menuItemId;
+                callers.add(CompletableFuture.supplyAsync(() -> committer.createOrder(id), callerThreads));
+            }
+
+            // Then
+            HashSet<Long> orderIds = new HashSet<>();
+            for (CompletableFuture<Order> caller : callers) {
+                orderIds.add(caller.get(5, TimeUnit.SECONDS).getId());
+            }
+            assertEquals(new HashSet<>(Arrays.asList(10L, 20L, 30L)), orderIds);
+            verify(orderService, times(1)).createOrders(anyList());
+            verify(orderService, never()).createOrder(anyLong());
+        } finally {
+            callerThreads.shutdownNow();
+            committer.shutdown();
+        }
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+}
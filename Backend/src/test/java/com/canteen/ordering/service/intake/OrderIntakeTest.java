@@ -0,0 +1,129 @@
+package com.canteen.ordering.service.intake;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.event.OrderTicketCompletedEvent;
+import com.canteen.ordering.service.MenuItemService;
+import com.canteen.ordering.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIntakeTest {
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private MenuItemService menuItemService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OrderIntake orderIntake;
+
+    private BlockingQueue<OrderIntake.PendingOrder> queue;
+
+    @BeforeEach
+    void setUp() {
+        // Drive the intake without its worker threads
+        queue = new ArrayBlockingQueue<>(2);
+        ReflectionTestUtils.setField(orderIntake, "queue", queue);
+        ReflectionTestUtils.setField(orderIntake, "accepting", true);
+        ReflectionTestUtils.setField(orderIntake, "queueCapacity", 2);
+    }
+
+    @Test
+    void submit_WhenMenuItemUnknown_ShouldRejectWithoutQueueing() {
+        // Given
+        when(menuItemService.getMenuItemMetadata(9L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> orderIntake.submit(9L));
+        assertEquals(0, orderIntake.getQueueDepth());
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldShedOrder() {
+        // Given
+        stubMenuItem(1L);
+        orderIntake.submit(1L);
+        orderIntake.submit(1L);
+
+        // When
+        Optional<OrderTicket> ticket = orderIntake.submit(1L);
+
+        // Then
+        assertFalse(ticket.isPresent());
+        assertEquals(2, orderIntake.getQueueDepth());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void process_ShouldCompleteEachTicketIndependently() {
+        // Given
+        stubMenuItem(1L);
+        stubMenuItem(2L);
+        Order order = new Order();
+        order.setId(42L);
+        when(orderService.createOrder(1L)).thenReturn(order);
+        when(orderService.createOrder(2L)).thenThrow(new RuntimeException("Insufficient stock for menu item: Salad"));
+        OrderTicket accepted = orderIntake.submit(1L).get();
+        OrderTicket rejected = orderIntake.submit(2L).get();
+        List<OrderIntake.PendingOrder> batch = new ArrayList<>();
+        queue.drainTo(batch);
+
+        // When
+        orderIntake.process(batch);
+
+        // Then
+        assertEquals(OrderTicket.Status.COMPLETED, accepted.getStatus());
+        assertEquals(42L, accepted.getOrderId());
+        assertEquals(OrderTicket.Status.FAILED, rejected.getStatus());
+        assertEquals("Insufficient stock for menu item: Salad", rejected.getError());
+        assertEquals(Optional.of(accepted), orderIntake.getTicket(accepted.getId()));
+        verify(eventPublisher, times(2)).publishEvent(any(OrderTicketCompletedEvent.class));
+    }
+
+    @Test
+    void evictCompletedTickets_ShouldKeepTicketsStillInFlight() {
+        // Given
+        stubMenuItem(1L);
+        ReflectionTestUtils.setField(orderIntake, "ticketTtlMillis", 60_000L);
+        OrderTicket queued = orderIntake.submit(1L).get();
+        OrderTicket done = orderIntake.submit(1L).get();
+        done.failed("Insufficient stock");
+        ReflectionTestUtils.setField(done, "completedAt", LocalDateTime.now().minusMinutes(5));
+
+        // When
+        orderIntake.evictCompletedTickets();
+
+        // Then
+        assertTrue(orderIntake.getTicket(queued.getId()).isPresent());
+        assertFalse(orderIntake.getTicket(done.getId()).isPresent());
+    }
+
+    private void stubMenuItem(Long id) {
+        when(menuItemService.getMenuItemMetadata(id))
+                .thenReturn(Optional.of(new MenuItemMetadata(id, "Item " + id, new BigDecimal("5.00"))));
+    }
+}
@@ -0,0 +1,201 @@
+package com.canteen.ordering.service.live;
+
+import com.canteen.ordering.dto.OrderStatusUpdate;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.event.OrderTicketCompletedEvent;
+import com.canteen.ordering.event.StockChangedEvent;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.intake.OrderTicket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveEventBroadcasterTest {
+
+    @Mock
+    private MenuItemRepository menuItemRepository;
+
+    @InjectMocks
+    private LiveEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(broadcaster, "emitterTimeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "subscriberBuffer", 16);
+        ReflectionTestUtils.setField(broadcaster, "dispatchThreads", 1);
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMillis", 50L);
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishStockChanges_ShouldReadEachChangedItemOnceForBurst() {
+        // Given
+        broadcaster.subscribe(null);
+        broadcaster.subscribe(null);
+        when(menuItemRepository.findStockCountsByIds(any())).thenReturn(Collections.emptyList());
+        broadcaster.onStockChanged(new StockChangedEvent(1L));
+        broadcaster.onStockChanged(new StockChangedEvent(1L));
+        broadcaster.onStockChanged(new StockChangedEvent(2L));
+
+        // When
+        broadcaster.publishStockChanges();
+        broadcaster.publishStockChanges();
+
+        // Then
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(menuItemRepository, times(1)).findStockCountsByIds(ids.capture());
+        assertEquals(new HashSet<>(Arrays.asList(1L, 2L)), new HashSet<>(ids.getValue()));
+    }
+
+    @Test
+    void onStockChanged_WithoutSubscribers_ShouldNotReadStock() {
+        // When
+        broadcaster.onStockChanged(new StockChangedEvent(1L));
+        broadcaster.publishStockChanges();
+
+        // Then
+        verifyNoInteractions(menuItemRepository);
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void shutdown_ShouldDisconnectSubscribers() {
+        // Given
+        broadcaster.subscribe(null);
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        // When
+        broadcaster.shutdown();
+
+        // Then
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    void closeStalledSubscribers_ShouldKeepOtherSubscribersReceiving() throws Exception {
+        // Given a client whose first write blocks on the only dispatch thread, and one queued behind it
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingEmitter stalled = new BlockingEmitter(release);
+        BlockingEmitter healthy = new BlockingEmitter(null);
+        try {
+            broadcaster.subscribe(stalled, null);
+            assertTrue(stalled.sending.await(5, TimeUnit.SECONDS));
+            broadcaster.subscribe(healthy, null);
+            Thread.sleep(100);
+
+            // When
+            broadcaster.closeStalledSubscribers();
+
+            // Then
+            assertTrue(healthy.sent.await(5, TimeUnit.SECONDS));
+            assertEquals(1, broadcaster.getSubscriberCount());
+            assertEquals(2, broadcaster.getDispatchThreads());
+        } finally {
+            release.countDown();
+        }
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        broadcaster.closeStalledSubscribers();
+        assertEquals(1, broadcaster.getDispatchThreads());
+    }
+
+    @Test
+    void onOrderTicketCompleted_ShouldReachOnlySubscribersOfThatTicket() throws Exception {
+        // Given
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter other = new RecordingEmitter();
+        broadcaster.subscribe(owner, "t-1");
+        broadcaster.subscribe(other, null);
+        OrderTicket ticket = new OrderTicket("t-1");
+
+        // When
+        broadcaster.onOrderTicketCompleted(new OrderTicketCompletedEvent(ticket));
+        broadcaster.onOrderStatusChanged(new OrderStatusChangedEvent(7L, OrderStatus.PENDING, OrderStatus.PAID,
+                LocalDateTime.now(), Collections.emptyMap(), null));
+
+        // Then
+        assertSame(ticket, owner.payloads.poll(5, TimeUnit.SECONDS));
+        assertTrue(owner.payloads.poll(5, TimeUnit.SECONDS) instanceof OrderStatusUpdate);
+        // Events reach a client in order, so a ticket event would have come before the status change
+        assertTrue(other.payloads.poll(5, TimeUnit.SECONDS) instanceof OrderStatusUpdate);
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        final BlockingQueue<Object> payloads = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                // The "event:" / "data:" framing is plain text; payloads are added without a media type
+                if (data.getMediaType() == null) {
+                    payloads.add(data.getData());
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+        }
+    }
+
+    private static class BlockingEmitter extends SseEmitter {
+
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        BlockingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.countDown();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
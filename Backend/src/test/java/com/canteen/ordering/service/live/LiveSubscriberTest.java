@@ -0,0 +1,140 @@
+package com.canteen.ordering.service.live;
+
+import com.canteen.ordering.dto.StockUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveSubscriberTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final Executor queuedExecutor = tasks::add;
+    private final List<LiveSubscriber> closed = new ArrayList<>();
+
+    private RecordingEmitter emitter;
+    private LiveSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        emitter = new RecordingEmitter();
+        subscriber = new LiveSubscriber(emitter, 3, queuedExecutor, closed::add);
+    }
+
+    @Test
+    void offerStock_ShouldKeepOnlyLatestCountPerMenuItem() {
+        // Given
+        StockUpdate latest = new StockUpdate(1L, 3);
+        StockUpdate other = new StockUpdate(2L, 9);
+
+        // When
+        subscriber.offerStock(new StockUpdate(1L, 5));
+        subscriber.offerStock(new StockUpdate(1L, 4));
+        subscriber.offerStock(other);
+        subscriber.offerStock(latest);
+        runTasks();
+
+        // Then
+        assertEquals(Arrays.asList(latest, other), emitter.sent);
+    }
+
+    @Test
+    void offer_ShouldScheduleOneDrainTaskUntilItRuns() {
+        // When
+        subscriber.offer("order", "a");
+        subscriber.offer("order", "b");
+
+        // Then
+        assertEquals(1, tasks.size());
+        runTasks();
+        assertEquals(Arrays.asList("a", "b"), emitter.sent);
+        assertEquals(0, subscriber.pendingCount());
+    }
+
+    @Test
+    void offer_WhenBufferIsFull_ShouldDisconnectSubscriber() {
+        // Given
+        subscriber.offer("order", "a");
+        subscriber.offer("order", "b");
+        subscriber.offerStock(new StockUpdate(1L, 2));
+
+        // When
+        boolean accepted = subscriber.offer("order", "c");
+        runTasks();
+
+        // Then
+        assertFalse(accepted);
+        assertTrue(subscriber.isClosed());
+        assertTrue(emitter.completed);
+        assertEquals(Arrays.asList(subscriber), closed);
+    }
+
+    @Test
+    void offerStock_ForItemAlreadyPending_ShouldNotCountAgainstBuffer() {
+        // Given
+        subscriber.offer("order", "a");
+        subscriber.offer("order", "b");
+        subscriber.offerStock(new StockUpdate(1L, 2));
+
+        // When
+        boolean accepted = subscriber.offerStock(new StockUpdate(1L, 1));
+
+        // Then
+        assertTrue(accepted);
+        assertFalse(subscriber.isClosed());
+    }
+
+    @Test
+    void drain_WhenSendFails_ShouldCloseSubscriber() {
+        // Given
+        emitter.failSends = true;
+        subscriber.offer("order", "a");
+
+        // When
+        runTasks();
+
+        // Then
+        assertTrue(subscriber.isClosed());
+        assertEquals(Arrays.asList(subscriber), closed);
+        assertFalse(subscriber.offer("order", "b"));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        final List<Object> sent = new ArrayList<>();
+        boolean failSends;
+        boolean completed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failSends) {
+                throw new IOException("Broken pipe");
+            }
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                // The "event:" / "data:" framing is plain text; payloads are added without a media type
+                if (data.getMediaType() == null) {
+                    sent.add(data.getData());
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
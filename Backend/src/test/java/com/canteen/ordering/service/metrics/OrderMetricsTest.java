@@ -0,0 +1,88 @@
+package com.canteen.ordering.service.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class OrderMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private OrderMetrics orderMetrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        orderMetrics = new OrderMetrics();
+        ReflectionTestUtils.setField(orderMetrics, "meterRegistry", registry);
+        ReflectionTestUtils.setField(orderMetrics, "stockMode", "jpa");
+        ReflectionTestUtils.setField(orderMetrics, "stockLocking", "pessimistic");
+        ReflectionTestUtils.setField(orderMetrics, "autoCancelMinutes", 15L);
+    }
+
+    @Test
+    void recordStockDecrement_ShouldTimeByEngineAndOutcome() {
+        // When
+        orderMetrics.recordStockDecrement(1L, true, TimeUnit.MILLISECONDS.toNanos(3));
+        orderMetrics.recordStockDecrement(1L, true, TimeUnit.MILLISECONDS.toNanos(5));
+
+        // Then
+        Timer taken = registry.get(OrderMetrics.STOCK_DECREMENT)
+                .tag("engine", "pessimistic").tag("outcome", "taken").timer();
+        assertEquals(2, taken.count());
+        assertEquals(8.0, taken.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertNull(registry.find(OrderMetrics.STOCK_REJECTIONS).counter());
+    }
+
+    @Test
+    void recordStockDecrement_WhenRejected_ShouldCountPerMenuItem() {
+        // When
+        orderMetrics.recordStockDecrement(1L, false, 1000);
+        orderMetrics.recordStockDecrement(1L, false, 1000);
+        orderMetrics.recordStockDecrement(2L, false, 1000);
+
+        // Then
+        Counter burger = registry.get(OrderMetrics.STOCK_REJECTIONS).tag("menuItem", "1").counter();
+        Counter fries = registry.get(OrderMetrics.STOCK_REJECTIONS).tag("menuItem", "2").counter();
+        assertEquals(2.0, burger.count());
+        assertEquals(1.0, fries.count());
+        assertEquals(3, registry.get(OrderMetrics.STOCK_DECREMENT).tag("outcome", "rejected").timer().count());
+    }
+
+    @Test
+    void recordStockDecrement_WithLedger_ShouldTagLedgerEngine() {
+        // Given
+        ReflectionTestUtils.setField(orderMetrics, "stockMode", "ledger");
+
+        // When
+        orderMetrics.recordStockDecrement(1L, true, 1000);
+
+        // Then
+        assertEquals(1, registry.get(OrderMetrics.STOCK_DECREMENT).tag("engine", "ledger").timer().count());
+    }
+
+    @Test
+    void recordAutoCancelled_ShouldMeasureTimePastDeadline() {
+        // Given
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+        // When
+        orderMetrics.recordAutoCancelled(createdAt, createdAt.plusMinutes(15).plusSeconds(2));
+        // Cancelled by a clock slightly behind the one that created the order: counted, but as no lag
+        orderMetrics.recordAutoCancelled(createdAt, createdAt.plusMinutes(14));
+
+        // Then
+        Timer lag = registry.get(OrderMetrics.AUTO_CANCEL_LAG).timer();
+        assertEquals(2, lag.count());
+        assertEquals(2.0, lag.totalTime(TimeUnit.SECONDS), 0.001);
+        assertEquals(2.0, lag.max(TimeUnit.SECONDS), 0.001);
+    }
+}
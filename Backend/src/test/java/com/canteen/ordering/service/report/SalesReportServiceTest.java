@@ -0,0 +1,134 @@
+package com.canteen.ordering.service.report;
+
+import com.canteen.ordering.dto.SalesReportRow;
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.entity.Order;
+import com.canteen.ordering.entity.OrderLine;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.service.MenuItemService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the hourly backfill aggregates against a real (H2) database and reads them back as a report.
+ */
+@DataJpaTest
+@ActiveProfiles("dev")
+@Import({SalesReportService.class, SalesRollupAccumulator.class})
+class SalesReportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SalesReportService salesReportService;
+
+    @MockBean
+    private MenuItemService menuItemService;
+
+    private MenuItem burger;
+    private MenuItem fries;
+
+    @BeforeEach
+    void setUp() {
+        when(menuItemService.getMenuItemMetadata(anyLong())).thenReturn(Optional.empty());
+        burger = entityManager.persist(new MenuItem("Burger", new BigDecimal("10.50"), 100));
+        fries = entityManager.persist(new MenuItem("Fries", new BigDecimal("5.50"), 100));
+
+        Order paid = new Order(burger);
+        paid.setStatus(OrderStatus.PAID);
+        entityManager.persist(paid);
+        entityManager.persist(new Order(burger));
+        Order cancelled = new Order(fries);
+        cancelled.setStatus(OrderStatus.CANCELLED);
+        entityManager.persist(cancelled);
+        Order cart = new Order();
+        cart.setStatus(OrderStatus.PAID);
+        cart.addLine(new OrderLine(burger, 2));
+        cart.addLine(new OrderLine(fries, 3));
+        entityManager.persist(cart);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void backfill_ShouldRollUpOrderHistoryPerItem() {
+        // When
+        salesReportService.backfill();
+        List<SalesReportRow> rows = salesReportService.getSales(null, null, SalesReportService.Granularity.DAY, null);
+
+        // Then
+        assertEquals(2, rows.size());
+        SalesReportRow burgers = rows.get(0);
+        assertEquals(burger.getId(), burgers.getMenuItemId());
+        assertEquals(LocalDateTime.now().truncatedTo(ChronoUnit.DAYS), burgers.getPeriodStart());
+        assertEquals(3, burgers.getOrders());
+        assertEquals(4, burgers.getUnits());
+        assertEquals(2, burgers.getPaidOrders());
+        assertEquals(3, burgers.getPaidUnits());
+        assertEquals(0, new BigDecimal("31.50").compareTo(burgers.getPaidRevenue()));
+        assertEquals(0, burgers.getCancelledOrders());
+
+        SalesReportRow chips = rows.get(1);
+        assertEquals(2, chips.getOrders());
+        assertEquals(4, chips.getUnits());
+        assertEquals(0, new BigDecimal("16.50").compareTo(chips.getPaidRevenue()));
+        assertEquals(1, chips.getCancelledOrders());
+        assertEquals(1, chips.getCancelledUnits());
+    }
+
+    @Test
+    void backfill_ShouldIncludeArchivedOrders() {
+        // Given a paid burger order from yesterday that has been archived
+        LocalDateTime yesterday = LocalDateTime.now().minusDays(1).truncatedTo(ChronoUnit.HOURS);
+        entityManager.getEntityManager().createNativeQuery(
+                "INSERT INTO orders_archive (id, menu_item_id, status, created_at, updated_at, archived_at) " +
+                "VALUES (900001, :menuItemId, 'PAID', :at, :at, :at)")
+                .setParameter("menuItemId", burger.getId())
+                .setParameter("at", yesterday)
+                .executeUpdate();
+
+        // When
+        salesReportService.backfill();
+        List<SalesReportRow> rows = salesReportService.getSales(null, yesterday.plusHours(1),
+                SalesReportService.Granularity.HOUR, burger.getId());
+
+        // Then
+        assertEquals(1, rows.size());
+        assertEquals(yesterday, rows.get(0).getPeriodStart());
+        assertEquals(1, rows.get(0).getOrders());
+        assertEquals(1, rows.get(0).getPaidOrders());
+        assertEquals(0, new BigDecimal("10.50").compareTo(rows.get(0).getPaidRevenue()));
+    }
+
+    @Test
+    void getSales_ForOneItem_ShouldLeaveOthersOut() {
+        // Given
+        salesReportService.backfill();
+
+        // When
+        List<SalesReportRow> rows = salesReportService.getSales(null, null, SalesReportService.Granularity.HOUR,
+                fries.getId());
+
+        // Then
+        assertEquals(1, rows.size());
+        assertEquals(fries.getId(), rows.get(0).getMenuItemId());
+        assertEquals(0, rows.get(0).getPeriodStart().getMinute());
+    }
+}
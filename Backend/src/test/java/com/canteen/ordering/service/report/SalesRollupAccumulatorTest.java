@@ -0,0 +1,128 @@
+package com.canteen.ordering.service.report;
+
+import com.canteen.ordering.dto.MenuItemMetadata;
+import com.canteen.ordering.entity.OrderStatus;
+import com.canteen.ordering.entity.SalesRollup;
+import com.canteen.ordering.event.OrderStatusChangedEvent;
+import com.canteen.ordering.repository.SalesRollupRepository;
+import com.canteen.ordering.service.MenuItemService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesRollupAccumulatorTest {
+
+    @Mock
+    private SalesRollupRepository salesRollupRepository;
+
+    @Mock
+    private MenuItemService menuItemService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private SalesRollupAccumulator accumulator;
+
+    @Test
+    void flush_ShouldAddOneDeltaPerHourAndItem() {
+        // Given
+        runTransactions();
+        when(salesRollupRepository.addToBucket(any(LocalDateTime.class), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), any(BigDecimal.class), anyLong(), anyLong())).thenReturn(1);
+        when(menuItemService.getMenuItemMetadata(1L))
+                .thenReturn(Optional.of(new MenuItemMetadata(1L, "Burger", new BigDecimal("10.50"))));
+        accumulator.onOrderStatusChanged(event(null, OrderStatus.PENDING, 1L, 1, null));
+        accumulator.onOrderStatusChanged(event(OrderStatus.PENDING, OrderStatus.PAID, 1L, 1, null));
+        accumulator.onOrderStatusChanged(event(null, OrderStatus.PENDING, 1L, 1, null));
+        accumulator.onOrderStatusChanged(event(OrderStatus.PENDING, OrderStatus.CANCELLED, 1L, 1, null));
+        accumulator.onOrderStatusChanged(event(OrderStatus.PENDING, OrderStatus.PAID, 2L, 3, new BigDecimal("9.00")));
+
+        // When
+        accumulator.flush();
+        accumulator.flush();
+
+        // Then
+        verify(salesRollupRepository).addToBucket(any(LocalDateTime.class), eq(1L), eq(2L), eq(2L), eq(1L), eq(1L),
+                eq(new BigDecimal("10.50")), eq(1L), eq(1L));
+        verify(salesRollupRepository).addToBucket(any(LocalDateTime.class), eq(2L), eq(0L), eq(0L), eq(1L), eq(3L),
+                eq(new BigDecimal("9.00")), eq(0L), eq(0L));
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        verify(salesRollupRepository, never()).save(any());
+    }
+
+    @Test
+    void flush_WhenBucketIsNew_ShouldInsertIt() {
+        // Given
+        runTransactions();
+        accumulator.onOrderStatusChanged(event(null, OrderStatus.PENDING, 1L, 2, null));
+
+        // When
+        accumulator.flush();
+
+        // Then
+        ArgumentCaptor<SalesRollup> inserted = ArgumentCaptor.forClass(SalesRollup.class);
+        verify(salesRollupRepository).save(inserted.capture());
+        assertEquals(1L, inserted.getValue().getMenuItemId());
+        assertEquals(1, inserted.getValue().getOrders());
+        assertEquals(2, inserted.getValue().getUnits());
+        assertEquals(0, inserted.getValue().getBucketStart().getMinute());
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepDeltaForNextFlush() {
+        // Given
+        doThrow(new RuntimeException("Database unavailable"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        accumulator.onOrderStatusChanged(event(null, OrderStatus.PENDING, 1L, 1, null));
+        accumulator.flush();
+        runTransactions();
+        accumulator.onOrderStatusChanged(event(null, OrderStatus.PENDING, 1L, 1, null));
+
+        // When
+        accumulator.flush();
+
+        // Then
+        ArgumentCaptor<SalesRollup> inserted = ArgumentCaptor.forClass(SalesRollup.class);
+        verify(salesRollupRepository).save(inserted.capture());
+        assertEquals(2, inserted.getValue().getOrders());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactions() {
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static OrderStatusChangedEvent event(OrderStatus previousStatus, OrderStatus newStatus, Long menuItemId,
+                                                 int quantity, BigDecimal amount) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        quantities.put(menuItemId, quantity);
+        Map<Long, BigDecimal> amounts = null;
+        if (amount != null) {
+            amounts = new TreeMap<>();
+            amounts.put(menuItemId, amount);
+        }
+        return new OrderStatusChangedEvent(1L, previousStatus, newStatus, LocalDateTime.now(), quantities, amounts);
+    }
+}
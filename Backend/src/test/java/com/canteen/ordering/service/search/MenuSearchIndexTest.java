@@ -0,0 +1,86 @@
+package com.canteen.ordering.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MenuSearchIndexTest {
+
+    private MenuSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Map<Long, String> names = new HashMap<>();
+        names.put(1L, "Vegetarian Burger");
+        names.put(2L, "Beef Burger");
+        names.put(3L, "Burger");
+        names.put(4L, "Burgers & Fries Combo");
+        names.put(5L, "Hamburger");
+        names.put(6L, "Caesar Salad");
+        index = new MenuSearchIndex();
+        index.rebuild(names);
+    }
+
+    @Test
+    void search_ShouldRankExactThenPrefixThenWordThenSubstring() {
+        // When
+        List<Long> result = index.search("burger", 10);
+
+        // Then
+        assertEquals(Arrays.asList(3L, 4L, 2L, 1L, 5L), result);
+    }
+
+    @Test
+    void search_ShouldBeCaseAndWhitespaceInsensitive() {
+        // When & Then
+        assertEquals(Collections.singletonList(6L), index.search("  CAESAR   sal ", 10));
+    }
+
+    @Test
+    void search_WithShortQuery_ShouldFallBackToScan() {
+        // When & Then
+        assertEquals(Arrays.asList(3L, 2L, 4L, 1L, 5L), index.search("b", 10));
+        assertEquals(Collections.singletonList(6L), index.search("ca", 10));
+    }
+
+    @Test
+    void search_WhenTrigramsPresentButNotContiguous_ShouldNotMatch() {
+        // Given: "ger" and "bur" both occur in "Burger", but "gerbur" does not
+        // When & Then
+        assertTrue(index.search("gerbur", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldRespectLimit() {
+        // When & Then
+        assertEquals(Arrays.asList(3L, 4L), index.search("burger", 2));
+    }
+
+    @Test
+    void put_WhenRenamed_ShouldDropOldTrigrams() {
+        // When
+        index.put(6L, "Greek Salad");
+
+        // Then
+        assertTrue(index.search("caesar", 10).isEmpty());
+        assertEquals(Collections.singletonList(6L), index.search("greek", 10));
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    void remove_ShouldDropItemFromResults() {
+        // When
+        index.remove(3L);
+
+        // Then
+        assertFalse(index.search("burger", 10).contains(3L));
+        assertEquals(5, index.size());
+    }
+}
@@ -0,0 +1,105 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticStockLockingStrategyTest {
+
+    @Mock
+    private MenuItemRepository menuItemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private OptimisticStockLockingStrategy strategy;
+
+    private MenuItem menuItem;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(strategy, "maxAttempts", 3);
+        ReflectionTestUtils.setField(strategy, "backoffMillis", 0L);
+        strategy.init();
+
+        menuItem = new MenuItem("Burger", new BigDecimal("10.50"), 5);
+        menuItem.setId(1L);
+    }
+
+    @Test
+    void decrement_WhenStockAvailable_ShouldSaveNewStock() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+
+        // When
+        boolean result = strategy.decrement(1L, 2);
+
+        // Then
+        assertTrue(result);
+        assertEquals(3, menuItem.getStockCount());
+        verify(menuItemRepository).saveAndFlush(menuItem);
+    }
+
+    @Test
+    void decrement_WhenInsufficientStock_ShouldNotSave() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+
+        // When
+        boolean result = strategy.decrement(1L, 6);
+
+        // Then
+        assertFalse(result);
+        verify(menuItemRepository, never()).saveAndFlush(any(MenuItem.class));
+    }
+
+    @Test
+    void decrement_WhenVersionConflict_ShouldRetryWithFreshRead() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenAnswer(invocation -> {
+            MenuItem fresh = new MenuItem("Burger", new BigDecimal("10.50"), 5);
+            fresh.setId(1L);
+            return Optional.of(fresh);
+        });
+        when(menuItemRepository.saveAndFlush(any(MenuItem.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(MenuItem.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        boolean result = strategy.decrement(1L, 1);
+
+        // Then
+        assertTrue(result);
+        verify(menuItemRepository, times(2)).findById(1L);
+        verify(menuItemRepository, times(2)).saveAndFlush(any(MenuItem.class));
+    }
+
+    @Test
+    void decrement_WhenConflictsExhaustAttempts_ShouldThrowException() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+        when(menuItemRepository.saveAndFlush(any(MenuItem.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(MenuItem.class, 1L));
+
+        // When & Then
+        assertThrows(RuntimeException.class, () -> strategy.decrement(1L, 1));
+        verify(menuItemRepository, times(3)).saveAndFlush(any(MenuItem.class));
+    }
+}
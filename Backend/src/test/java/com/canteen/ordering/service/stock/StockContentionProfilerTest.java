@@ -0,0 +1,112 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.dto.StockContention;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockContentionProfilerTest {
+
+    private StockContentionProfiler profiler;
+
+    @BeforeEach
+    void setUp() {
+        profiler = new StockContentionProfiler();
+        ReflectionTestUtils.setField(profiler, "enabled", true);
+        ReflectionTestUtils.setField(profiler, "windowSeconds", 60L);
+        ReflectionTestUtils.setField(profiler, "bucketCount", 6);
+        profiler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void top_ShouldCountQueueDepthAndFailuresPerItem() {
+        // Given three requests queued for the same item at once, one of which finds it sold out
+        StockContentionProfiler.Attempt first = profiler.enter(1L);
+        StockContentionProfiler.Attempt second = profiler.enter(1L);
+        StockContentionProfiler.Attempt third = profiler.enter(1L);
+        StockContentionProfiler.Attempt other = profiler.enter(2L);
+
+        // When
+        profiler.exit(first, true);
+        profiler.exit(second, true);
+
+        // Then
+        StockContention hot = profiler.top(10, id -> "Pizza Slice").stream()
+                .filter(item -> item.getMenuItemId().equals(1L)).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(2, hot.getAcquisitions());
+        assertEquals(1, hot.getWaitingNow());
+        assertEquals(3, hot.getMaxQueueDepth());
+        assertEquals("Pizza Slice", hot.getName());
+
+        profiler.exit(third, false);
+        profiler.exit(other, true);
+        StockContention after = profiler.top(10, id -> null).stream()
+                .filter(item -> item.getMenuItemId().equals(1L)).findFirst().orElseThrow(AssertionError::new);
+        assertEquals(3, after.getAcquisitions());
+        assertEquals(1, after.getFailures());
+        assertEquals(0, after.getWaitingNow());
+    }
+
+    @Test
+    void top_ShouldRankByTotalWaitAndApplyLimit() throws InterruptedException {
+        // Given
+        StockContentionProfiler.Attempt slow = profiler.enter(7L);
+        Thread.sleep(20);
+        profiler.exit(slow, true);
+        profiler.exit(profiler.enter(3L), true);
+        profiler.exit(profiler.enter(4L), true);
+
+        // When
+        List<StockContention> top = profiler.top(2, id -> null);
+
+        // Then
+        assertEquals(2, top.size());
+        assertEquals(7L, top.get(0).getMenuItemId());
+        assertTrue(top.get(0).getMaxWaitMs() >= 20);
+    }
+
+    @Test
+    void exit_InsideTransaction_ShouldRecordHoldWhenTransactionCompletes() throws InterruptedException {
+        // Given
+        TransactionSynchronizationManager.initSynchronization();
+        profiler.exit(profiler.enter(1L), true);
+        assertEquals(0.0, profiler.top(1, id -> null).get(0).getTotalHoldMs());
+
+        // When the lock is held a while, then the transaction commits
+        Thread.sleep(20);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        // Then
+        assertTrue(profiler.top(1, id -> null).get(0).getMaxHoldMs() >= 20);
+    }
+
+    @Test
+    void enter_WhenDisabled_ShouldRecordNothing() {
+        // Given
+        ReflectionTestUtils.setField(profiler, "enabled", false);
+
+        // When
+        StockContentionProfiler.Attempt attempt = profiler.enter(1L);
+        profiler.exit(attempt, false);
+
+        // Then
+        assertNull(attempt);
+        assertTrue(profiler.top(10, id -> null).isEmpty());
+    }
+}
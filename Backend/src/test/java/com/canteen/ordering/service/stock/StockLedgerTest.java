@@ -0,0 +1,228 @@
+package com.canteen.ordering.service.stock;
+
+import com.canteen.ordering.entity.MenuItem;
+import com.canteen.ordering.repository.MenuItemRepository;
+import com.canteen.ordering.service.MenuVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    private MenuItemRepository menuItemRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private MenuVersion menuVersion;
+
+    @InjectMocks
+    private StockLedger stockLedger;
+
+    private MenuItem menuItem;
+
+    @BeforeEach
+    void setUp() {
+        menuItem = new MenuItem("Burger", new BigDecimal("10.50"), 5);
+        menuItem.setId(1L);
+        menuItem.setVersion(0L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recover_ShouldLoadCountersFromDatabase() {
+        // Given
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(menuItemRepository.findAll()).thenReturn(Arrays.asList(menuItem));
+
+        // When
+        stockLedger.recover();
+
+        // Then
+        assertEquals(Optional.of(5), stockLedger.getAvailable(1L));
+    }
+
+    @Test
+    void tryDecrement_WhenStockAvailable_ShouldDecrementInMemory() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+
+        // When
+        boolean result = stockLedger.tryDecrement(1L, 2);
+
+        // Then
+        assertTrue(result);
+        assertEquals(Optional.of(3), stockLedger.getAvailable(1L));
+        verify(menuItemRepository, never()).findByIdWithLock(anyLong());
+    }
+
+    @Test
+    void tryDecrement_WhenInsufficientStock_ShouldLeaveCounterUntouched() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.of(menuItem));
+
+        // When
+        boolean result = stockLedger.tryDecrement(1L, 6);
+
+        // Then
+        assertFalse(result);
+        assertEquals(Optional.of(5), stockLedger.getAvailable(1L));
+    }
+
+    @Test
+    void tryDecrement_WhenMenuItemNotExists_ShouldReturnFalse() {
+        // Given
+        when(menuItemRepository.findById(1L)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertFalse(stockLedger.tryDecrement(1L, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_ShouldWriteNetDeltaOncePerItem() {
+        // Given
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(menuItemRepository.adjustStockAtVersion(1L, -1, 0L)).thenReturn(1);
+        stockLedger.reset(1L, 5, 0L);
+        stockLedger.tryDecrement(1L, 1);
+        stockLedger.tryDecrement(1L, 1);
+        stockLedger.restore(1L, 1);
+
+        // When
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // Then
+        verify(menuItemRepository, times(1)).adjustStockAtVersion(1L, -1, 0L);
+        verify(menuItemRepository, times(1)).adjustStockAtVersion(anyLong(), anyInt(), anyLong());
+        verify(menuVersion, times(1)).bump();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_AfterAppliedDelta_ShouldFlushNextDeltaAgainstBumpedVersion() {
+        // Given
+        doAnswer(invocation -> {
+            ((Consumer<Object>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(menuItemRepository.adjustStockAtVersion(anyLong(), anyInt(), anyLong())).thenReturn(1);
+        stockLedger.reset(1L, 5, 7L);
+        stockLedger.tryDecrement(1L, 1);
+        stockLedger.flush();
+        stockLedger.tryDecrement(1L, 2);
+
+        // When
+        stockLedger.flush();
+
+        // Then
+        verify(menuItemRepository).adjustStockAtVersion(1L, -1, 7L);
+        verify(menuItemRepository).adjustStockAtVersion(1L, -2, 8L);
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepDeltaForNextFlush() {
+        // Given
+        doThrow(new RuntimeException("Database unavailable"))
+                .when(transactionTemplate).executeWithoutResult(any());
+        stockLedger.reset(1L, 5, 0L);
+        stockLedger.tryDecrement(1L, 2);
+
+        // When
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // Then
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(menuVersion, never()).bump();
+        assertEquals(Optional.of(3), stockLedger.getAvailable(1L));
+    }
+
+    @Test
+    void flush_WhenItemIsResetDuringFailedFlush_ShouldNotCarryOldDeltaOntoNewCounter() {
+        // Given
+        stockLedger.reset(1L, 5, 0L);
+        stockLedger.tryDecrement(1L, 2);
+        doAnswer(invocation -> {
+            // An admin write commits while the flush is running, then the flush fails
+            stockLedger.reset(1L, 10, 1L);
+            throw new RuntimeException("Database unavailable");
+        }).doNothing().when(transactionTemplate).executeWithoutResult(any());
+
+        // When
+        stockLedger.flush();
+        stockLedger.flush();
+
+        // Then
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+        assertEquals(Optional.of(10), stockLedger.getAvailable(1L));
+    }
+
+    @Test
+    void resetAfterCommit_ShouldOnlyReplaceCounterWhenTransactionCommits() {
+        // Given
+        stockLedger.reset(1L, 5, 0L);
+        MenuItem updated = new MenuItem("Burger", new BigDecimal("10.50"), 20);
+        updated.setId(1L);
+        updated.setVersion(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            stockLedger.resetAfterCommit(updated);
+            assertEquals(Optional.of(5), stockLedger.getAvailable(1L));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            // Then
+            assertEquals(Optional.of(20), stockLedger.getAvailable(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void resetAfterCommit_WhenTransactionRollsBack_ShouldKeepCounter() {
+        // Given
+        stockLedger.reset(1L, 5, 0L);
+        MenuItem updated = new MenuItem("Burger", new BigDecimal("10.50"), 20);
+        updated.setId(1L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            stockLedger.resetAfterCommit(updated);
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            // Then
+            assertEquals(Optional.of(5), stockLedger.getAvailable(1L));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
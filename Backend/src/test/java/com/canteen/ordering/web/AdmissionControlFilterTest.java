@@ -0,0 +1,172 @@
+package com.canteen.ordering.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private ClientRateLimiter limiter;
+    private AdmissionControlFilter filter;
+    private AtomicInteger admitted;
+    private FilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new ClientRateLimiter();
+        ReflectionTestUtils.setField(limiter, "menuReadsRate", 100.0);
+        ReflectionTestUtils.setField(limiter, "menuReadsBurst", 100);
+        ReflectionTestUtils.setField(limiter, "orderHistoryRate", 1.0);
+        ReflectionTestUtils.setField(limiter, "orderHistoryBurst", 2);
+        // One token every 10 seconds, so none refill during the test
+        ReflectionTestUtils.setField(limiter, "orderMutationsRate", 0.1);
+        ReflectionTestUtils.setField(limiter, "orderMutationsBurst", 3);
+        ReflectionTestUtils.setField(limiter, "idleEvictionMillis", 600_000L);
+        ReflectionTestUtils.setField(limiter, "maxClients", 100);
+        limiter.init();
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("clientRateLimiter", limiter);
+        filter = new AdmissionControlFilter();
+        ReflectionTestUtils.setField(filter, "clientRateLimiter", beanFactory.getBeanProvider(ClientRateLimiter.class));
+        ReflectionTestUtils.setField(filter, "apiKeyHeader", "X-API-Key");
+        ReflectionTestUtils.setField(filter, "apiKeys", new String[] {"kiosk-7", " kiosk-8"});
+
+        admitted = new AtomicInteger();
+        chain = (request, response) -> admitted.incrementAndGet();
+    }
+
+    @Test
+    void overLimitClient_ShouldGet429WithRetryAfterBeforeReachingController() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform(request("POST", "/api/orders", "10.0.0.1", null)).getStatus());
+        }
+
+        // When
+        MockHttpServletResponse rejected = perform(request("POST", "/api/orders", "10.0.0.1", null));
+
+        // Then
+        assertEquals(429, rejected.getStatus());
+        assertEquals("10", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(3, admitted.get());
+    }
+
+    @Test
+    void clients_ShouldHaveSeparateBuckets() throws Exception {
+        // Given a kiosk that has used up its order limit
+        for (int i = 0; i < 4; i++) {
+            perform(request("POST", "/api/orders", "10.0.0.1", null));
+        }
+
+        // When
+        MockHttpServletResponse otherAddress = perform(request("POST", "/api/orders", "10.0.0.2", null));
+        MockHttpServletResponse apiKeyClient = perform(request("POST", "/api/orders", "10.0.0.1", "kiosk-7"));
+
+        // Then
+        assertEquals(200, otherAddress.getStatus());
+        assertEquals(200, apiKeyClient.getStatus());
+    }
+
+    @Test
+    void unknownApiKey_ShouldBeLimitedByAddress() throws Exception {
+        // Given a script that has used up its order limit
+        for (int i = 0; i < 3; i++) {
+            perform(request("POST", "/api/orders", "10.0.0.1", "made-up-" + i));
+        }
+
+        // When
+        MockHttpServletResponse rotatedKey = perform(request("POST", "/api/orders", "10.0.0.1", "made-up-3"));
+        MockHttpServletResponse configuredKey = perform(request("POST", "/api/orders", "10.0.0.1", "kiosk-8"));
+
+        // Then
+        assertEquals(429, rotatedKey.getStatus());
+        assertEquals(200, configuredKey.getStatus());
+        assertEquals(2, limiter.getClientCount(ClientRateLimiter.Route.ORDER_MUTATIONS));
+    }
+
+    @Test
+    void clientsBeyondCap_ShouldShareOneBucket() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(limiter, "maxClients", 1);
+        perform(request("POST", "/api/orders", "10.0.0.1", null));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, perform(request("POST", "/api/orders", "10.0.1." + i, null)).getStatus());
+        }
+        MockHttpServletResponse overflow = perform(request("POST", "/api/orders", "10.0.2.1", null));
+
+        // Then
+        assertEquals(429, overflow.getStatus());
+        assertEquals(200, perform(request("POST", "/api/orders", "10.0.0.1", null)).getStatus());
+        assertEquals(1, limiter.getClientCount(ClientRateLimiter.Route.ORDER_MUTATIONS));
+    }
+
+    @Test
+    void routes_ShouldHaveSeparateLimits() throws Exception {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            perform(request("POST", "/api/orders/1/pay", "10.0.0.1", null));
+        }
+
+        // When & Then
+        assertEquals(200, perform(request("GET", "/api/orders/history", "10.0.0.1", null)).getStatus());
+        assertEquals(200, perform(request("GET", "/api/menu", "10.0.0.1", null)).getStatus());
+        assertEquals(429, perform(request("POST", "/api/orders/checkout", "10.0.0.1", null)).getStatus());
+    }
+
+    @Test
+    void unlimitedRoutes_ShouldPassThrough() throws Exception {
+        // When
+        for (int i = 0; i < 10; i++) {
+            perform(request("GET", "/api/events", "10.0.0.1", null));
+            perform(request("PUT", "/api/menu/1", "10.0.0.1", null));
+            perform(request("GET", "/actuator/health", "10.0.0.1", null));
+        }
+
+        // Then
+        assertEquals(30, admitted.get());
+    }
+
+    @Test
+    void evictIdle_ShouldDropOnlyFullBuckets() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(limiter, "idleEvictionMillis", 0L);
+        perform(request("GET", "/api/menu", "10.0.0.1", null));
+        perform(request("POST", "/api/orders", "10.0.0.1", null));
+        // The menu bucket refills its token in 10ms; the order bucket needs 10s
+        Thread.sleep(50);
+
+        // When
+        limiter.evictIdle();
+
+        // Then
+        assertEquals(0, limiter.getClientCount(ClientRateLimiter.Route.MENU_READS));
+        assertEquals(1, limiter.getClientCount(ClientRateLimiter.Route.ORDER_MUTATIONS));
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String address, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        return request;
+    }
+}
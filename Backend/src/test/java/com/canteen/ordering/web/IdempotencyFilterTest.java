@@ -0,0 +1,257 @@
+package com.canteen.ordering.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private InMemoryIdempotencyStore store;
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(store, "inFlightTimeoutMillis", 30_000L);
+        ReflectionTestUtils.setField(store, "maxEntries", 100);
+
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("idempotencyStore", store);
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyStore", beanFactory.getBeanProvider(IdempotencyStore.class));
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "waitTimeoutMillis", 2_000L);
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 1);
+
+        executions = new AtomicInteger();
+    }
+
+    @Test
+    void retryWithSameKey_ShouldReplayFirstResponseWithoutExecutingAgain() throws Exception {
+        // Given
+        FilterChain createOrder = (request, response) -> {
+            int orderId = executions.incrementAndGet();
+            response.setContentType("application/json");
+            ((HttpServletResponse) response).setStatus(201);
+            ((HttpServletResponse) response).setHeader(HttpHeaders.LOCATION, "/api/orders/" + orderId);
+            response.getOutputStream().write(("{\"id\":" + orderId + "}").getBytes(StandardCharsets.UTF_8));
+        };
+
+        // When
+        MockHttpServletResponse first = perform(orderRequest("key-1", "1"), createOrder);
+        MockHttpServletResponse retry = perform(orderRequest("key-1", "1"), createOrder);
+
+        // Then
+        assertEquals(1, executions.get());
+        assertEquals(201, first.getStatus());
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(201, retry.getStatus());
+        assertEquals("{\"id\":1}", retry.getContentAsString());
+        assertEquals("/api/orders/1", retry.getHeader(HttpHeaders.LOCATION));
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void sameKeyForDifferentRequest_ShouldBeRejected() throws Exception {
+        // Given
+        FilterChain chain = (request, response) -> executions.incrementAndGet();
+        perform(orderRequest("key-1", "1"), chain);
+
+        // When
+        MockHttpServletResponse other = perform(orderRequest("key-1", "2"), chain);
+
+        // Then
+        assertEquals(422, other.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void checkoutBody_ShouldBePartOfFingerprintAndStillReachController() throws Exception {
+        // Given
+        StringBuilder seenBody = new StringBuilder();
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            seenBody.append(new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        };
+
+        // When
+        perform(checkoutRequest("key-1", "{\"lines\":[{\"menuItemId\":1,\"quantity\":2}]}"), chain);
+        MockHttpServletResponse changedCart = perform(
+                checkoutRequest("key-1", "{\"lines\":[{\"menuItemId\":1,\"quantity\":3}]}"), chain);
+
+        // Then
+        assertEquals("{\"lines\":[{\"menuItemId\":1,\"quantity\":2}]}", seenBody.toString());
+        assertEquals(422, changedCart.getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void serverError_ShouldNotBeStoredSoRetryExecutes() throws Exception {
+        // Given
+        FilterChain failsOnce = (request, response) -> {
+            if (executions.incrementAndGet() == 1) {
+                ((HttpServletResponse) response).setStatus(500);
+            } else {
+                ((HttpServletResponse) response).setStatus(201);
+            }
+        };
+
+        // When
+        MockHttpServletResponse first = perform(orderRequest("key-1", "1"), failsOnce);
+        MockHttpServletResponse retry = perform(orderRequest("key-1", "1"), failsOnce);
+
+        // Then
+        assertEquals(500, first.getStatus());
+        assertEquals(201, retry.getStatus());
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void concurrentDuplicate_ShouldWaitForFirstExecution() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowOrder = (request, response) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) response).setStatus(201);
+            response.getOutputStream().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> first = executor.submit(() -> perform(orderRequest("key-1", "1"), slowOrder));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> duplicate = executor.submit(() -> perform(orderRequest("key-1", "1"), slowOrder));
+
+            // When
+            Thread.sleep(100);
+            assertFalse(duplicate.isDone());
+            release.countDown();
+
+            // Then
+            assertEquals(201, first.get(5, TimeUnit.SECONDS).getStatus());
+            MockHttpServletResponse replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals(201, replayed.getStatus());
+            assertEquals("{\"id\":1}", replayed.getContentAsString());
+            assertEquals(1, executions.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void duplicateOfLongRunningRequest_ShouldGetConflictAfterWaitTimeout() throws Exception {
+        // Given a first execution that has claimed the key and not finished
+        ReflectionTestUtils.setField(filter, "waitTimeoutMillis", 50L);
+        store.claim("key-1", IdempotencyFilter.fingerprint(
+                new IdempotencyFilter.CachedBodyRequest(orderRequest("key-1", "1"))));
+
+        // When
+        MockHttpServletResponse duplicate = perform(orderRequest("key-1", "1"),
+                (request, response) -> executions.incrementAndGet());
+
+        // Then
+        assertEquals(409, duplicate.getStatus());
+        assertEquals("1", duplicate.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(0, executions.get());
+    }
+
+    @Test
+    void cachedBody_ShouldServeNonBlockingReadersFromBuffer() throws Exception {
+        // Given
+        ServletInputStream in = new IdempotencyFilter.CachedBodyRequest(
+                checkoutRequest("key-1", "{\"lines\":[]}")).getInputStream();
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        AtomicInteger allDataRead = new AtomicInteger();
+
+        // When
+        in.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                while (in.isReady() && !in.isFinished()) {
+                    read.write(in.read());
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                fail(t);
+            }
+        });
+
+        // Then
+        assertEquals("{\"lines\":[]}", read.toString(StandardCharsets.UTF_8));
+        assertEquals(1, allDataRead.get());
+    }
+
+    @Test
+    void requestWithoutKey_ShouldPassThrough() throws Exception {
+        // Given
+        MockHttpServletRequest request = orderRequest(null, "1");
+        FilterChain chain = (req, res) -> executions.incrementAndGet();
+
+        // When
+        perform(request, chain);
+        perform(orderRequest(null, "1"), chain);
+
+        // Then
+        assertEquals(2, executions.get());
+        assertEquals(0, store.size());
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest orderRequest(String key, String menuItemId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.setParameter("menuItemId", menuItemId);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        }
+        return request;
+    }
+
+    private static MockHttpServletRequest checkoutRequest(String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders/checkout");
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+        return request;
+    }
+}
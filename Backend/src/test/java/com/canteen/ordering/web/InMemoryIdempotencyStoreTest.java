@@ -0,0 +1,73 @@
+package com.canteen.ordering.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+
+    private InMemoryIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(store, "inFlightTimeoutMillis", 30_000L);
+        ReflectionTestUtils.setField(store, "maxEntries", 2);
+    }
+
+    @Test
+    void claim_WhenFullOfLiveKeys_ShouldRefuseNewKeysButServeKnownOnes() {
+        // Given
+        store.claim("a", "f");
+        store.claim("b", "f");
+
+        // When & Then
+        assertEquals(IdempotencyStore.Claim.State.FULL, store.claim("c", "f").getState());
+        assertEquals(IdempotencyStore.Claim.State.IN_FLIGHT, store.claim("a", "f").getState());
+    }
+
+    @Test
+    void claim_WhenFullOfExpiredKeys_ShouldEvictThem() {
+        // Given
+        ReflectionTestUtils.setField(store, "ttlMillis", 0L);
+        store.claim("a", "f");
+        store.complete("a", new StoredResponse(201, null, null, new byte[0]));
+        store.claim("b", "f");
+        store.complete("b", new StoredResponse(201, null, null, new byte[0]));
+
+        // When
+        IdempotencyStore.Claim claim = store.claim("c", "f");
+
+        // Then
+        assertEquals(IdempotencyStore.Claim.State.ACQUIRED, claim.getState());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void release_ShouldWakeWaitersAndFreeKey() throws InterruptedException {
+        // Given
+        store.claim("a", "f");
+
+        // When
+        store.release("a");
+
+        // Then
+        assertEquals(Optional.empty(), store.await("a", 10));
+        assertEquals(IdempotencyStore.Claim.State.ACQUIRED, store.claim("a", "f").getState());
+    }
+
+    @Test
+    void claim_AfterInFlightTimeout_ShouldHandKeyToNextAttempt() {
+        // Given an execution that never finished
+        ReflectionTestUtils.setField(store, "inFlightTimeoutMillis", 0L);
+        store.claim("a", "f");
+
+        // When & Then
+        assertEquals(IdempotencyStore.Claim.State.ACQUIRED, store.claim("a", "f").getState());
+    }
+}
@@ -1,7 +1,7 @@
 import axios from "axios"
 
 // Vite exposes env via import.meta.env. Fallback to default when undefined in browser.
-const API_BASE_URL = (typeof import.meta !== "undefined" && import.meta.env && import.meta.env.VITE_API_URL)
+export const API_BASE_URL = (typeof import.meta !== "undefined" && import.meta.env && import.meta.env.VITE_API_URL)
   ? import.meta.env.VITE_API_URL
   : "http://localhost:8080"
 
@@ -43,8 +43,10 @@ apiClient.interceptors.response.use(
       const message = error.response.data?.message || error.message
       return Promise.reject(new Error(message))
     } else if (error.request) {
-      // Request made but no response
-      return Promise.reject(new Error("Network error. Please check your connection."))
+      // Request made but no response; callers sending an Idempotency-Key may safely retry these
+      const networkError = new Error("Network error. Please check your connection.")
+      networkError.isNetworkError = true
+      return Promise.reject(networkError)
     } else {
       // Something else happened
       return Promise.reject(new Error("An unexpected error occurred."))
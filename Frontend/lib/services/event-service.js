@@ -0,0 +1,27 @@
+import { API_BASE_URL } from "../api-client"
+
+export const eventService = {
+  // Subscribe to the live event stream. Handlers: onStock({ menuItemId, stockCount }),
+  // onOrder({ orderId, status, previousStatus }) and onReconnect(), called when the
+  // browser re-establishes a dropped connection; events sent meanwhile are lost, so refetch.
+  // Returns a function that closes the stream.
+  subscribe({ onStock, onOrder, onReconnect } = {}) {
+    const source = new EventSource(`${API_BASE_URL}/api/events`)
+    let connectedBefore = false
+
+    source.onopen = () => {
+      if (connectedBefore && onReconnect) {
+        onReconnect()
+      }
+      connectedBefore = true
+    }
+    if (onStock) {
+      source.addEventListener("stock", (event) => onStock(JSON.parse(event.data)))
+    }
+    if (onOrder) {
+      source.addEventListener("order", (event) => onOrder(JSON.parse(event.data)))
+    }
+
+    return () => source.close()
+  },
+}
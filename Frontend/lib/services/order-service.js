@@ -1,33 +1,93 @@
 import apiClient from "../api-client"
 
+const TICKET_POLL_MS = 500
+// Attempts of one state-changing request when the connection drops
+const MAX_ATTEMPTS = 3
+const RETRY_DELAY_MS = 1000
+
+// In queued intake mode the server answers 202 with a ticket; poll it until the order
+// has been created (or rejected) so callers always get the order back.
+async function resolveOrder(response) {
+  if (response.status !== 202) {
+    return response.data
+  }
+  let ticket = response.data
+  while (ticket.status === "QUEUED" || ticket.status === "PROCESSING") {
+    await new Promise((resolve) => setTimeout(resolve, TICKET_POLL_MS))
+    ticket = (await apiClient.get(`/api/orders/tickets/${ticket.id}`)).data
+  }
+  if (ticket.status === "FAILED") {
+    throw new Error(ticket.error || "Order could not be placed")
+  }
+  return (await apiClient.get(`/api/orders/${ticket.orderId}`)).data
+}
+
+// crypto.randomUUID is only available in secure contexts (https or localhost)
+function newIdempotencyKey() {
+  if (typeof crypto !== "undefined" && crypto.randomUUID) {
+    return crypto.randomUUID()
+  }
+  return `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}-${Math.random().toString(36).slice(2)}`
+}
+
+// Sends a state-changing order request with one Idempotency-Key for all of its attempts, so a
+// retry after a dropped connection gets the original outcome instead of a second order or payment.
+async function postIdempotent(url, data, config = {}) {
+  const key = newIdempotencyKey()
+  for (let attempt = 1; ; attempt++) {
+    try {
+      return await apiClient.post(url, data, {
+        ...config,
+        headers: { ...config.headers, "Idempotency-Key": key },
+      })
+    } catch (error) {
+      if (!error.isNetworkError || attempt >= MAX_ATTEMPTS) {
+        throw error
+      }
+      await new Promise((resolve) => setTimeout(resolve, RETRY_DELAY_MS * attempt))
+    }
+  }
+}
+
+// Order listings are paged newest first and resolve to { items, nextCursor }. Pass
+// { cursor: nextCursor, limit } to fetch the following page; nextCursor is null on the last one.
+async function getPage(url, params) {
+  const response = await apiClient.get(url, { params })
+  return {
+    items: response.data,
+    nextCursor: response.headers["x-next-cursor"] || null,
+  }
+}
+
 export const orderService = {
   // Get all orders
-  async getAllOrders() {
-    const response = await apiClient.get("/api/orders")
-    return response.data
+  async getAllOrders(params) {
+    return getPage("/api/orders", params)
   },
 
   // Get order history
-  async getOrderHistory() {
-    const response = await apiClient.get("/api/orders/history")
-    return response.data
+  async getOrderHistory(params) {
+    return getPage("/api/orders/history", params)
   },
 
   // Get pending orders
-  async getPendingOrders() {
-    const response = await apiClient.get("/api/orders/pending")
-    return response.data
+  async getPendingOrders(params) {
+    return getPage("/api/orders/pending", params)
   },
 
   // Get paid orders
-  async getPaidOrders() {
-    const response = await apiClient.get("/api/orders/paid")
-    return response.data
+  async getPaidOrders(params) {
+    return getPage("/api/orders/paid", params)
   },
 
   // Get cancelled orders
-  async getCancelledOrders() {
-    const response = await apiClient.get("/api/orders/cancelled")
+  async getCancelledOrders(params) {
+    return getPage("/api/orders/cancelled", params)
+  },
+
+  // Get order counts by status and paid revenue, without listing the orders
+  async getOrderSummary() {
+    const response = await apiClient.get("/api/orders/summary")
     return response.data
   },
 
@@ -39,21 +99,27 @@ export const orderService = {
 
   // Create new order
   async createOrder(menuItemId) {
-    const response = await apiClient.post("/api/orders", null, {
+    const response = await postIdempotent("/api/orders", null, {
       params: { menuItemId },
     })
-    return response.data
+    return resolveOrder(response)
+  },
+
+  // Check out a whole cart as one order: lines = [{ menuItemId, quantity }]
+  async checkout(lines) {
+    const response = await postIdempotent("/api/orders/checkout", { lines })
+    return resolveOrder(response)
   },
 
   // Pay for order
   async payOrder(id) {
-    const response = await apiClient.post(`/api/orders/${id}/pay`)
+    const response = await postIdempotent(`/api/orders/${id}/pay`)
     return response.data
   },
 
   // Cancel order
   async cancelOrder(id) {
-    const response = await apiClient.post(`/api/orders/${id}/cancel`)
+    const response = await postIdempotent(`/api/orders/${id}/cancel`)
     return response.data
   },
 }
@@ -0,0 +1,22 @@
+// Single-item orders carry `menuItem`; cart checkouts carry `lines` instead.
+
+export function getOrderLines(order) {
+  if (order.lines && order.lines.length > 0) {
+    return order.lines.map((line) => ({
+      name: line.menuItem.name,
+      quantity: line.quantity,
+      price: line.unitPrice,
+    }))
+  }
+  return [{ name: order.menuItem.name, quantity: 1, price: order.menuItem.price }]
+}
+
+export function getOrderTotal(order) {
+  return getOrderLines(order).reduce((sum, line) => sum + line.price * line.quantity, 0)
+}
+
+export function getOrderTitle(order) {
+  return getOrderLines(order)
+    .map((line) => (line.quantity > 1 ? `${line.quantity} × ${line.name}` : line.name))
+    .join(", ")
+}
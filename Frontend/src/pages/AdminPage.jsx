@@ -15,6 +15,7 @@ import {
 } from 'lucide-react'
 import { menuService } from '../../lib/services/menu-service'
 import { orderService } from '../../lib/services/order-service'
+import { getOrderTitle, getOrderTotal } from '../../lib/utils/order'
 
 import { toast } from 'sonner'
 
@@ -42,24 +43,20 @@ export default function AdminPage() {
 
   const fetchData = async () => {
     try {
-      const [menuData, orderData, pendingOrders] = await Promise.all([
+      const [menuData, recentOrders, summary] = await Promise.all([
         menuService.getAllItems(),
-        orderService.getAllOrders(),
-        orderService.getPendingOrders()
+        orderService.getAllOrders({ limit: 5 }),
+        orderService.getOrderSummary()
       ])
       
       setMenuItems(menuData)
-      setOrders(orderData)
-      
-      const totalRevenue = orderData
-        .filter(order => order.status === 'PAID')
-        .reduce((sum, order) => sum + order.menuItem.price, 0)
+      setOrders(recentOrders.items)
       
       setStats({
         totalItems: menuData.length,
-        totalOrders: orderData.length,
-        pendingOrders: pendingOrders.length,
-        totalRevenue
+        totalOrders: summary.totalOrders,
+        pendingOrders: summary.pendingOrders,
+        totalRevenue: Number(summary.paidRevenue)
       })
     } catch (error) {
       toast.error('Failed to load admin data')
@@ -251,7 +248,7 @@ export default function AdminPage() {
               <div key={order.id} className="flex items-center justify-between p-4 border rounded-lg">
                 <div>
                   <h3 className="font-semibold">Order #{order.id}</h3>
-                  <p className="text-sm text-muted-foreground">{order.menuItem.name}</p>
+                  <p className="text-sm text-muted-foreground">{getOrderTitle(order)}</p>
                 </div>
                 <div className="text-right">
                   <Badge className={order.status === 'PAID' ? 'bg-green-100 text-green-800' : 
@@ -259,7 +256,7 @@ export default function AdminPage() {
                                    'bg-red-100 text-red-800'}>
                     {order.status}
                   </Badge>
-                  <p className="text-sm font-semibold">${order.menuItem.price.toFixed(2)}</p>
+                  <p className="text-sm font-semibold">${getOrderTotal(order).toFixed(2)}</p>
                 </div>
               </div>
             ))}
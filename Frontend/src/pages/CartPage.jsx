@@ -28,18 +28,15 @@ export default function CartPage() {
 
     setIsProcessing(true)
     try {
-      // For simplicity, we'll create one order per item
-      // In a real app, you might want to batch items or create a single order
-      for (const item of items) {
-        for (let i = 0; i < item.quantity; i++) {
-          await orderService.createOrder(item.menuItemId)
-        }
-      }
+      // The whole cart is reserved atomically as a single order
+      await orderService.checkout(
+        items.map((item) => ({ menuItemId: item.menuItemId, quantity: item.quantity }))
+      )
       
       clearCart()
-      toast.success('Orders created successfully!')
+      toast.success('Order created successfully!')
     } catch (error) {
-      toast.error('Failed to create orders. Please try again.')
+      toast.error('Failed to create order. Please try again.')
     } finally {
       setIsProcessing(false)
     }
@@ -5,9 +5,12 @@ import { Button } from '../components/ui/Button'
 import { Select } from '../components/ui/Select'
 import { CheckCircle, XCircle, Clock, Filter } from 'lucide-react'
 import { orderService } from '../../lib/services/order-service'
+import { getOrderTitle, getOrderTotal } from '../../lib/utils/order'
 
 export default function HistoryPage() {
   const [orders, setOrders] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [filteredOrders, setFilteredOrders] = useState([])
   const [statusFilter, setStatusFilter] = useState('ALL')
   const [loading, setLoading] = useState(true)
@@ -22,8 +25,9 @@ export default function HistoryPage() {
 
   const fetchOrderHistory = async () => {
     try {
-      const orderHistory = await orderService.getOrderHistory()
-      setOrders(orderHistory)
+      const page = await orderService.getOrderHistory()
+      setOrders(page.items)
+      setNextCursor(page.nextCursor)
     } catch (error) {
       console.error('Failed to load order history:', error)
     } finally {
@@ -31,6 +35,19 @@ export default function HistoryPage() {
     }
   }
 
+  const loadMore = async () => {
+    setLoadingMore(true)
+    try {
+      const page = await orderService.getOrderHistory({ cursor: nextCursor })
+      setOrders((prev) => [...prev, ...page.items])
+      setNextCursor(page.nextCursor)
+    } catch (error) {
+      console.error('Failed to load more order history:', error)
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   const filterOrders = () => {
     if (statusFilter === 'ALL') {
       setFilteredOrders(orders)
@@ -129,7 +146,7 @@ export default function HistoryPage() {
                 </div>
                 <div className="text-right">
                   <p className="text-2xl font-bold text-primary">
-                    ${order.menuItem.price.toFixed(2)}
+                    ${getOrderTotal(order).toFixed(2)}
                   </p>
                   <p className="text-sm text-muted-foreground">
                     {new Date(order.createdAt).toLocaleDateString()}
@@ -138,7 +155,7 @@ export default function HistoryPage() {
               </div>
 
               <div className="mb-4">
-                <h4 className="font-medium text-lg">{order.menuItem.name}</h4>
+                <h4 className="font-medium text-lg">{getOrderTitle(order)}</h4>
                 <p className="text-muted-foreground">
                   {new Date(order.createdAt).toLocaleString()}
                 </p>
@@ -152,6 +169,14 @@ export default function HistoryPage() {
           ))}
         </div>
       )}
+
+      {nextCursor && (
+        <div className="mt-6 text-center">
+          <Button variant="outline" onClick={loadMore} disabled={loadingMore}>
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </Button>
+        </div>
+      )}
     </div>
   )
 }
@@ -16,13 +16,13 @@ export default function HomePage() {
   useEffect(() => {
     const fetchStats = async () => {
       try {
-        const [available, orders] = await Promise.all([
+        const [available, summary] = await Promise.all([
           menuService.getAvailableItems(),
-          orderService.getAllOrders()
+          orderService.getOrderSummary()
         ])
         setStats({
           availableItems: available.length,
-          totalOrders: orders.length,
+          totalOrders: summary.totalOrders,
           isLoading: false,
         })
       } catch (error) {
@@ -98,7 +98,7 @@ export default function HomePage() {
                   <Clock className="w-4 h-4 text-primary" />
                 </div>
                 <span className="text-muted-foreground">
-                  <span className="font-semibold text-foreground">{stats.totalOrders}</span> orders today
+                  <span className="font-semibold text-foreground">{stats.totalOrders}</span> orders placed
                 </span>
               </div>
             </div>
@@ -5,6 +5,7 @@ import { Badge } from '../components/ui/Badge'
 import { Input } from '../components/ui/Input'
 import { Search, ShoppingCart, Plus, Minus } from 'lucide-react'
 import { menuService } from '../../lib/services/menu-service'
+import { eventService } from '../../lib/services/event-service'
 import { useCart } from '../../lib/hooks/use-cart'
 import { toast } from 'sonner'
 
@@ -19,6 +20,18 @@ export default function MenuPage() {
     fetchMenuItems()
   }, [])
 
+  useEffect(() => {
+    // Keep stock counts live; items that run out drop off the available list
+    return eventService.subscribe({
+      onStock: ({ menuItemId, stockCount }) => {
+        setMenuItems(items => items
+          .map(item => item.id === menuItemId ? { ...item, stockCount } : item)
+          .filter(item => item.stockCount > 0))
+      },
+      onReconnect: fetchMenuItems,
+    })
+  }, [])
+
   useEffect(() => {
     filterItems()
   }, [menuItems, searchQuery])
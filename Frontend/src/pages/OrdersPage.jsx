@@ -5,10 +5,13 @@ import { Badge } from '../components/ui/Badge'
 import { Progress } from '../components/ui/Progress'
 import { Clock, CheckCircle, XCircle, CreditCard } from 'lucide-react'
 import { orderService } from '../../lib/services/order-service'
+import { getOrderTitle, getOrderTotal } from '../../lib/utils/order'
 import { toast } from 'sonner'
 
 export default function OrdersPage() {
   const [orders, setOrders] = useState([])
+  const [nextCursor, setNextCursor] = useState(null)
+  const [loadingMore, setLoadingMore] = useState(false)
   const [loading, setLoading] = useState(true)
   const [now, setNow] = useState(Date.now())
 
@@ -24,8 +27,9 @@ export default function OrdersPage() {
 
   const fetchOrders = async () => {
     try {
-      const pendingOrders = await orderService.getPendingOrders()
-      setOrders(pendingOrders)
+      const page = await orderService.getPendingOrders()
+      setOrders(page.items)
+      setNextCursor(page.nextCursor)
     } catch (error) {
       toast.error('Failed to load orders')
     } finally {
@@ -33,6 +37,19 @@ export default function OrdersPage() {
     }
   }
 
+  const loadMore = async () => {
+    setLoadingMore(true)
+    try {
+      const page = await orderService.getPendingOrders({ cursor: nextCursor })
+      setOrders((prev) => [...prev, ...page.items])
+      setNextCursor(page.nextCursor)
+    } catch (error) {
+      toast.error('Failed to load more orders')
+    } finally {
+      setLoadingMore(false)
+    }
+  }
+
   const handlePayOrder = async (orderId) => {
     try {
       await orderService.payOrder(orderId)
@@ -150,13 +167,13 @@ export default function OrdersPage() {
                 </div>
                 <div className="text-right">
                   <p className="text-2xl font-bold text-primary">
-                    ${order.menuItem.price.toFixed(2)}
+                    ${getOrderTotal(order).toFixed(2)}
                   </p>
                 </div>
               </div>
 
               <div className="mb-4">
-                <h4 className="font-medium text-lg">{order.menuItem.name}</h4>
+                <h4 className="font-medium text-lg">{getOrderTitle(order)}</h4>
                 <p className="text-muted-foreground">
                   Ordered at {new Date(order.createdAt).toLocaleString()}
                 </p>
@@ -209,6 +226,14 @@ export default function OrdersPage() {
           ))}
         </div>
       )}
+
+      {nextCursor && (
+        <div className="mt-6 text-center">
+          <Button variant="outline" onClick={loadMore} disabled={loadingMore}>
+            {loadingMore ? 'Loading...' : 'Load more'}
+          </Button>
+        </div>
+      )}
     </div>
   )
 }